@@ -5,10 +5,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan("com.example.ttp_serve.entity")
 @EnableJpaRepositories("com.example.ttp_serve.repository")
+@EnableScheduling
 public class TtpServeApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,10 @@
+package com.example.ttp_serve.audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待写入的操作日志，按用户名记录，写库时再关联用户ID
+ */
+public record AuditRecord(String username, String module, String operation, String ipAddress,
+                          LocalDateTime createdAt) {
+}
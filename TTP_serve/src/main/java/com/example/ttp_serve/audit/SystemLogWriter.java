@@ -0,0 +1,254 @@
+package com.example.ttp_serve.audit;
+
+import com.example.ttp_serve.dto.SystemLogWriterStatsDTO;
+import com.example.ttp_serve.enums.LogOverflowPolicy;
+import com.example.ttp_serve.repository.SystemLogBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 系统日志异步写入器
+ * 业务线程只负责入队，后台线程在攒满一批或等待超过刷新间隔后以 JDBC 批处理写库。
+ * 队列满时按配置的策略处理：阻塞等待、丢弃最旧的记录或写入本地溢出文件；
+ * 溢出文件在下次启动时补写入库。关闭时会把队列中剩余的记录写完。
+ */
+@Component
+public class SystemLogWriter {
+
+    private final SystemLogBatchRepository systemLogBatchRepository;
+    private final BlockingQueue<AuditRecord> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long blockTimeoutMs;
+    private final LogOverflowPolicy overflowPolicy;
+    private final String spillFile;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public SystemLogWriter(SystemLogBatchRepository systemLogBatchRepository,
+                           @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+                           @Value("${app.audit.batch-size:200}") int batchSize,
+                           @Value("${app.audit.flush-interval-ms:1000}") long flushIntervalMs,
+                           @Value("${app.audit.block-timeout-ms:100}") long blockTimeoutMs,
+                           @Value("${app.audit.overflow-policy:DROP_OLDEST}") LogOverflowPolicy overflowPolicy,
+                           @Value("${app.audit.spill-file:logs/audit-spill.log}") String spillFile) {
+        this.systemLogBatchRepository = systemLogBatchRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "system-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 关闭时停止接收新的批次等待，写完队列中剩余的记录
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            worker.join(flushIntervalMs * 2 + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 后台线程未能按时退出时，由当前线程写完剩余记录
+        List<AuditRecord> rest = new ArrayList<>();
+        while (queue.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+    }
+
+    /**
+     * 提交一条日志，不会抛出异常
+     */
+    public void submit(AuditRecord record) {
+        if (queue.offer(record)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!queue.offer(record, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        dropped.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(record)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+            case SPILL:
+                spill(List.of(record));
+                break;
+        }
+    }
+
+    /**
+     * 队列积压以及累计写入、丢弃和溢出的日志数，用于观察溢出策略是否在丢失日志
+     */
+    public SystemLogWriterStatsDTO getStats() {
+        SystemLogWriterStatsDTO stats = new SystemLogWriterStatsDTO();
+        stats.setOverflowPolicy(overflowPolicy);
+        stats.setPending(queue.size());
+        stats.setWrittenCount(written.get());
+        stats.setDroppedCount(dropped.get());
+        stats.setSpilledCount(spilled.get());
+        return stats;
+    }
+
+    private void run() {
+        replaySpill();
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuditRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 单批失败不能让写入线程退出
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AuditRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            systemLogBatchRepository.insertAll(batch);
+            written.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            // 数据库不可用时转存到溢出文件，下次启动时补写
+            spill(batch);
+        }
+    }
+
+    private synchronized void spill(List<AuditRecord> records) {
+        Path path = spillPath();
+        if (path == null) {
+            dropped.addAndGet(records.size());
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AuditRecord record : records) {
+                    writer.write(String.join("\t",
+                            clean(record.username()),
+                            clean(record.module()),
+                            clean(record.operation()),
+                            clean(record.ipAddress()),
+                            record.createdAt().toString()));
+                    writer.newLine();
+                }
+            }
+            spilled.addAndGet(records.size());
+        } catch (IOException e) {
+            dropped.addAndGet(records.size());
+        }
+    }
+
+    /**
+     * 补写上次运行遗留在溢出文件中的日志，先改名再读取，避免与新的溢出记录混在一起
+     */
+    private void replaySpill() {
+        Path path = spillPath();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        List<AuditRecord> records = new ArrayList<>();
+        try {
+            Path replay = path.resolveSibling(path.getFileName() + ".replay");
+            synchronized (this) {
+                Files.move(path, replay, StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (String line : Files.readAllLines(replay, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 5) {
+                    records.add(new AuditRecord(fields[0], fields[1], fields[2],
+                            fields[3].isEmpty() ? null : fields[3], LocalDateTime.parse(fields[4])));
+                }
+            }
+            Files.delete(replay);
+        } catch (IOException | RuntimeException e) {
+            // 溢出文件损坏时跳过，不影响新日志写入
+        }
+        for (int i = 0; i < records.size(); i += batchSize) {
+            flush(new ArrayList<>(records.subList(i, Math.min(i + batchSize, records.size()))));
+        }
+    }
+
+    private Path spillPath() {
+        return spillFile == null || spillFile.isBlank() ? null : Paths.get(spillFile);
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.repository.CampusRepository;
+import com.example.ttp_serve.util.CampusTree;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 校区层级缓存
+ * 一条查询加载全部校区构建 {@link CampusTree}，树形结构、下级校区和上级校区的查询都在内存中完成。
+ * 校区新增、修改或删除的事务提交后使缓存失效，下次访问时重新加载。
+ */
+@Component
+@RequiredArgsConstructor
+public class CampusHierarchy {
+
+    private final CampusRepository campusRepository;
+
+    // 每次失效加一，加载期间发生过失效的结果不写入缓存，避免覆盖成旧数据
+    private final AtomicLong version = new AtomicLong();
+    private volatile CampusTree tree;
+
+    /**
+     * 应用启动完成后加载校区层级
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        tree();
+    }
+
+    /**
+     * 当前的校区层级，缓存失效时从数据库加载
+     */
+    public CampusTree tree() {
+        CampusTree current = tree;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = tree;
+            if (current != null) {
+                return current;
+            }
+            long loadedVersion = version.get();
+            CampusTree loaded = load();
+            if (version.get() == loadedVersion) {
+                tree = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * 校区自身及全部下级校区的ID，校区不存在时返回空列表
+     */
+    public List<Long> subtreeIds(Long campusId) {
+        return tree().subtreeIds(campusId);
+    }
+
+    /**
+     * 在当前事务提交后使缓存失效，需在修改校区的事务内调用
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+        tree = null;
+    }
+
+    private CampusTree load() {
+        List<CampusTree.Node> nodes = new ArrayList<>();
+        for (Object[] row : campusRepository.findHierarchyRows()) {
+            nodes.add(new CampusTree.Node((Long) row[0], (Long) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5], (String) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8]));
+        }
+        return CampusTree.of(nodes);
+    }
+}
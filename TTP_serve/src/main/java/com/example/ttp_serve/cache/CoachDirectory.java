@@ -0,0 +1,415 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.dto.CoachDTO;
+import com.example.ttp_serve.dto.CoachFilterDTO;
+import com.example.ttp_serve.dto.RatingSummaryDTO;
+import com.example.ttp_serve.entity.Coach;
+import com.example.ttp_serve.entity.User;
+import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.Gender;
+import com.example.ttp_serve.enums.UserStatus;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.exception.BusinessException;
+import com.example.ttp_serve.repository.CoachRepository;
+import com.example.ttp_serve.repository.UserRatingRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 教练目录读模型
+ * 一次关联查询加载全部教练及所属校区名称，再批量取回评价汇总，组装成反规范化的教练列表常驻内存：
+ * 筛选和排序用到的字段（级别、性别、年龄、校区、价格、学员数、评分）按列存放在基本类型数组中，
+ * 返回时复制预先组装好的 CoachDTO，教练列表、条件筛选和详情查询都不访问数据库。
+ * 教练、用户信息、师生关系、评价和校区名称变更的事务提交后，在新的只读事务中重新加载受影响的教练并替换快照；
+ * 每天凌晨全量重建一次，纠正遗漏的变更。
+ */
+@Component
+public class CoachDirectory {
+
+    private static final int NONE = -1;
+
+    private final CoachRepository coachRepository;
+    private final UserRatingRepository userRatingRepository;
+    private final CampusHierarchy campusHierarchy;
+    private final TransactionTemplate readTransaction;
+
+    // 不可变快照，更新时整体替换；写入方持有本对象的锁
+    private volatile Columns columns;
+
+    public CoachDirectory(CoachRepository coachRepository,
+                          UserRatingRepository userRatingRepository,
+                          CampusHierarchy campusHierarchy,
+                          PlatformTransactionManager transactionManager) {
+        this.coachRepository = coachRepository;
+        this.userRatingRepository = userRatingRepository;
+        this.campusHierarchy = campusHierarchy;
+        // 提交后回调中原事务的资源仍绑定在线程上，重新加载放到独立的只读事务中
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 按ID排序的教练行，筛选字段另存为基本类型列，空值记为 NONE
+     */
+    private static final class Columns {
+        final CoachDTO[] rows;
+        final long[] ids;
+        final int[] levels;
+        final int[] genders;
+        final int[] statuses;
+        final int[] ages;
+        final long[] campusIds;
+        final long[] rateCents;
+        final int[] currentStudents;
+        final int[] maxStudents;
+        final double[] averageRatings;
+        final long[] ratingCounts;
+
+        Columns(CoachDTO[] rows) {
+            int n = rows.length;
+            this.rows = rows;
+            ids = new long[n];
+            levels = new int[n];
+            genders = new int[n];
+            statuses = new int[n];
+            ages = new int[n];
+            campusIds = new long[n];
+            rateCents = new long[n];
+            currentStudents = new int[n];
+            maxStudents = new int[n];
+            averageRatings = new double[n];
+            ratingCounts = new long[n];
+            for (int i = 0; i < n; i++) {
+                CoachDTO row = rows[i];
+                ids[i] = row.getId();
+                levels[i] = row.getLevel() != null ? row.getLevel().ordinal() : NONE;
+                genders[i] = row.getGender() != null ? row.getGender().ordinal() : NONE;
+                statuses[i] = row.getStatus() != null ? row.getStatus().ordinal() : NONE;
+                ages[i] = row.getAge() != null ? row.getAge() : NONE;
+                campusIds[i] = row.getCampusId() != null ? row.getCampusId() : NONE;
+                rateCents[i] = row.getHourlyRate() != null ? toCents(row.getHourlyRate(), RoundingMode.HALF_UP) : NONE;
+                currentStudents[i] = row.getCurrentStudents() != null ? row.getCurrentStudents() : 0;
+                maxStudents[i] = row.getMaxStudents() != null ? row.getMaxStudents() : Integer.MAX_VALUE;
+                averageRatings[i] = row.getAverageRating() != null ? row.getAverageRating() : 0.0;
+                ratingCounts[i] = row.getRatingCount() != null ? row.getRatingCount() : 0L;
+            }
+        }
+
+        int indexOf(Long id) {
+            return id != null ? Arrays.binarySearch(ids, id) : NONE;
+        }
+
+        /**
+         * 用重新加载的行替换 reloadedIds 对应的教练，不在 rows 中的视为已删除
+         */
+        Columns replace(Collection<Long> reloadedIds, List<CoachDTO> reloaded) {
+            Set<Long> replaced = new HashSet<>(reloadedIds);
+            List<CoachDTO> merged = new ArrayList<>(this.rows.length + reloaded.size());
+            for (CoachDTO row : this.rows) {
+                if (!replaced.contains(row.getId())) {
+                    merged.add(row);
+                }
+            }
+            merged.addAll(reloaded);
+            return sorted(merged);
+        }
+
+        static Columns sorted(List<CoachDTO> rows) {
+            CoachDTO[] array = rows.toArray(new CoachDTO[0]);
+            Arrays.sort(array, Comparator.comparing(CoachDTO::getId));
+            return new Columns(array);
+        }
+    }
+
+    /**
+     * 应用启动完成后加载教练目录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * 每天凌晨按数据库重建教练目录
+     */
+    @Scheduled(cron = "${app.coach-directory.reconcile-cron:0 30 0 * * *}")
+    public void reconcile() {
+        reload();
+    }
+
+    /**
+     * 按条件筛选教练，支持按 hourlyRate、averageRating、ratingCount、age、currentStudents、id 排序，默认按ID排序
+     */
+    public Page<CoachDTO> find(CoachFilterDTO filter, Pageable pageable) {
+        Columns c = columns();
+        int[] matched = filter(c, filter != null ? filter : new CoachFilterDTO());
+        Comparator<Integer> order = comparator(c, pageable.getSort());
+        if (order != null) {
+            Integer[] boxed = Arrays.stream(matched).boxed().toArray(Integer[]::new);
+            Arrays.sort(boxed, order);
+            matched = Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(materialize(c, matched, 0, matched.length), pageable, matched.length);
+        }
+        int from = (int) Math.min(pageable.getOffset(), matched.length);
+        int to = Math.min(from + pageable.getPageSize(), matched.length);
+        return new PageImpl<>(materialize(c, matched, from, to), pageable, matched.length);
+    }
+
+    /**
+     * 按ID获取教练，不存在时返回 null
+     */
+    public CoachDTO get(Long coachId) {
+        Columns c = columns();
+        int index = c.indexOf(coachId);
+        return index >= 0 ? copy(c.rows[index]) : null;
+    }
+
+    /**
+     * 按给定的ID顺序获取教练，不存在的ID跳过
+     */
+    public List<CoachDTO> get(List<Long> coachIds) {
+        Columns c = columns();
+        List<CoachDTO> dtos = new ArrayList<>(coachIds.size());
+        for (Long coachId : coachIds) {
+            int index = c.indexOf(coachId);
+            if (index >= 0) {
+                dtos.add(copy(c.rows[index]));
+            }
+        }
+        return dtos;
+    }
+
+    /**
+     * 在当前事务提交后重新加载教练，已删除的教练从目录中移除
+     */
+    public void refreshAfterCommit(Long coachId) {
+        afterCommit(() -> refresh(List.of(coachId)));
+    }
+
+    /**
+     * 用户信息变更后调用，用户不是教练时忽略
+     */
+    public void refreshAfterCommit(User user) {
+        if (user instanceof Coach || user.getUserType() == UserType.COACH) {
+            refreshAfterCommit(user.getId());
+        }
+    }
+
+    /**
+     * 被评价者的评价汇总变化后调用，被评价者不在目录中（不是教练）时忽略
+     */
+    public void refreshRatingAfterCommit(Long userId) {
+        afterCommit(() -> {
+            if (columns().indexOf(userId) >= 0) {
+                refresh(List.of(userId));
+            }
+        });
+    }
+
+    /**
+     * 校区信息变更后重新加载该校区的教练，更新目录中的校区名称
+     */
+    public void refreshCampusAfterCommit(Long campusId) {
+        afterCommit(() -> {
+            Columns c = columns();
+            List<Long> coachIds = new ArrayList<>();
+            for (int i = 0; i < c.ids.length; i++) {
+                if (c.campusIds[i] == campusId) {
+                    coachIds.add(c.ids[i]);
+                }
+            }
+            if (!coachIds.isEmpty()) {
+                refresh(coachIds);
+            }
+        });
+    }
+
+    /**
+     * 在当前事务提交后全量重建，用于批量变更（如重算评价汇总）
+     */
+    public void reloadAfterCommit() {
+        afterCommit(this::reload);
+    }
+
+    private Columns columns() {
+        Columns current = columns;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (columns == null) {
+                columns = Columns.sorted(readTransaction.execute(status -> toRows(coachRepository.findDirectoryRows())));
+            }
+            return columns;
+        }
+    }
+
+    private synchronized void reload() {
+        columns = Columns.sorted(readTransaction.execute(status -> toRows(coachRepository.findDirectoryRows())));
+    }
+
+    /**
+     * 重新加载指定教练；目录尚未加载时不处理，首次加载会读到最新数据
+     */
+    private synchronized void refresh(Collection<Long> coachIds) {
+        if (columns == null) {
+            return;
+        }
+        List<CoachDTO> reloaded = readTransaction.execute(status ->
+                toRows(coachRepository.findDirectoryRowsByIds(coachIds)));
+        columns = columns.replace(coachIds, reloaded);
+    }
+
+    private int[] filter(Columns c, CoachFilterDTO filter) {
+        int level = filter.getLevel() != null ? filter.getLevel().ordinal() : NONE;
+        int gender = filter.getGender() != null ? filter.getGender().ordinal() : NONE;
+        int status = filter.getStatus() != null ? filter.getStatus().ordinal() : NONE;
+        int minAge = filter.getMinAge() != null ? filter.getMinAge() : Integer.MIN_VALUE;
+        int maxAge = filter.getMaxAge() != null ? filter.getMaxAge() : Integer.MAX_VALUE;
+        boolean ageFiltered = filter.getMinAge() != null || filter.getMaxAge() != null;
+        long minCents = filter.getMinHourlyRate() != null ? toCents(filter.getMinHourlyRate(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maxCents = filter.getMaxHourlyRate() != null ? toCents(filter.getMaxHourlyRate(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        boolean rateFiltered = filter.getMinHourlyRate() != null || filter.getMaxHourlyRate() != null;
+        boolean availableOnly = Boolean.TRUE.equals(filter.getAvailable());
+        Set<Long> campusIds = null;
+        if (filter.getCampusId() != null) {
+            campusIds = Boolean.TRUE.equals(filter.getIncludeSubCampuses())
+                    ? new HashSet<>(campusHierarchy.subtreeIds(filter.getCampusId()))
+                    : Set.of(filter.getCampusId());
+        }
+
+        int[] matched = new int[c.ids.length];
+        int count = 0;
+        for (int i = 0; i < c.ids.length; i++) {
+            if ((level != NONE && c.levels[i] != level)
+                    || (gender != NONE && c.genders[i] != gender)
+                    || (status != NONE && c.statuses[i] != status)
+                    || (ageFiltered && (c.ages[i] == NONE || c.ages[i] < minAge || c.ages[i] > maxAge))
+                    || (rateFiltered && (c.rateCents[i] == NONE || c.rateCents[i] < minCents || c.rateCents[i] > maxCents))
+                    || (availableOnly && c.currentStudents[i] >= c.maxStudents[i])
+                    || (campusIds != null && (c.campusIds[i] == NONE || !campusIds.contains(c.campusIds[i])))) {
+                continue;
+            }
+            matched[count++] = i;
+        }
+        return Arrays.copyOf(matched, count);
+    }
+
+    /**
+     * 按排序条件比较行下标，没有排序条件时返回 null（保持按ID排序）
+     */
+    private static Comparator<Integer> comparator(Columns c, Sort sort) {
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Integer> next = switch (order.getProperty()) {
+                case "hourlyRate" -> Comparator.comparingLong(i -> c.rateCents[i]);
+                case "averageRating" -> Comparator.comparingDouble(i -> c.averageRatings[i]);
+                case "ratingCount" -> Comparator.comparingLong(i -> c.ratingCounts[i]);
+                case "age" -> Comparator.comparingInt(i -> c.ages[i]);
+                case "currentStudents" -> Comparator.comparingInt(i -> c.currentStudents[i]);
+                case "id" -> Comparator.comparingLong(i -> c.ids[i]);
+                default -> throw new BusinessException("不支持的排序字段: " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? null : comparator.thenComparingLong(i -> c.ids[i]);
+    }
+
+    private static List<CoachDTO> materialize(Columns c, int[] matched, int from, int to) {
+        List<CoachDTO> dtos = new ArrayList<>(to - from);
+        for (int k = from; k < to; k++) {
+            dtos.add(copy(c.rows[matched[k]]));
+        }
+        return dtos;
+    }
+
+    private List<CoachDTO> toRows(List<Object[]> rows) {
+        List<CoachDTO> dtos = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            CoachDTO dto = new CoachDTO();
+            dto.setId((Long) row[0]);
+            dto.setUsername((String) row[1]);
+            dto.setRealName((String) row[2]);
+            dto.setGender((Gender) row[3]);
+            dto.setAge((Integer) row[4]);
+            dto.setPhone((String) row[5]);
+            dto.setEmail((String) row[6]);
+            dto.setAvatar((String) row[7]);
+            dto.setUserType((UserType) row[8]);
+            dto.setCampusId((Long) row[9]);
+            dto.setCampusName((String) row[10]);
+            dto.setStatus((UserStatus) row[11]);
+            dto.setCreatedAt((LocalDateTime) row[12]);
+            dto.setUpdatedAt((LocalDateTime) row[13]);
+            dto.setLevel((CoachLevel) row[14]);
+            dto.setAwards((String) row[15]);
+            dto.setHourlyRate((BigDecimal) row[16]);
+            dto.setCurrentStudents((Integer) row[17]);
+            dto.setMaxStudents((Integer) row[18]);
+            dtos.add(dto);
+        }
+
+        Map<Long, RatingSummaryDTO> ratings = userRatingRepository.findAll(
+                dtos.stream().map(CoachDTO::getId).toList());
+        for (CoachDTO dto : dtos) {
+            RatingSummaryDTO rating = ratings.getOrDefault(dto.getId(), RatingSummaryDTO.of(dto.getId(), 0, 0, 0));
+            dto.setAverageRating(rating.getAverageRating());
+            dto.setRatingCount(rating.getRatingCount());
+        }
+        return dtos;
+    }
+
+    private static CoachDTO copy(CoachDTO row) {
+        CoachDTO dto = new CoachDTO();
+        BeanUtils.copyProperties(row, dto);
+        return dto;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.setScale(2, roundingMode).movePointRight(2).longValueExact();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.dto.ContestLiveEventDTO;
+import com.example.ttp_serve.dto.ContestScheduleDto;
+import com.example.ttp_serve.entity.ContestSchedule;
+import com.example.ttp_serve.repository.ContestScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 月赛实时结果推送
+ * 每个月赛一个频道，保存全部比赛安排的最新快照和版本号。第一个订阅者连接时查询一次快照，
+ * 之后的订阅者直接取内存中的快照；比赛安排变更时在事务提交后按变更的ID查询一次，
+ * 更新快照并把增量分发给该月赛的所有订阅者，与观看人数无关。
+ * 每个订阅者有独立的有界发送队列，由发送线程池写出；队列满或单次写出超过发送超时说明客户端跟不上，
+ * 此时关闭连接，客户端重连后重新获取快照。发送线程按需创建、空闲回收，
+ * 个别慢客户端阻塞的写出只占用各自的线程，不影响其他订阅者。没有订阅者的月赛不做任何查询。
+ */
+@Component
+public class ContestLiveHub {
+
+    private final ContestScheduleRepository scheduleRepository;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final long sendTimeoutMs;
+    private final ThreadPoolExecutor sender;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public ContestLiveHub(ContestScheduleRepository scheduleRepository,
+                          @Value("${app.contest-live.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${app.contest-live.buffer-size:256}") int bufferSize,
+                          @Value("${app.contest-live.send-threads:32}") int sendThreads,
+                          @Value("${app.contest-live.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.scheduleRepository = scheduleRepository;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        // 核心线程数即上限，允许核心线程空闲超时：任务到来时先加线程再排队，空闲后回收
+        this.sender = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "contest-live-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sender.allowCoreThreadTimeOut(true);
+    }
+
+    private static final class Channel {
+        final Long contestId;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        Map<Long, ContestScheduleDto> snapshot;
+        long version;
+
+        Channel(Long contestId) {
+            this.contestId = contestId;
+        }
+    }
+
+    private final class Subscriber {
+        final Channel channel;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        // 当前写出开始的时间，0 表示没有正在进行的写出
+        volatile long sendingSince;
+        volatile boolean closed;
+
+        Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // 发送跟不上，断开后由客户端重连获取新的快照
+                disconnect();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    sendingSince = System.currentTimeMillis();
+                    emitter.send(event);
+                    sendingSince = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                sendingSince = 0;
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutMs;
+        }
+
+        /**
+         * 关闭并结束连接。complete 与阻塞中的 send 争用同一把锁，交给发送线程执行，
+         * 不阻塞推送和检查线程；阻塞的写出由容器的写超时中断后连接随即结束
+         */
+        void disconnect() {
+            close();
+            try {
+                sender.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                // 已停止
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                queue.clear();
+                unsubscribe(this);
+            }
+        }
+    }
+
+    /**
+     * 订阅月赛的实时结果，首个事件为当前快照
+     */
+    public SseEmitter subscribe(Long contestId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(contestId, Channel::new);
+            synchronized (channel) {
+                // 频道在加锁前随最后一个订阅者离开而被移除，改用新的频道
+                if (channels.get(contestId) != channel) {
+                    continue;
+                }
+                if (channel.snapshot == null) {
+                    Map<Long, ContestScheduleDto> snapshot = new LinkedHashMap<>();
+                    for (ContestSchedule schedule : scheduleRepository.findLiveSchedules(contestId)) {
+                        snapshot.put(schedule.getId(), toDto(schedule));
+                    }
+                    channel.snapshot = snapshot;
+                }
+                Subscriber subscriber = new Subscriber(channel, emitter);
+                emitter.onCompletion(subscriber::close);
+                emitter.onTimeout(subscriber::close);
+                emitter.onError(e -> subscriber.close());
+                channel.subscribers.add(subscriber);
+
+                ContestLiveEventDTO event = new ContestLiveEventDTO(contestId, channel.version,
+                        new ArrayList<>(channel.snapshot.values()), new ArrayList<>());
+                subscriber.offer(event("snapshot", event));
+                return emitter;
+            }
+        }
+    }
+
+    /**
+     * 在当前事务提交后推送这些比赛安排的最新状态，已删除的比赛安排以 removedIds 推送
+     */
+    public void publishAfterCommit(Long contestId, Collection<Long> scheduleIds) {
+        if (contestId == null || scheduleIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new LinkedHashSet<>(scheduleIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(contestId, ids);
+                }
+            });
+        } else {
+            publish(contestId, ids);
+        }
+    }
+
+    public int subscriberCount(Long contestId) {
+        Channel channel = channels.get(contestId);
+        return channel != null ? channel.subscribers.size() : 0;
+    }
+
+    /**
+     * 定期发送注释行保持连接，顺带清理已断开的订阅者
+     */
+    @Scheduled(fixedDelayString = "${app.contest-live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    /**
+     * 断开单次写出超过发送超时的订阅者，避免慢客户端长期占用发送线程
+     */
+    @Scheduled(fixedDelayString = "${app.contest-live.send-check-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.stalled(now)) {
+                    subscriber.disconnect();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.disconnect();
+            }
+        }
+        sender.shutdown();
+    }
+
+    private void publish(Long contestId, Set<Long> ids) {
+        Channel channel = channels.get(contestId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            if (channel.subscribers.isEmpty() || channel.snapshot == null) {
+                return;
+            }
+            List<ContestScheduleDto> changed = new ArrayList<>(ids.size());
+            Set<Long> removed = new LinkedHashSet<>(ids);
+            for (ContestSchedule schedule : scheduleRepository.findLiveSchedulesByIdIn(ids)) {
+                ContestScheduleDto dto = toDto(schedule);
+                changed.add(dto);
+                removed.remove(schedule.getId());
+                channel.snapshot.put(schedule.getId(), dto);
+            }
+            removed.forEach(channel.snapshot::remove);
+
+            channel.version++;
+            SseEmitter.SseEventBuilder event = event("delta",
+                    new ContestLiveEventDTO(contestId, channel.version, changed, new ArrayList<>(removed)));
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        Channel channel = subscriber.channel;
+        synchronized (channel) {
+            channel.subscribers.remove(subscriber);
+            if (channel.subscribers.isEmpty()) {
+                // 没有订阅者时丢弃快照，下次订阅重新查询
+                channels.remove(channel.contestId, channel);
+                channel.snapshot = null;
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(String name, ContestLiveEventDTO data) {
+        return SseEmitter.event()
+                .name(name)
+                .id(String.valueOf(data.getVersion()))
+                .data(data, MediaType.APPLICATION_JSON);
+    }
+
+    private static ContestScheduleDto toDto(ContestSchedule schedule) {
+        ContestScheduleDto dto = new ContestScheduleDto();
+        dto.setId(schedule.getId());
+        dto.setContestId(schedule.getContest().getId());
+        dto.setContestDate(schedule.getContest().getContestDate());
+        dto.setRoundNumber(schedule.getRoundNumber());
+        dto.setGroupType(schedule.getGroupType());
+        dto.setStage(schedule.getStage());
+        dto.setGroupNumber(schedule.getGroupNumber());
+        dto.setBracketPosition(schedule.getBracketPosition());
+        dto.setPlayer1Id(schedule.getPlayer1().getId());
+        dto.setPlayer1Name(schedule.getPlayer1().getRealName());
+        if (schedule.getPlayer2() != null) {
+            dto.setPlayer2Id(schedule.getPlayer2().getId());
+            dto.setPlayer2Name(schedule.getPlayer2().getRealName());
+        }
+        if (schedule.getCourt() != null) {
+            dto.setCourtId(schedule.getCourt().getId());
+            dto.setCourtNumber(schedule.getCourt().getCourtNumber());
+        }
+        dto.setStartTime(schedule.getStartTime());
+        if (schedule.getWinner() != null) {
+            dto.setWinnerId(schedule.getWinner().getId());
+            dto.setWinnerName(schedule.getWinner().getRealName());
+        }
+        dto.setStatus(schedule.getStatus());
+        dto.setCreatedAt(schedule.getCreatedAt());
+        return dto;
+    }
+}
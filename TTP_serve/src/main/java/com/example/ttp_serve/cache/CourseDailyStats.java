@@ -0,0 +1,247 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.entity.Course;
+import com.example.ttp_serve.entity.User;
+import com.example.ttp_serve.enums.CourseStatus;
+import com.example.ttp_serve.repository.CourseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 课程每日统计
+ * 按 (日期, 状态) 分别汇总全局、每个教练和每个校区的课程数量与费用合计，供仪表盘的计数和收入接口直接读取。
+ * 课程状态变化时在事务提交后增量更新；每天凌晨按数据库重建一次，纠正增量更新的遗漏。
+ * 增量更新只知道课程的新状态，需要按课程ID找到它原先计入的位置再扣除，因此保存每节课程的统计维度：
+ * 重建时逐课程读取统计维度（不在数据库中分组），在内存中累加。
+ * 只保留上月一日之后开课的课程，更早的查询由调用方回退到数据库。
+ * 校区口径与原查询一致：教练或学员属于该校区的课程都计入，二者同属一个校区时只计一次。
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseDailyStats {
+
+    private final CourseRepository courseRepository;
+
+    private enum Scope { ALL, COACH, CAMPUS }
+
+    private record Key(Scope scope, Long id, LocalDate day, CourseStatus status) {
+    }
+
+    private record Contribution(Long coachId, Long coachCampusId, Long studentCampusId,
+                                LocalDate day, CourseStatus status, BigDecimal fee) {
+    }
+
+    private static final class Counter {
+        long count;
+        BigDecimal fee = BigDecimal.ZERO;
+    }
+
+    private Map<Long, Contribution> contributions = new HashMap<>();
+    private Map<Key, Counter> counters = new HashMap<>();
+    private LocalDate horizon;
+
+    // 重建期间发生的变更，重建完成后覆盖到新数据上，null 表示课程已移出统计
+    private Map<Long, Contribution> changedDuringRebuild;
+
+    /**
+     * 应用启动完成后加载统计
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 每天凌晨按数据库重建统计
+     */
+    @Scheduled(cron = "${app.course-stats.reconcile-cron:0 10 0 * * *}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    /**
+     * 统计数据是否覆盖该日期
+     */
+    public synchronized boolean covers(LocalDate day) {
+        return horizon != null && day != null && !day.isBefore(horizon);
+    }
+
+    public synchronized long countAll(CourseStatus status, LocalDate day) {
+        return count(new Key(Scope.ALL, null, day, status));
+    }
+
+    public synchronized long countByCoach(Long coachId, CourseStatus status, LocalDate day) {
+        return count(new Key(Scope.COACH, coachId, day, status));
+    }
+
+    public synchronized long countByCampus(Long campusId, CourseStatus status, LocalDate day) {
+        return count(new Key(Scope.CAMPUS, campusId, day, status));
+    }
+
+    /**
+     * 教练在 [from, to] 日期范围内指定状态课程的费用合计
+     */
+    public synchronized BigDecimal sumFeeByCoach(Long coachId, CourseStatus status, LocalDate from, LocalDate to) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Counter counter = counters.get(new Key(Scope.COACH, coachId, day, status));
+            if (counter != null) {
+                total = total.add(counter.fee);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 在当前事务提交后按课程的最新状态更新统计
+     * 教练和学员的校区在调用时读取，需在事务内调用
+     */
+    public void recordAfterCommit(Course course) {
+        Long courseId = course.getId();
+        Contribution contribution = contributionOf(course);
+        afterCommit(() -> apply(courseId, contribution));
+    }
+
+    /**
+     * 批量更新课程状态后，在事务提交后把这些课程从原状态移到新状态
+     * 用于不经过实体的批量 UPDATE，只处理当前仍为 from 状态的课程
+     */
+    public void moveStatusAfterCommit(List<Long> courseIds, CourseStatus from, CourseStatus to) {
+        List<Long> ids = List.copyOf(courseIds);
+        afterCommit(() -> moveStatus(ids, from, to));
+    }
+
+    private synchronized void moveStatus(List<Long> courseIds, CourseStatus from, CourseStatus to) {
+        for (Long courseId : courseIds) {
+            Contribution current = contributions.get(courseId);
+            if (current != null && current.status() == from) {
+                apply(courseId, new Contribution(current.coachId(), current.coachCampusId(),
+                        current.studentCampusId(), current.day(), to, current.fee()));
+            }
+        }
+    }
+
+    private void rebuild() {
+        LocalDate from = LocalDate.now().minusMonths(1).withDayOfMonth(1);
+        synchronized (this) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        Map<Long, Contribution> loaded = new HashMap<>();
+        try {
+            List<Object[]> rows = courseRepository.findDailyStatsRowsStartingFrom(from.atStartOfDay());
+            for (Object[] row : rows) {
+                loaded.put((Long) row[0], new Contribution((Long) row[1], (Long) row[2], (Long) row[3],
+                        ((LocalDateTime) row[4]).toLocalDate(), (CourseStatus) row[5], feeOf((BigDecimal) row[6])));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            Map<Long, Contribution> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            contributions = new HashMap<>();
+            counters = new HashMap<>();
+            horizon = from;
+            loaded.forEach(this::replace);
+            changed.forEach(this::replace);
+        }
+    }
+
+    private synchronized void apply(Long courseId, Contribution contribution) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(courseId, contribution);
+        }
+        replace(courseId, contribution);
+    }
+
+    private void replace(Long courseId, Contribution contribution) {
+        if (contribution != null && horizon != null && contribution.day().isBefore(horizon)) {
+            contribution = null;
+        }
+        Contribution previous = contribution != null
+                ? contributions.put(courseId, contribution)
+                : contributions.remove(courseId);
+        if (previous != null) {
+            add(previous, -1);
+        }
+        if (contribution != null) {
+            add(contribution, 1);
+        }
+    }
+
+    private void add(Contribution c, int sign) {
+        add(new Key(Scope.ALL, null, c.day(), c.status()), c.fee(), sign);
+        add(new Key(Scope.COACH, c.coachId(), c.day(), c.status()), c.fee(), sign);
+        if (c.coachCampusId() != null) {
+            add(new Key(Scope.CAMPUS, c.coachCampusId(), c.day(), c.status()), c.fee(), sign);
+        }
+        if (c.studentCampusId() != null && !Objects.equals(c.studentCampusId(), c.coachCampusId())) {
+            add(new Key(Scope.CAMPUS, c.studentCampusId(), c.day(), c.status()), c.fee(), sign);
+        }
+    }
+
+    private void add(Key key, BigDecimal fee, int sign) {
+        Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+        counter.count += sign;
+        counter.fee = sign > 0 ? counter.fee.add(fee) : counter.fee.subtract(fee);
+        if (counter.count == 0) {
+            counters.remove(key);
+        }
+    }
+
+    private long count(Key key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.count : 0L;
+    }
+
+    private static Contribution contributionOf(Course course) {
+        if (course.getStartTime() == null || course.getStatus() == null) {
+            return null;
+        }
+        return new Contribution(
+                course.getCoach().getId(),
+                campusIdOf(course.getCoach()),
+                campusIdOf(course.getStudent()),
+                course.getStartTime().toLocalDate(),
+                course.getStatus(),
+                feeOf(course.getFee()));
+    }
+
+    private static Long campusIdOf(User user) {
+        return user != null && user.getCampus() != null ? user.getCampus().getId() : null;
+    }
+
+    private static BigDecimal feeOf(BigDecimal fee) {
+        return fee != null ? fee : BigDecimal.ZERO;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.entity.Course;
+import com.example.ttp_serve.enums.CourseStatus;
+import com.example.ttp_serve.repository.CourseRepository;
+import com.example.ttp_serve.util.IntervalTree;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 课程排期内存索引
+ * 按教练和球台分别维护未取消课程的区间树，用于在不访问数据库的情况下判断预约时间冲突。
+ * 启动时只加载预热时刻前一天之后结束的课程，早于该时间的查询由调用方回退到数据库。
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseScheduleIndex {
+
+    private final CourseRepository courseRepository;
+
+    private final Map<Long, IntervalTree> coachTrees = new ConcurrentHashMap<>();
+    private final Map<Long, IntervalTree> courtTrees = new ConcurrentHashMap<>();
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime horizon;
+
+    private record Slot(Long coachId, Long courtId, long start, long end) {
+    }
+
+    /**
+     * 应用启动完成后预热索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        List<Object[]> rows = courseRepository.findActiveTimeSlotsEndingAfter(from);
+        for (Object[] row : rows) {
+            put((Long) row[0], new Slot((Long) row[1], (Long) row[2],
+                    toKey((LocalDateTime) row[3]), toKey((LocalDateTime) row[4])));
+        }
+        horizon = from;
+    }
+
+    /**
+     * 索引是否可以回答从 startTime 开始的查询
+     */
+    public boolean covers(LocalDateTime startTime) {
+        LocalDateTime current = horizon;
+        return current != null && startTime != null && !startTime.isBefore(current);
+    }
+
+    /**
+     * 教练在该时间段是否已有未取消的课程
+     */
+    public boolean hasCoachConflict(Long coachId, LocalDateTime startTime, LocalDateTime endTime) {
+        return overlaps(coachTrees.get(coachId), startTime, endTime);
+    }
+
+    /**
+     * 球台在该时间段是否已被未取消的课程占用
+     */
+    public boolean hasCourtConflict(Long courtId, LocalDateTime startTime, LocalDateTime endTime) {
+        return overlaps(courtTrees.get(courtId), startTime, endTime);
+    }
+
+    /**
+     * 在当前事务提交后同步课程的最新状态，已取消的课程会从索引中移除
+     */
+    public void syncAfterCommit(Course course) {
+        Long courseId = course.getId();
+        if (course.getStatus() == CourseStatus.CANCELLED) {
+            afterCommit(() -> remove(courseId));
+            return;
+        }
+        Slot slot = new Slot(
+                course.getCoach().getId(),
+                course.getCourt() != null ? course.getCourt().getId() : null,
+                toKey(course.getStartTime()),
+                toKey(course.getEndTime()));
+        afterCommit(() -> put(courseId, slot));
+    }
+
+    private void put(Long courseId, Slot slot) {
+        Slot previous = slots.put(courseId, slot);
+        if (previous != null) {
+            detach(courseId, previous);
+        }
+        attach(coachTrees, slot.coachId(), courseId, slot);
+        attach(courtTrees, slot.courtId(), courseId, slot);
+    }
+
+    private void remove(Long courseId) {
+        Slot previous = slots.remove(courseId);
+        if (previous != null) {
+            detach(courseId, previous);
+        }
+    }
+
+    private void detach(Long courseId, Slot slot) {
+        detach(coachTrees, slot.coachId(), courseId, slot);
+        detach(courtTrees, slot.courtId(), courseId, slot);
+    }
+
+    private static void attach(Map<Long, IntervalTree> trees, Long key, Long courseId, Slot slot) {
+        if (key == null) {
+            return;
+        }
+        IntervalTree tree = trees.computeIfAbsent(key, k -> new IntervalTree());
+        synchronized (tree) {
+            tree.insert(courseId, slot.start(), slot.end());
+        }
+    }
+
+    private static void detach(Map<Long, IntervalTree> trees, Long key, Long courseId, Slot slot) {
+        if (key == null) {
+            return;
+        }
+        IntervalTree tree = trees.get(key);
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(courseId, slot.start());
+            }
+        }
+    }
+
+    private static boolean overlaps(IntervalTree tree, LocalDateTime startTime, LocalDateTime endTime) {
+        if (tree == null) {
+            return false;
+        }
+        synchronized (tree) {
+            return tree.overlaps(toKey(startTime), toKey(endTime));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.ttp_serve.cache;
+
+/**
+ * 已完成请求的响应，body 为序列化后的 JSON
+ */
+public record IdempotentResponse(String operation, int status, String body) {
+}
@@ -0,0 +1,188 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.dto.MyApiResponse;
+import com.example.ttp_serve.repository.PaymentIdempotencyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 支付接口幂等处理
+ * 以订单号加 Idempotency-Key 请求头为键，保存第一次成功处理的响应，重复请求直接返回该响应。
+ * 最近的响应保存在有容量上限的内存表中，同时写入数据库供重启后和其他实例使用；
+ * 同一个键的并发请求只执行一次，其余请求等待并返回同一个结果。
+ * 只保存成功（2xx）的响应，失败的请求可以用同一个键重试。
+ */
+@Component
+public class PaymentIdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final PaymentIdempotencyRepository paymentIdempotencyRepository;
+    private final ObjectMapper objectMapper;
+    private final long waitMs;
+    private final long retentionHours;
+
+    private final Map<String, IdempotentResponse> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public PaymentIdempotencyStore(PaymentIdempotencyRepository paymentIdempotencyRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                                   @Value("${app.idempotency.wait-ms:5000}") long waitMs,
+                                   @Value("${app.idempotency.retention-hours:72}") long retentionHours) {
+        this.paymentIdempotencyRepository = paymentIdempotencyRepository;
+        this.objectMapper = objectMapper;
+        this.waitMs = waitMs;
+        this.retentionHours = retentionHours;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotentResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * 幂等地执行一次支付操作
+     * @param orderId 订单号
+     * @param key 请求头中的幂等键，为空时直接执行
+     * @param operation 操作名称，同一个键不能用于不同的操作
+     * @param dataType 响应数据类型，用于还原保存的响应
+     * @param action 实际的处理逻辑
+     */
+    public <T> ResponseEntity<MyApiResponse<T>> execute(String orderId, String key, String operation, Class<T> dataType,
+                                                        Supplier<ResponseEntity<MyApiResponse<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(MyApiResponse.error(400, HEADER + " 长度不能超过" + MAX_KEY_LENGTH));
+        }
+        String cacheKey = orderId + '\n' + key;
+        IdempotentResponse stored = lookup(cacheKey, orderId, key);
+        if (stored == null) {
+            CompletableFuture<IdempotentResponse> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+            if (running == null) {
+                try {
+                    // 取得执行权后再查一次，避免与刚结束的同键请求重复执行
+                    stored = lookup(cacheKey, orderId, key);
+                    if (stored == null) {
+                        ResponseEntity<MyApiResponse<T>> response = action.get();
+                        mine.complete(remember(cacheKey, orderId, key, operation, response));
+                        return response;
+                    }
+                    mine.complete(stored);
+                } catch (RuntimeException e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(cacheKey, mine);
+                }
+            } else {
+                stored = await(running);
+                if (stored == null) {
+                    // 首次请求未成功或等待超时，按普通请求处理，支付状态的条件更新保证不会重复入账
+                    return action.get();
+                }
+            }
+        }
+        if (!stored.operation().equals(operation)) {
+            return ResponseEntity.badRequest().body(MyApiResponse.error(400, HEADER + " 已用于该订单的其他操作"));
+        }
+        ResponseEntity<MyApiResponse<T>> replayed = replay(stored, dataType);
+        return replayed != null ? replayed : action.get();
+    }
+
+    /**
+     * 清除超过保留时间的幂等记录
+     */
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 20 * * * *}")
+    public void purgeExpired() {
+        paymentIdempotencyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private IdempotentResponse lookup(String cacheKey, String orderId, String key) {
+        synchronized (recent) {
+            IdempotentResponse cached = recent.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        IdempotentResponse stored;
+        try {
+            stored = paymentIdempotencyRepository.find(orderId, key);
+        } catch (DataAccessException e) {
+            // 幂等表不可用时退化为普通请求
+            return null;
+        }
+        if (stored != null) {
+            synchronized (recent) {
+                recent.put(cacheKey, stored);
+            }
+        }
+        return stored;
+    }
+
+    private <T> IdempotentResponse remember(String cacheKey, String orderId, String key, String operation,
+                                            ResponseEntity<MyApiResponse<T>> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return null;
+        }
+        IdempotentResponse stored;
+        try {
+            stored = new IdempotentResponse(operation, response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        try {
+            paymentIdempotencyRepository.insert(orderId, key, stored);
+        } catch (DataAccessException e) {
+            // 只影响重启后和其他实例的重复请求，本实例仍可从内存返回
+        }
+        synchronized (recent) {
+            recent.put(cacheKey, stored);
+        }
+        return stored;
+    }
+
+    private IdempotentResponse await(CompletableFuture<IdempotentResponse> running) {
+        try {
+            return running.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<MyApiResponse<T>> replay(IdempotentResponse stored, Class<T> dataType) {
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(MyApiResponse.class, dataType);
+        try {
+            MyApiResponse<T> body = objectMapper.readValue(stored.body(), type);
+            return ResponseEntity.status(stored.status()).header("Idempotent-Replayed", "true").body(body);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.entity.Campus;
+import com.example.ttp_serve.entity.User;
+import com.example.ttp_serve.enums.Gender;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.repository.CampusRepository;
+import com.example.ttp_serve.repository.SystemLogRepository;
+import com.example.ttp_serve.repository.UserRepository;
+import com.example.ttp_serve.util.SearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * 用户、校区和操作日志的内存搜索索引
+ * 用户按用户名和真实姓名、校区按名称和地址、日志按操作内容建立 n-gram 倒排索引（见 {@link SearchIndex}），
+ * 替代不能走索引的 LIKE '%关键字%' 查询，并支持拼音首字母和分页。
+ * 用户和校区在保存或删除的事务提交后同步；日志只追加，由定时任务按ID增量加载，只保留最近若干天。
+ * 每天凌晨按数据库重建一次，纠正增量同步的遗漏。
+ */
+@Component
+public class SearchIndexes {
+
+    private static final int LOG_BATCH_SIZE = 1000;
+
+    public record UserAttributes(UserType userType, Long campusId, Gender gender, Integer age) {
+    }
+
+    private final UserRepository userRepository;
+    private final CampusRepository campusRepository;
+    private final SystemLogRepository systemLogRepository;
+    private final int logDays;
+
+    private final Section<UserAttributes> users = new Section<>();
+    private final Section<Void> campuses = new Section<>();
+    private final Section<Void> logs = new Section<>();
+
+    // 已加载的最大日志ID，只在持有 logs 的锁时读写
+    private long lastLogId;
+
+    public SearchIndexes(UserRepository userRepository,
+                         CampusRepository campusRepository,
+                         SystemLogRepository systemLogRepository,
+                         @Value("${app.search.log-days:90}") int logDays) {
+        this.userRepository = userRepository;
+        this.campusRepository = campusRepository;
+        this.systemLogRepository = systemLogRepository;
+        this.logDays = logDays;
+    }
+
+    /**
+     * 一类文档的索引，查询之间共享读锁；重建期间发生的变更记录下来，重建完成后覆盖到新索引上
+     */
+    private static final class Section<A> {
+
+        private record Entry<A>(A attributes, String[] fields) {
+        }
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private SearchIndex<A> index = new SearchIndex<>();
+        // null 值表示文档已删除
+        private Map<Long, Entry<A>> changedDuringRebuild;
+
+        SearchIndex.Hits search(String keyword, Predicate<? super A> filter, int offset, int limit) {
+            lock.readLock().lock();
+            try {
+                return index.search(keyword, filter, offset, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(long id, A attributes, String... fields) {
+            lock.writeLock().lock();
+            try {
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.put(id, new Entry<>(attributes, fields));
+                }
+                index.put(id, attributes, fields);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long id) {
+            lock.writeLock().lock();
+            try {
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.put(id, null);
+                }
+                index.remove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void beginRebuild() {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void replace(SearchIndex<A> loaded) {
+            lock.writeLock().lock();
+            try {
+                index = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void finishRebuild(SearchIndex<A> loaded) {
+            lock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    changedDuringRebuild.forEach((id, entry) -> {
+                        if (entry == null) {
+                            loaded.remove(id);
+                        } else {
+                            loaded.put(id, entry.attributes(), entry.fields());
+                        }
+                    });
+                    index = loaded;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 应用启动完成后加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 每天凌晨按数据库重建索引
+     */
+    @Scheduled(cron = "${app.search.reconcile-cron:0 20 0 * * *}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    /**
+     * 增量加载新写入的日志
+     */
+    @Scheduled(fixedDelayString = "${app.search.log-refresh-ms:5000}")
+    public void refreshLogs() {
+        synchronized (logs) {
+            lastLogId = loadLogs((id, operation) -> logs.put(id, null, operation), lastLogId);
+        }
+    }
+
+    public SearchIndex.Hits searchUsers(String keyword, Predicate<UserAttributes> filter, int offset, int limit) {
+        return users.search(keyword, filter, offset, limit);
+    }
+
+    public SearchIndex.Hits searchCampuses(String keyword, int offset, int limit) {
+        return campuses.search(keyword, null, offset, limit);
+    }
+
+    public SearchIndex.Hits searchLogs(String keyword, int offset, int limit) {
+        return logs.search(keyword, null, offset, limit);
+    }
+
+    /**
+     * 在当前事务提交后按用户的最新信息更新索引，需在事务内调用
+     */
+    public void syncAfterCommit(User user) {
+        Long userId = user.getId();
+        UserAttributes attributes = new UserAttributes(user.getUserType(),
+                user.getCampus() != null ? user.getCampus().getId() : null, user.getGender(), user.getAge());
+        String username = user.getUsername();
+        String realName = user.getRealName();
+        afterCommit(() -> users.put(userId, attributes, username, realName));
+    }
+
+    public void removeUserAfterCommit(Long userId) {
+        afterCommit(() -> users.remove(userId));
+    }
+
+    /**
+     * 在当前事务提交后按校区的最新信息更新索引
+     */
+    public void syncAfterCommit(Campus campus) {
+        Long campusId = campus.getId();
+        String name = campus.getName();
+        String address = campus.getAddress();
+        afterCommit(() -> campuses.put(campusId, null, name, address));
+    }
+
+    public void removeCampusAfterCommit(Long campusId) {
+        afterCommit(() -> campuses.remove(campusId));
+    }
+
+    private void rebuild() {
+        users.beginRebuild();
+        SearchIndex<UserAttributes> loadedUsers = null;
+        try {
+            SearchIndex<UserAttributes> index = new SearchIndex<>();
+            for (Object[] row : userRepository.findSearchRows()) {
+                index.put((Long) row[0],
+                        new UserAttributes((UserType) row[3], (Long) row[4], (Gender) row[5], (Integer) row[6]),
+                        (String) row[1], (String) row[2]);
+            }
+            loadedUsers = index;
+        } finally {
+            users.finishRebuild(loadedUsers);
+        }
+
+        campuses.beginRebuild();
+        SearchIndex<Void> loadedCampuses = null;
+        try {
+            SearchIndex<Void> index = new SearchIndex<>();
+            for (Object[] row : campusRepository.findSearchRows()) {
+                index.put((Long) row[0], null, (String) row[1], (String) row[2]);
+            }
+            loadedCampuses = index;
+        } finally {
+            campuses.finishRebuild(loadedCampuses);
+        }
+
+        // 日志只追加不修改，重建期间暂停增量加载即可，同时丢弃超出保留期的日志
+        synchronized (logs) {
+            SearchIndex<Void> loadedLogs = new SearchIndex<>();
+            long loadedLastId = loadLogs((id, operation) -> loadedLogs.put(id, null, operation), 0L);
+            logs.replace(loadedLogs);
+            lastLogId = loadedLastId;
+        }
+    }
+
+    /**
+     * 分批加载ID大于 afterId 且在保留期内的日志，返回加载到的最大ID
+     */
+    private long loadLogs(BiConsumer<Long, String> sink, long afterId) {
+        LocalDateTime from = LocalDateTime.now().minusDays(logDays);
+        List<Object[]> rows;
+        do {
+            rows = systemLogRepository.findSearchRowsAfter(afterId, from, PageRequest.of(0, LOG_BATCH_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                sink.accept(afterId, (String) row[1]);
+            }
+        } while (rows.size() == LOG_BATCH_SIZE);
+        return afterId;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
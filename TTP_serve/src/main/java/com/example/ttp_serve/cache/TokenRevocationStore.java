@@ -0,0 +1,160 @@
+package com.example.ttp_serve.cache;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 已注销令牌存储
+ * 以令牌的 jti（旧令牌无 jti 时使用 SHA-256 摘要）为键，按过期时间分钟分桶，
+ * 定时任务整桶清除已过期的记录。配置快照文件后，注销记录可以在重启后恢复。
+ */
+@Component
+public class TokenRevocationStore {
+
+    // 过期时间分桶粒度（秒）
+    private static final long BUCKET_SECONDS = 60;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    @Value("${app.security.revocation.snapshot-file:}")
+    private String snapshotFile;
+
+    /**
+     * 注销令牌，expiresAt 为令牌过期时间（秒）
+     */
+    public void revoke(Claims claims, String token) {
+        long expiresAt = claims.getExpiration().getTime() / 1000;
+        if (expiresAt <= now()) {
+            return;
+        }
+        add(keyOf(claims, token), expiresAt);
+        if (snapshotPath() != null) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * 令牌是否已被注销
+     */
+    public boolean isRevoked(Claims claims, String token) {
+        if (revoked.isEmpty()) {
+            return false;
+        }
+        Long expiresAt = revoked.get(keyOf(claims, token));
+        return expiresAt != null && expiresAt > now();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * 清除已过期的注销记录，过期的令牌本身已无法通过验证
+     */
+    @Scheduled(fixedDelay = BUCKET_SECONDS * 1000)
+    public void evictExpired() {
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(now() / BUCKET_SECONDS);
+        for (Map.Entry<Long, Set<String>> bucket : expired.entrySet()) {
+            bucket.getValue().forEach(revoked::remove);
+            buckets.remove(bucket.getKey());
+        }
+        if (!expired.isEmpty()) {
+            writeSnapshot();
+        }
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        Path path = snapshotPath();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            long current = now();
+            for (String line : lines) {
+                int separator = line.lastIndexOf(' ');
+                if (separator <= 0) {
+                    continue;
+                }
+                long expiresAt = Long.parseLong(line.substring(separator + 1));
+                if (expiresAt > current) {
+                    add(line.substring(0, separator), expiresAt);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 快照损坏时忽略，只影响重启前已注销但未过期的令牌
+        }
+    }
+
+    @PreDestroy
+    public synchronized void writeSnapshot() {
+        Path path = snapshotPath();
+        if (path == null) {
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = Files.createTempFile(parent, "revoked", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                    writer.write(entry.getKey() + " " + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 快照仅用于重启恢复，写入失败不影响注销校验
+        }
+    }
+
+    private void add(String key, long expiresAt) {
+        revoked.put(key, expiresAt);
+        buckets.computeIfAbsent(expiresAt / BUCKET_SECONDS + 1, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private Path snapshotPath() {
+        return snapshotFile == null || snapshotFile.isBlank() ? null : Paths.get(snapshotFile);
+    }
+
+    private static String keyOf(Claims claims, String token) {
+        if (claims.getId() != null) {
+            return claims.getId();
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
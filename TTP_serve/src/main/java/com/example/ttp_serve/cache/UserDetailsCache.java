@@ -0,0 +1,84 @@
+package com.example.ttp_serve.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已认证用户信息缓存
+ * 按用户名缓存 UserDetails，容量有上限且条目按 TTL 过期，
+ * 避免 JWT 过滤器在每次请求时都查询用户表
+ */
+@Component
+public class UserDetailsCache {
+
+    private record Entry(UserDetails userDetails, long expiresAt) {
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public UserDetailsCache(@Value("${app.security.principal-cache.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${app.security.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取未过期的缓存用户信息，不存在或已过期时返回 null
+     */
+    public UserDetails get(String username) {
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(username);
+                return null;
+            }
+            return entry.userDetails();
+        }
+    }
+
+    public void put(UserDetails userDetails) {
+        synchronized (entries) {
+            entries.put(userDetails.getUsername(), new Entry(userDetails, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * 使用户缓存失效；处于事务中时在提交后再清除一次，
+     * 防止并发请求在提交前把旧状态重新写入缓存
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    private void evict(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+}
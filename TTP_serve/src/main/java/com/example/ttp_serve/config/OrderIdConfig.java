@@ -0,0 +1,42 @@
+package com.example.ttp_serve.config;
+
+import com.example.ttp_serve.util.OrderIdGenerator;
+import com.example.ttp_serve.util.SnowflakeOrderIdGenerator;
+import com.example.ttp_serve.util.UuidOrderIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+public class OrderIdConfig {
+
+    /**
+     * 订单号生成器，多实例部署时需为每个实例配置不同的 app.order-id.node-id
+     */
+    @Bean
+    public OrderIdGenerator orderIdGenerator(@Value("${app.order-id.generator:snowflake}") String generator,
+                                             @Value("${app.order-id.node-id:-1}") long nodeId) {
+        if ("uuid".equalsIgnoreCase(generator)) {
+            return new UuidOrderIdGenerator();
+        }
+        return new SnowflakeOrderIdGenerator(nodeId >= 0 ? nodeId : defaultNodeId());
+    }
+
+    /**
+     * 未配置节点号时由主机名和进程号推算，仅适合单机或少量实例
+     */
+    private static long defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        String seed = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (seed.hashCode() & Integer.MAX_VALUE) % (SnowflakeOrderIdGenerator.MAX_NODE_ID + 1);
+    }
+}
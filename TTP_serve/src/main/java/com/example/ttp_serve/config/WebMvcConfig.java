@@ -0,0 +1,20 @@
+package com.example.ttp_serve.config;
+
+import com.example.ttp_serve.interceptor.OperationLogInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final OperationLogInterceptor operationLogInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 记录接口操作日志
+        registry.addInterceptor(operationLogInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -8,7 +8,6 @@ import com.example.ttp_serve.dto.UserDTO;
 import com.example.ttp_serve.entity.User;
 import com.example.ttp_serve.enums.UserType;
 import com.example.ttp_serve.service.AuthService;
-import com.example.ttp_serve.service.CourseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -32,7 +31,6 @@ import jakarta.validation.Valid;
 public class AuthController {
 
     private final AuthService authService;
-    private final CourseService courseService;
 
     /**
      * 用户登录
@@ -67,15 +65,7 @@ public class AuthController {
                     user.getCampus() != null ? user.getCampus().getId() : null
             );
 
-            // 如果是教练或学生，检查并更新已结束的课程状态
-            if (user.getUserType() == UserType.COACH || user.getUserType() == UserType.STUDENT) {
-                try {
-                    courseService.completeExpiredCourses(user.getId());
-                } catch (Exception e) {
-                    // 记录日志但不影响登录流程
-                    System.err.println("更新课程状态时发生错误: " + e.getMessage());
-                }
-            }
+            // 已结束课程的状态由定时任务 ExpiredCourseSweeper 统一更新，登录时不再处理
 
             return ResponseEntity.ok(MyApiResponse.success("登录成功", response));
         } catch (Exception e) {
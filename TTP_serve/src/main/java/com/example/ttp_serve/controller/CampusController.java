@@ -132,14 +132,15 @@ public class CampusController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "搜索校区", description = "根据名称搜索校区")
+    @Operation(summary = "搜索校区", description = "根据名称或地址搜索校区，支持拼音首字母，结果按匹配程度排序")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "搜索成功"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
-    public ResponseEntity<MyApiResponse<List<CampusResponseDTO>>> searchCampuses(
-            @Parameter(description = "校区名称", required = true) @RequestParam String name) {
-        List<CampusResponseDTO> campuses = campusService.searchCampusesByName(name);
+    public ResponseEntity<MyApiResponse<Page<CampusResponseDTO>>> searchCampuses(
+            @Parameter(description = "校区名称或地址关键字", required = true) @RequestParam String name,
+            @Parameter(description = "分页参数") Pageable pageable) {
+        Page<CampusResponseDTO> campuses = campusService.searchCampuses(name, pageable);
         return ResponseEntity.ok(MyApiResponse.success("搜索成功", campuses));
     }
 
@@ -167,6 +168,17 @@ public class CampusController {
         return ResponseEntity.ok(MyApiResponse.success("获取成功", campuses));
     }
 
+    @GetMapping("/stats")
+    @Operation(summary = "获取所有校区统计信息", description = "一次查询返回每个校区的用户数量、学员数量等统计信息")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<List<CampusStatsDTO>>> getAllCampusStats() {
+        List<CampusStatsDTO> stats = campusService.getAllCampusStats();
+        return ResponseEntity.ok(MyApiResponse.success("获取成功", stats));
+    }
+
     @GetMapping("/{id}/stats")
     @Operation(summary = "获取校区统计信息", description = "获取指定校区的统计信息，包括用户数量、学员数量等")
     @ApiResponses(value = {
@@ -1,6 +1,7 @@
 package com.example.ttp_serve.controller;
 
 import com.example.ttp_serve.dto.CoachDTO;
+import com.example.ttp_serve.dto.CoachFilterDTO;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.service.CoachService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,6 +10,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,15 +26,32 @@ public class CoachController {
     private CoachService coachService;
 
     @GetMapping("/search")
-    @Operation(summary = "条件查询教练", description = "根据姓名、性别、年龄条件查询教练，至少需要一个查询条件")
+    @Operation(summary = "条件查询教练", description = "根据姓名、性别、年龄条件查询教练，至少需要一个查询条件，结果按姓名匹配程度排序")
     @ApiResponse(responseCode = "200", description = "查询成功")
-    public ResponseEntity<MyApiResponse<List<CoachDTO>>> searchCoaches(
-            @Parameter(description = "教练姓名(模糊匹配)") @RequestParam(required = false) String name,
+    public ResponseEntity<MyApiResponse<Page<CoachDTO>>> searchCoaches(
+            @Parameter(description = "教练姓名(模糊匹配，支持拼音首字母)") @RequestParam(required = false) String name,
             @Parameter(description = "教练性别") @RequestParam(required = false) String gender,
             @Parameter(description = "教练年龄") @RequestParam(required = false) Integer age,
-            @Parameter(description = "校区ID") @RequestParam Long campusId) {
+            @Parameter(description = "校区ID") @RequestParam Long campusId,
+            @Parameter(description = "分页参数") Pageable pageable) {
         try {
-            List<CoachDTO> coaches = coachService.findCoachesByCriteria(name, gender, age, campusId);
+            Page<CoachDTO> coaches = coachService.findCoachesByCriteria(name, gender, age, campusId, pageable);
+            return ResponseEntity.ok(MyApiResponse.success("查询成功", coaches));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/directory")
+    @Operation(summary = "教练目录", description = "按级别、性别、年龄范围、校区（可含下级校区）、是否有名额和课时费区间筛选教练，" +
+            "支持按 hourlyRate、averageRating、ratingCount、age、currentStudents 排序和分页")
+    @ApiResponse(responseCode = "200", description = "查询成功")
+    public ResponseEntity<MyApiResponse<Page<CoachDTO>>> getCoachDirectory(
+            @Parameter(description = "筛选条件") CoachFilterDTO filter,
+            @Parameter(description = "分页和排序参数，例如 sort=averageRating,desc") Pageable pageable) {
+        try {
+            Page<CoachDTO> coaches = coachService.findCoaches(filter, pageable);
             return ResponseEntity.ok(MyApiResponse.success("查询成功", coaches));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
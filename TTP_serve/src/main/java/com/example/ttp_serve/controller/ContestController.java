@@ -1,5 +1,8 @@
 package com.example.ttp_serve.controller;
 
+import com.example.ttp_serve.cache.ContestLiveHub;
+import com.example.ttp_serve.dto.ContestBracketDTO;
+import com.example.ttp_serve.dto.ContestScheduleResultDTO;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.entity.ContestEnrollment;
 import com.example.ttp_serve.entity.ContestSchedule;
@@ -13,10 +16,13 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -30,6 +36,7 @@ import java.util.List;
 public class ContestController {
 
     private final ContestService contestService;
+    private final ContestLiveHub contestLiveHub;
 
     /**
      * 创建月赛
@@ -538,10 +545,10 @@ public class ContestController {
      *
      * @param contestId 月赛ID
      * @param groupType 组别
-     * @return 空响应
+     * @return 生成结果，包括比赛安排ID、轮次数和各阶段耗时
      *
      * @apiNote 为指定月赛的指定组别生成比赛安排
-     *          系统会根据报名人数自动选择赛制（循环赛或小组赛+淘汰赛）
+     *          系统会根据报名人数自动选择赛制（循环赛或小组赛+淘汰赛），比赛安排一次性批量写入
      */
     @Operation(
             summary = "生成比赛安排",
@@ -552,13 +559,13 @@ public class ContestController {
             }
     )
     @PostMapping("/{contestId}/generate-schedule")
-    public ResponseEntity<MyApiResponse<Void>> generateContestSchedule(
+    public ResponseEntity<MyApiResponse<ContestScheduleResultDTO>> generateContestSchedule(
             @Parameter(description = "月赛ID", required = true) @PathVariable Long contestId,
             @Parameter(description = "组别", required = true) @RequestParam ContestGroup groupType) {
 
         try {
-            contestService.generateContestSchedule(contestId, groupType);
-            return ResponseEntity.ok(MyApiResponse.success("比赛安排生成成功"));
+            ContestScheduleResultDTO result = contestService.generateContestSchedule(contestId, groupType);
+            return ResponseEntity.ok(MyApiResponse.success("比赛安排生成成功", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
@@ -632,11 +639,11 @@ public class ContestController {
      * @return 更新后的比赛安排
      *
      * @apiNote 更新比赛结果，指定获胜者
-     *          获胜者必须是比赛选手之一
+     *          获胜者必须是比赛选手之一；小组赛全部结束时生成淘汰赛首轮，淘汰赛胜者进入下一轮
      */
     @Operation(
             summary = "更新比赛结果",
-            description = "更新比赛结果，指定获胜者。获胜者必须是比赛选手之一",
+            description = "更新比赛结果，指定获胜者。获胜者必须是比赛选手之一。小组赛全部结束时生成淘汰赛首轮，淘汰赛胜者进入下一轮",
             responses = {
                     @ApiResponse(responseCode = "200", description = "比赛结果更新成功"),
                     @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误")
@@ -655,4 +662,71 @@ public class ContestController {
                     .body(MyApiResponse.error(400, e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取小组名次和淘汰赛对阵
+     *
+     * @param contestId 月赛ID
+     * @param groupType 组别
+     * @return 小组名次、淘汰赛对阵和冠军
+     *
+     * @apiNote 小组名次按胜场、相互交手胜场、负场排序，淘汰赛对阵按对阵树位置给出
+     */
+    @Operation(
+            summary = "获取小组名次和淘汰赛对阵",
+            description = "获取指定月赛组别的小组名次和淘汰赛对阵。小组名次按胜场、相互交手胜场、负场排序",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "获取成功"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误")
+            }
+    )
+    @GetMapping("/{contestId}/bracket")
+    public ResponseEntity<MyApiResponse<ContestBracketDTO>> getBracket(
+            @Parameter(description = "月赛ID", required = true) @PathVariable Long contestId,
+            @Parameter(description = "组别", required = true) @RequestParam ContestGroup groupType) {
+        try {
+            ContestBracketDTO bracket = contestService.getBracket(contestId, groupType);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", bracket));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * 订阅月赛实时结果
+     *
+     * @param contestId 月赛ID
+     * @return Server-Sent Events 流
+     *
+     * @apiNote 连接后首先收到 snapshot 事件（全部比赛安排和当前版本号），
+     *          之后每次比赛结果或安排变更收到 delta 事件（变更的比赛安排和已删除的ID），事件ID即版本号；
+     *          连接断开后客户端重连会重新收到快照
+     */
+    @Operation(
+            summary = "订阅月赛实时结果",
+            description = "以 Server-Sent Events 推送月赛比赛安排：连接时推送 snapshot 快照，之后每次变更推送 delta 增量",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "订阅成功")
+            }
+    )
+    @GetMapping(value = "/{contestId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLive(
+            @Parameter(description = "月赛ID", required = true) @PathVariable Long contestId) {
+        try {
+            contestService.getContest(contestId);
+        } catch (Exception e) {
+            // EventSource 无法读取错误响应体，以 error 事件返回原因后结束
+            SseEmitter emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name("error").data(MyApiResponse.error(400, e.getMessage()),
+                        MediaType.APPLICATION_JSON));
+            } catch (IOException ignored) {
+                // 客户端已断开
+            }
+            emitter.complete();
+            return emitter;
+        }
+        return contestLiveHub.subscribe(contestId);
+    }
+}
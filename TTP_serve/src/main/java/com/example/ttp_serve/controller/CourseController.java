@@ -1,12 +1,18 @@
 package com.example.ttp_serve.controller;
 
+import com.example.ttp_serve.dto.CourseBatchRequestDTO;
+import com.example.ttp_serve.dto.CourseBatchResultDTO;
 import com.example.ttp_serve.dto.CourseDTO;
 import com.example.ttp_serve.dto.CourseRequestDTO;
+import com.example.ttp_serve.dto.CourseSweepStatsDTO;
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.entity.Course;
 import com.example.ttp_serve.enums.CourseStatus;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.service.CourseService;
+import com.example.ttp_serve.task.ExpiredCourseSweeper;
+import com.example.ttp_serve.util.CsvDownload;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,6 +22,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -37,6 +44,7 @@ import java.util.stream.Collectors;
 public class CourseController {
 
     private final CourseService courseService;
+    private final ExpiredCourseSweeper expiredCourseSweeper;
 
     /**
      * 创建课程预约
@@ -68,6 +76,36 @@ public class CourseController {
         }
     }
 
+    /**
+     * 批量创建课程预约
+     *
+     * @param batchRequest 批量预约信息
+     * @return 每节课程的预约结果
+     *
+     * @apiNote 适用于一次性安排整个学期的固定课程
+     *          可以逐条给出课程时间，也可以给出首节课时间、间隔天数和次数
+     *          有冲突的课程会被跳过并返回失败原因，其余课程在同一事务中创建
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量创建课程预约", description = "一次性创建多节课程，逐条返回成功或失败原因")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "批量预约已处理"),
+            @ApiResponse(responseCode = "400", description = "预约失败，参数错误"),
+            @ApiResponse(responseCode = "404", description = "教练、学员或球台不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<CourseBatchResultDTO>> createCoursesBatch(
+            @Parameter(description = "批量预约信息", required = true)
+            @Valid @RequestBody CourseBatchRequestDTO batchRequest) {
+        try {
+            CourseBatchResultDTO result = courseService.createCoursesBatch(batchRequest);
+            return ResponseEntity.ok(MyApiResponse.success("批量预约已处理", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 更新课程信息
      *
@@ -237,8 +275,8 @@ public class CourseController {
     public ResponseEntity<MyApiResponse<List<CourseDTO>>> getCoursesByCoach(
             @Parameter(description = "教练ID", required = true) @PathVariable Long coachId) {
         try {
-            List<Course> courses = courseService.getCoursesByCoach(coachId);
-            return ResponseEntity.ok(MyApiResponse.success("获取成功", convertToDTOList(courses)));
+            List<CourseDTO> courses = courseService.getCourseDTOsByCoach(coachId);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", courses));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
@@ -527,6 +565,37 @@ public class CourseController {
         }
     }
 
+    /**
+     * 按游标分页获取课程信息
+     *
+     * @param cursor 上一页返回的续页令牌，为空时获取第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 游标分页课程列表
+     *
+     * @apiNote 按创建时间倒序翻页，翻页深度不影响查询性能
+     *          适用于无限滚动列表，默认不统计总数
+     */
+    @GetMapping("/cursor")
+    @Operation(summary = "按游标分页获取课程信息", description = "按创建时间倒序翻页，适用于无限滚动列表，默认不统计总数")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "400", description = "游标无效"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<CursorPage<CourseDTO>>> getCoursesByCursor(
+            @Parameter(description = "续页令牌") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "是否统计总数") @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPage<CourseDTO> courses = courseService.getCourseDTOsByCursor(cursor, size, withTotal);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", courses));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 统计教练的课程数量
      *
@@ -624,8 +693,8 @@ public class CourseController {
     public ResponseEntity<MyApiResponse<List<CourseDTO>>> getCoursesNeedEvaluation(
             @Parameter(description = "用户ID", required = true) @PathVariable Long userId) {
         try {
-            List<Course> courses = courseService.getCoursesNeedEvaluation(userId);
-            return ResponseEntity.ok(MyApiResponse.success("获取成功", convertToDTOList(courses)));
+            List<CourseDTO> courses = courseService.getCoursesNeedEvaluation(userId);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", courses));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
@@ -647,33 +716,72 @@ public class CourseController {
     })
     public ResponseEntity<MyApiResponse<List<CourseDTO>>> getAllCoursesList() {
         try {
-            List<Course> courses = courseService.getAllCoursesList();
-            return ResponseEntity.ok(MyApiResponse.success("获取成功", convertToDTOList(courses)));
+            List<CourseDTO> courses = courseService.getAllCourseDTOs();
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", courses));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
         }
     }
 
+    /**
+     * 导出课程CSV
+     *
+     * @param start 课程开始时间下限（可选，需与结束时间同时指定）
+     * @param end 课程开始时间上限（可选）
+     * @param acceptEncoding 客户端支持的压缩方式，包含gzip时压缩传输
+     * @return 逐行写出的CSV文件
+     *
+     * @apiNote 流式查询并逐行写出，内存占用与课程数量无关，用于生成月度报表
+     */
+    @GetMapping("/export")
+    @Operation(summary = "导出课程CSV", description = "按课程开始时间范围导出课程CSV，未指定时间范围时导出全部课程。支持gzip压缩传输")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "导出成功"),
+            @ApiResponse(responseCode = "400", description = "时间范围无效")
+    })
+    public ResponseEntity<?> exportCourses(
+            @Parameter(description = "开始时间", example = "2024-01-01 00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @Parameter(description = "结束时间", example = "2024-01-31 23:59:59")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if ((start == null) != (end == null)) {
+            return ResponseEntity.badRequest().body(MyApiResponse.error(400, "开始时间和结束时间需同时指定"));
+        }
+        if (start != null && start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(MyApiResponse.error(400, "开始时间不能晚于结束时间"));
+        }
+        String filename = start != null
+                ? "courses_" + start.toLocalDate() + "_" + end.toLocalDate() + ".csv"
+                : "courses.csv";
+        return CsvDownload.of(filename, acceptEncoding, out -> courseService.exportCoursesCsv(start, end, out));
+    }
+
     /**
      * 根据校区ID获取所有课程
      *
      * @param campusId 校区ID
+     * @param includeChildren 是否包含全部下级校区的课程
      * @return 指定校区的所有课程列表DTO
      *
      * @apiNote 获取指定校区的所有课程列表，通过教练或学员的校区关联进行筛选
      */
     @GetMapping("/campus/{campusId}")
-    @Operation(summary = "根据校区ID获取所有课程", description = "获取指定校区的所有课程列表，通过教练或学员的校区关联进行筛选")
+    @Operation(summary = "根据校区ID获取所有课程", description = "获取指定校区的所有课程列表，通过教练或学员的校区关联进行筛选，可包含全部下级校区")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "获取成功"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<MyApiResponse<List<CourseDTO>>> getCoursesByCampusId(
-            @Parameter(description = "校区ID", required = true) @PathVariable Long campusId) {
+            @Parameter(description = "校区ID", required = true) @PathVariable Long campusId,
+            @Parameter(description = "是否包含下级校区", example = "false")
+            @RequestParam(defaultValue = "false") boolean includeChildren) {
         try {
-            List<Course> courses = courseService.getCoursesByCampusId(campusId);
-            return ResponseEntity.ok(MyApiResponse.success("获取成功", convertToDTOList(courses)));
+            List<CourseDTO> courses = includeChildren
+                    ? courseService.getCourseDTOsByCampusSubtree(campusId)
+                    : courseService.getCourseDTOsByCampusId(campusId);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", courses));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
@@ -960,4 +1068,19 @@ public class CourseController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取已结束课程自动完成任务的运行统计
+     *
+     * @return 最近一次运行完成的课程数、批数、耗时及累计数量
+     */
+    @GetMapping("/expired-sweep/stats")
+    @Operation(summary = "获取课程自动完成统计", description = "获取定时将已结束课程标记为已完成的任务的运行统计")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<CourseSweepStatsDTO>> getExpiredSweepStats() {
+        return ResponseEntity.ok(MyApiResponse.success("获取成功", expiredCourseSweeper.getStats()));
+    }
+}
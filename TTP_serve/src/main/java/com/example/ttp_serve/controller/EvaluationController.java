@@ -4,6 +4,7 @@ import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.dto.EvaluationCreateDto;
 import com.example.ttp_serve.dto.EvaluationDto;
 import com.example.ttp_serve.dto.EvaluationUpdateDTO;
+import com.example.ttp_serve.dto.RatingSummaryDTO;
 import com.example.ttp_serve.enums.EvaluationType;
 import com.example.ttp_serve.service.EvaluationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 评价管理控制器
@@ -386,6 +388,56 @@ public class EvaluationController {
         }
     }
 
+    /**
+     * 批量获取用户的评分汇总
+     *
+     * @param userIds 用户ID列表
+     * @return 以用户ID为键的评分汇总
+     *
+     * @apiNote 一次返回多个用户的平均评分和评价数量，用于教练列表等需要同时展示多人评分的页面
+     *          一次最多查询500个用户
+     */
+    @GetMapping("/ratings")
+    @Operation(summary = "批量获取评分汇总", description = "一次返回多个用户的平均评分和评价数量，一次最多查询500个用户")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "400", description = "请求参数无效"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<Map<Long, RatingSummaryDTO>>> getRatingSummaries(
+            @Parameter(description = "用户ID列表，逗号分隔", required = true) @RequestParam List<Long> userIds) {
+        try {
+            Map<Long, RatingSummaryDTO> summaries = evaluationService.getRatingSummaries(userIds);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", summaries));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * 重建评分汇总
+     *
+     * @return 空响应
+     *
+     * @apiNote 按全部评价重新计算每个用户的评分汇总，用于修复直接改动评价表后的偏差
+     */
+    @PostMapping("/ratings/rebuild")
+    @Operation(summary = "重建评分汇总", description = "按全部评价重新计算每个用户的评分汇总")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "重建成功"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<Void>> rebuildRatingSummaries() {
+        try {
+            evaluationService.rebuildRatingSummaries();
+            return ResponseEntity.ok(MyApiResponse.success("重建成功"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 统计被评价者的评价数量
      *
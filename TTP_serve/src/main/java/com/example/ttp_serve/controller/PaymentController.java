@@ -1,13 +1,18 @@
 package com.example.ttp_serve.controller;
 
+import com.example.ttp_serve.cache.PaymentIdempotencyStore;
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.dto.PaymentDTO;
+import com.example.ttp_serve.dto.PaymentReconcileStatsDTO;
 import com.example.ttp_serve.dto.PaymentRequestDTO;
 import com.example.ttp_serve.entity.Payment;
 import com.example.ttp_serve.enums.PaymentMethod;
 import com.example.ttp_serve.enums.PaymentStatus;
 import com.example.ttp_serve.enums.PaymentType;
 import com.example.ttp_serve.service.PaymentService;
+import com.example.ttp_serve.task.PaymentReconcileTask;
+import com.example.ttp_serve.util.CsvDownload;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -18,6 +23,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -38,6 +44,8 @@ import java.util.stream.Collectors;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentReconcileTask paymentReconcileTask;
+    private final PaymentIdempotencyStore paymentIdempotencyStore;
 
     /**
      * 创建支付记录
@@ -161,14 +169,18 @@ public class PaymentController {
     )
     @PostMapping("/{orderId}/success")
     public ResponseEntity<MyApiResponse<PaymentDTO>> processPaymentSuccess(
-            @Parameter(description = "订单号", required = true) @PathVariable String orderId) {
-        try {
-            Payment payment = paymentService.processPaymentSuccess(orderId);
-            return ResponseEntity.ok(MyApiResponse.success("支付成功处理完成", convertToDTO(payment)));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(MyApiResponse.error(400, e.getMessage()));
-        }
+            @Parameter(description = "订单号", required = true) @PathVariable String orderId,
+            @Parameter(description = "幂等键，重复请求返回第一次成功处理的结果")
+            @RequestHeader(value = PaymentIdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return paymentIdempotencyStore.execute(orderId, idempotencyKey, "SUCCESS", PaymentDTO.class, () -> {
+            try {
+                Payment payment = paymentService.processPaymentSuccess(orderId);
+                return ResponseEntity.ok(MyApiResponse.success("支付成功处理完成", convertToDTO(payment)));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(MyApiResponse.error(400, e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -190,14 +202,18 @@ public class PaymentController {
     )
     @PostMapping("/{orderId}/failure")
     public ResponseEntity<MyApiResponse<PaymentDTO>> processPaymentFailure(
-            @Parameter(description = "订单号", required = true) @PathVariable String orderId) {
-        try {
-            Payment payment = paymentService.processPaymentFailure(orderId);
-            return ResponseEntity.ok(MyApiResponse.success("支付失败处理完成", convertToDTO(payment)));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(MyApiResponse.error(400, e.getMessage()));
-        }
+            @Parameter(description = "订单号", required = true) @PathVariable String orderId,
+            @Parameter(description = "幂等键，重复请求返回第一次成功处理的结果")
+            @RequestHeader(value = PaymentIdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return paymentIdempotencyStore.execute(orderId, idempotencyKey, "FAILURE", PaymentDTO.class, () -> {
+            try {
+                Payment payment = paymentService.processPaymentFailure(orderId);
+                return ResponseEntity.ok(MyApiResponse.success("支付失败处理完成", convertToDTO(payment)));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(MyApiResponse.error(400, e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -219,14 +235,18 @@ public class PaymentController {
     )
     @PostMapping("/{orderId}/recharge")
     public ResponseEntity<MyApiResponse<PaymentDTO>> processRechargePayment(
-            @Parameter(description = "订单号", required = true) @PathVariable String orderId) {
-        try {
-            Payment payment = paymentService.processRechargePayment(orderId);
-            return ResponseEntity.ok(MyApiResponse.success("充值处理完成", convertToDTO(payment)));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(MyApiResponse.error(400, e.getMessage()));
-        }
+            @Parameter(description = "订单号", required = true) @PathVariable String orderId,
+            @Parameter(description = "幂等键，重复请求返回第一次成功处理的结果")
+            @RequestHeader(value = PaymentIdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return paymentIdempotencyStore.execute(orderId, idempotencyKey, "RECHARGE", PaymentDTO.class, () -> {
+            try {
+                Payment payment = paymentService.processRechargePayment(orderId);
+                return ResponseEntity.ok(MyApiResponse.success("充值处理完成", convertToDTO(payment)));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(MyApiResponse.error(400, e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -248,14 +268,18 @@ public class PaymentController {
     )
     @PostMapping("/{orderId}/refund")
     public ResponseEntity<MyApiResponse<PaymentDTO>> processRefund(
-            @Parameter(description = "订单号", required = true) @PathVariable String orderId) {
-        try {
-            Payment payment = paymentService.processRefund(orderId);
-            return ResponseEntity.ok(MyApiResponse.success("退款处理完成", convertToDTO(payment)));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(MyApiResponse.error(400, e.getMessage()));
-        }
+            @Parameter(description = "订单号", required = true) @PathVariable String orderId,
+            @Parameter(description = "幂等键，重复请求返回第一次成功处理的结果")
+            @RequestHeader(value = PaymentIdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return paymentIdempotencyStore.execute(orderId, idempotencyKey, "REFUND", PaymentDTO.class, () -> {
+            try {
+                Payment payment = paymentService.processRefund(orderId);
+                return ResponseEntity.ok(MyApiResponse.success("退款处理完成", convertToDTO(payment)));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(MyApiResponse.error(400, e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -545,6 +569,38 @@ public class PaymentController {
         }
     }
 
+    /**
+     * 导出日期范围内的支付记录CSV
+     *
+     * @param start 开始时间
+     * @param end 结束时间
+     * @param acceptEncoding 客户端支持的压缩方式，包含gzip时压缩传输
+     * @return 逐行写出的CSV文件
+     *
+     * @apiNote 流式查询并逐行写出，内存占用与支付记录数量无关，用于生成月度对账单
+     */
+    @Operation(
+            summary = "导出支付记录CSV",
+            description = "按创建时间范围导出支付记录CSV，流式写出，支持gzip压缩传输",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "导出成功"),
+                    @ApiResponse(responseCode = "400", description = "时间范围无效")
+            }
+    )
+    @GetMapping("/export")
+    public ResponseEntity<?> exportPayments(
+            @Parameter(description = "开始时间", required = true)
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @Parameter(description = "结束时间", required = true)
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(MyApiResponse.error(400, "开始时间不能晚于结束时间"));
+        }
+        String filename = "payments_" + start.toLocalDate() + "_" + end.toLocalDate() + ".csv";
+        return CsvDownload.of(filename, acceptEncoding, out -> paymentService.exportPaymentsCsv(start, end, out));
+    }
+
     /**
      * 获取用户在日期范围内的支付记录（分页）
      *
@@ -626,6 +682,38 @@ public class PaymentController {
         }
     }
 
+    /**
+     * 按游标分页获取支付记录
+     *
+     * @param cursor 上一页返回的续页令牌，为空时获取第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 游标分页的支付记录DTO
+     *
+     * @apiNote 按创建时间倒序翻页，翻页深度不影响查询性能，默认不统计总数
+     */
+    @Operation(
+            summary = "按游标分页获取支付记录",
+            description = "按创建时间倒序翻页，翻页深度不影响查询性能，默认不统计总数",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "获取成功"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或游标无效")
+            }
+    )
+    @GetMapping("/cursor")
+    public ResponseEntity<MyApiResponse<CursorPage<PaymentDTO>>> getPaymentsByCursor(
+            @Parameter(description = "续页令牌") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "是否统计总数") @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPage<Payment> payments = paymentService.getPaymentsByCursor(cursor, size, withTotal);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", payments.map(this::convertToDTO)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 获取用户支付总额
      *
@@ -710,6 +798,33 @@ public class PaymentController {
         }
     }
 
+    /**
+     * 重建支付总额汇总
+     *
+     * @return 操作结果
+     *
+     * @apiNote 按全部成功支付记录重新计算用户、类型和校区的支付总额，
+     *          用于初始化汇总表或用户更换校区后校正校区总额
+     */
+    @Operation(
+            summary = "重建支付总额汇总",
+            description = "按全部成功支付记录重新计算用户、类型和校区的支付总额",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "重建完成"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误")
+            }
+    )
+    @PostMapping("/totals/rebuild")
+    public ResponseEntity<MyApiResponse<Void>> rebuildPaymentTotals() {
+        try {
+            paymentService.rebuildPaymentTotals();
+            return ResponseEntity.ok(MyApiResponse.success("重建完成", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 统计支付记录数量
      *
@@ -736,6 +851,50 @@ public class PaymentController {
         }
     }
 
+    /**
+     * 执行一次待处理支付对账
+     *
+     * @return 本次对账的进度统计
+     *
+     * @apiNote 结算创建时间超过阈值仍为待处理的支付记录，已有对账在进行时直接返回当前进度
+     */
+    @Operation(
+            summary = "执行支付对账",
+            description = "结算超时仍为待处理的支付记录：课程费用和已入账的退款标记为成功，线上渠道超时未回调的充值和报名费标记为失败",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "对账完成"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误")
+            }
+    )
+    @PostMapping("/reconciliation/run")
+    public ResponseEntity<MyApiResponse<PaymentReconcileStatsDTO>> runReconciliation() {
+        try {
+            boolean started = paymentReconcileTask.reconcile();
+            return ResponseEntity.ok(MyApiResponse.success(started ? "对账完成" : "对账正在进行中",
+                    paymentReconcileTask.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取支付对账进度
+     *
+     * @return 当前或最近一次对账的进度，以及累计结算数量
+     */
+    @Operation(
+            summary = "获取支付对账进度",
+            description = "获取当前或最近一次待处理支付对账的总数、已处理数、成功/失败/跳过数量和耗时",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "获取成功")
+            }
+    )
+    @GetMapping("/reconciliation/stats")
+    public ResponseEntity<MyApiResponse<PaymentReconcileStatsDTO>> getReconciliationStats() {
+        return ResponseEntity.ok(MyApiResponse.success("获取成功", paymentReconcileTask.getStats()));
+    }
+
     /**
      * 将Payment实体转换为PaymentDTO
      */
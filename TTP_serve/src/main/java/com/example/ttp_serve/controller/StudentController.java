@@ -1,9 +1,14 @@
 package com.example.ttp_serve.controller;
 
+import com.example.ttp_serve.dto.BalanceLedgerDTO;
+import com.example.ttp_serve.dto.BalanceMismatchDTO;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.dto.StudentDTO;
+import com.example.ttp_serve.entity.BalanceLedger;
 import com.example.ttp_serve.entity.Student;
+import com.example.ttp_serve.service.BalanceLedgerService;
 import com.example.ttp_serve.service.StudentService;
+import com.example.ttp_serve.task.BalanceReconcileTask;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -28,6 +33,8 @@ import java.util.stream.Collectors;
 public class StudentController {
 
     private final StudentService studentService;
+    private final BalanceLedgerService balanceLedgerService;
+    private final BalanceReconcileTask balanceReconcileTask;
 
     /**
      * 根据学生ID获取个人余额
@@ -54,6 +61,58 @@ public class StudentController {
         }
     }
 
+    /**
+     * 根据学生ID获取余额流水
+     *
+     * @param studentId 学生ID
+     * @return 按时间倒序的余额流水
+     */
+    @GetMapping("/{studentId}/ledger")
+    @Operation(summary = "获取学生余额流水", description = "根据学生ID获取充值、课程扣费、退款等余额变动记录")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "404", description = "学生不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<List<BalanceLedgerDTO>>> getStudentLedger(
+            @Parameter(description = "学生ID", required = true, example = "1")
+            @PathVariable Long studentId) {
+        try {
+            List<BalanceLedgerDTO> ledger = balanceLedgerService.getLedger(studentId).stream()
+                    .map(this::convertToLedgerDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", ledger));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取余额对账结果
+     *
+     * @param refresh 是否立即重新对账
+     * @return 余额与流水之和不一致的学生列表
+     */
+    @GetMapping("/balance-reconciliation")
+    @Operation(summary = "获取余额对账结果", description = "返回余额与流水之和不一致的学生，默认返回最近一次定时对账的结果")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<MyApiResponse<List<BalanceMismatchDTO>>> getBalanceReconciliation(
+            @Parameter(description = "是否立即重新对账") @RequestParam(defaultValue = "false") boolean refresh) {
+        try {
+            List<BalanceMismatchDTO> mismatches = refresh
+                    ? balanceReconcileTask.reconcile()
+                    : balanceReconcileTask.getLastMismatches();
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", mismatches));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 根据学生ID获取个人信息
      *
@@ -230,4 +289,16 @@ public class StudentController {
                     .body(MyApiResponse.error(400, e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private BalanceLedgerDTO convertToLedgerDTO(BalanceLedger ledger) {
+        BalanceLedgerDTO dto = new BalanceLedgerDTO();
+        dto.setId(ledger.getId());
+        dto.setStudentId(ledger.getStudent().getId());
+        dto.setPaymentId(ledger.getPayment() != null ? ledger.getPayment().getId() : null);
+        dto.setAmount(ledger.getAmount());
+        dto.setBalanceAfter(ledger.getBalanceAfter());
+        dto.setEntryType(ledger.getEntryType());
+        dto.setCreatedAt(ledger.getCreatedAt());
+        return dto;
+    }
+}
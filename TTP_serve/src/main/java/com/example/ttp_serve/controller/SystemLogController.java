@@ -1,7 +1,9 @@
 package com.example.ttp_serve.controller;
 
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.MyApiResponse;
 import com.example.ttp_serve.dto.SystemLogDto;
+import com.example.ttp_serve.dto.SystemLogWriterStatsDTO;
 import com.example.ttp_serve.entity.SystemLog;
 import com.example.ttp_serve.service.SystemLogService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -209,6 +211,35 @@ public class SystemLogController {
         }
     }
 
+    /**
+     * 按游标分页获取日志列表
+     * @param cursor 上一页返回的续页令牌，为空时获取第一页
+     * @param size 每页大小
+     * @param withTotal 是否统计总数
+     * @return 游标分页的日志列表
+     */
+    @Operation(
+            summary = "按游标分页获取日志列表",
+            description = "按创建时间倒序翻页，翻页深度不影响查询性能，默认不统计总数",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "获取成功"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或游标无效")
+            }
+    )
+    @GetMapping("/cursor")
+    public ResponseEntity<MyApiResponse<CursorPage<SystemLogDto>>> getLogsByCursor(
+            @Parameter(description = "续页令牌") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "是否统计总数") @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPage<SystemLog> logPage = systemLogService.getLogsByCursor(cursor, size, withTotal);
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", logPage.map(this::convertToDto)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 搜索包含关键字的日志
      * @param keyword 搜索关键字
@@ -223,14 +254,15 @@ public class SystemLogController {
             }
     )
     @GetMapping("/search")
-    public ResponseEntity<MyApiResponse<List<SystemLogDto>>> searchLogs(
-            @Parameter(description = "搜索关键字", required = true) @RequestParam String keyword) {
+    public ResponseEntity<MyApiResponse<Page<SystemLogDto>>> searchLogs(
+            @Parameter(description = "搜索关键字", required = true) @RequestParam String keyword,
+            @Parameter(description = "页码，从0开始", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每页大小", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<SystemLog> logs = systemLogService.searchLogs(keyword);
-            List<SystemLogDto> logDtos = logs.stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(MyApiResponse.success("获取成功", logDtos));
+            Page<SystemLog> logPage = systemLogService.searchLogs(keyword, PageRequest.of(page, size));
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", logPage.map(this::convertToDto)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
@@ -260,6 +292,29 @@ public class SystemLogController {
         }
     }
 
+    /**
+     * 获取日志异步写入器的运行统计
+     * @return 队列积压及累计写入、丢弃、溢出的日志数
+     */
+    @Operation(
+            summary = "获取日志写入统计",
+            description = "获取日志异步写入器的队列积压以及累计写入、丢弃和写入溢出文件的日志数",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "获取成功"),
+                    @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误")
+            }
+    )
+    @GetMapping("/writer-stats")
+    public ResponseEntity<MyApiResponse<SystemLogWriterStatsDTO>> getWriterStats() {
+        try {
+            SystemLogWriterStatsDTO stats = systemLogService.getWriterStats();
+            return ResponseEntity.ok(MyApiResponse.success("获取成功", stats));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(MyApiResponse.error(400, e.getMessage()));
+        }
+    }
+
     /**
      * 将SystemLog实体转换为SystemLogDto
      * @param log 系统日志实体
@@ -183,18 +183,20 @@ public class UserController {
 
     /**
      * 根据关键词搜索用户
-     * 用于按用户名或真实姓名搜索用户
+     * 用于按用户名或真实姓名搜索用户，支持拼音首字母，结果按匹配程度排序并分页
      */
-    @Operation(summary = "搜索用户", description = "根据关键词搜索用户，可按用户名或真实姓名搜索")
+    @Operation(summary = "搜索用户", description = "根据关键词搜索用户，可按用户名、真实姓名或姓名拼音首字母搜索，结果按匹配程度排序")
     @ApiResponse(responseCode = "200", description = "成功搜索用户",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserDTO.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class)))
     @GetMapping("/search")
-    public ResponseEntity<MyApiResponse<List<UserDTO>>> searchUsers(
+    public ResponseEntity<MyApiResponse<Page<UserDTO>>> searchUsers(
             @Parameter(description = "搜索关键词", required = true, example = "张三")
-            @RequestParam String keyword) {
+            @RequestParam String keyword,
+            @Parameter(description = "分页参数", example = "{\"page\": 0, \"size\": 20}")
+            Pageable pageable) {
         try {
-            List<User> users = userService.searchUsers(keyword);
-            return ResponseEntity.ok(MyApiResponse.success("搜索成功", convertToDTOList(users)));
+            Page<User> users = userService.searchUsers(keyword, pageable);
+            return ResponseEntity.ok(MyApiResponse.success("搜索成功", users.map(this::convertToDTO)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(MyApiResponse.error(400, e.getMessage()));
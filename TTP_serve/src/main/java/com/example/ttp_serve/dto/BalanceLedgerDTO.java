@@ -0,0 +1,18 @@
+package com.example.ttp_serve.dto;
+
+import com.example.ttp_serve.enums.LedgerEntryType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class BalanceLedgerDTO {
+    private Long id;
+    private Long studentId;
+    private Long paymentId;
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+    private LedgerEntryType entryType;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.example.ttp_serve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceMismatchDTO {
+    private Long studentId;
+    private BigDecimal balance;
+    private BigDecimal ledgerTotal;
+}
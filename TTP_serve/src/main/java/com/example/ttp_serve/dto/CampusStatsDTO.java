@@ -1,8 +1,12 @@
 package com.example.ttp_serve.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class CampusStatsDTO {
     private Long campusId;
     private String campusName;
@@ -30,4 +30,7 @@ public class CoachDTO {
     private BigDecimal hourlyRate;
     private Integer currentStudents;
     private Integer maxStudents;
+    // 评价汇总
+    private Double averageRating; // 平均评分，没有评分时为0
+    private Long ratingCount; // 有评分的评价数量
 }
\ No newline at end of file
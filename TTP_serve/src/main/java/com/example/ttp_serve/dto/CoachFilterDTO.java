@@ -0,0 +1,25 @@
+package com.example.ttp_serve.dto;
+
+import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.Gender;
+import com.example.ttp_serve.enums.UserStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 教练目录筛选条件，未设置的条件不参与筛选
+ */
+@Data
+public class CoachFilterDTO {
+    private CoachLevel level;
+    private Gender gender;
+    private Integer minAge;
+    private Integer maxAge;
+    private Long campusId;
+    private Boolean includeSubCampuses; // 是否包含下级校区的教练
+    private Boolean available; // 为 true 时只返回学员未满的教练
+    private BigDecimal minHourlyRate;
+    private BigDecimal maxHourlyRate;
+    private UserStatus status;
+}
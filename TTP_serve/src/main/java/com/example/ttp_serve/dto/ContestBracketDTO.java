@@ -0,0 +1,55 @@
+package com.example.ttp_serve.dto;
+
+import com.example.ttp_serve.enums.ContestGroup;
+import com.example.ttp_serve.enums.ContestScheduleStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 月赛组别的小组名次和淘汰赛对阵
+ */
+@Data
+public class ContestBracketDTO {
+    private Long contestId;
+    private ContestGroup groupType;
+    private List<Standing> standings = new ArrayList<>();
+    private List<Match> knockout = new ArrayList<>();
+    private Long championId;
+    private String championName;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Standing {
+        private Integer groupNumber;
+        private Integer rank;
+        private Long playerId;
+        private String playerName;
+        private Integer played;
+        private Integer wins;
+        private Integer losses;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Match {
+        private Long scheduleId;
+        private Integer roundNumber;
+        // 对阵树位置：决赛为1，位置p的两场上一轮比赛为2p和2p+1
+        private Integer bracketPosition;
+        private Long player1Id;
+        private String player1Name;
+        private Long player2Id;
+        private String player2Name;
+        private Long winnerId;
+        private String courtNumber;
+        private LocalDateTime startTime;
+        private ContestScheduleStatus status;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ttp_serve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 月赛实时推送的事件内容
+ * 连接建立时推送 snapshot（全部比赛安排），之后每次变更推送 delta（变更或新增的比赛安排及已删除的ID），
+ * version 按月赛递增，客户端按版本号把 delta 依次应用到快照上。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestLiveEventDTO {
+    private Long contestId;
+    private Long version;
+    private List<ContestScheduleDto> schedules = new ArrayList<>();
+    private List<Long> removedIds = new ArrayList<>();
+}
@@ -1,6 +1,8 @@
 package com.example.ttp_serve.dto;
 
+import com.example.ttp_serve.enums.ContestGroup;
 import com.example.ttp_serve.enums.ContestScheduleStatus;
+import com.example.ttp_serve.enums.ContestStage;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -13,6 +15,10 @@ public class ContestScheduleDto {
     private Long contestId;
     private LocalDate contestDate;
     private Integer roundNumber;
+    private ContestGroup groupType;
+    private ContestStage stage;
+    private Integer groupNumber;
+    private Integer bracketPosition;
     private Long player1Id;
     private String player1Name;
     private Long player2Id;
@@ -0,0 +1,26 @@
+package com.example.ttp_serve.dto;
+
+import com.example.ttp_serve.enums.ContestGroup;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 生成比赛安排的结果：场次、轮次、时间范围、生成的比赛安排ID及各阶段耗时
+ */
+@Data
+public class ContestScheduleResultDTO {
+    private Long contestId;
+    private ContestGroup groupType;
+    private Integer matchCount;
+    private Integer roundCount;
+    // 轮次数的理论下界
+    private Integer lowerBound;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private List<Long> scheduleIds;
+    private Long solveMillis;
+    private Long insertMillis;
+    private Long totalMillis;
+}
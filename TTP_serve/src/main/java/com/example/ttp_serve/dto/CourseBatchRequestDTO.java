@@ -0,0 +1,27 @@
+package com.example.ttp_serve.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量课程预约请求
+ * 教练、学员、球台在整批中保持一致；课程时间可以逐条给出，也可以通过重复规则生成
+ */
+@Data
+public class CourseBatchRequestDTO {
+    private Long coachId;
+    private Long studentId;
+    private Long courtId;
+
+    // 逐条指定的课程时间（其中的教练、学员、球台为空时沿用批次设置）
+    private List<CourseRequestDTO> courses = new ArrayList<>();
+
+    // 重复规则：首节课时间、间隔天数和总次数
+    private LocalDateTime firstStartTime;
+    private LocalDateTime firstEndTime;
+    private Integer intervalDays = 7;
+    private Integer occurrences;
+}
@@ -0,0 +1,32 @@
+package com.example.ttp_serve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量课程预约结果，逐条给出成功或失败原因
+ */
+@Data
+public class CourseBatchResultDTO {
+    private int total;
+    private int successCount;
+    private int failureCount;
+    private List<Item> items = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private boolean success;
+        private Long courseId;
+        private String message;
+    }
+}
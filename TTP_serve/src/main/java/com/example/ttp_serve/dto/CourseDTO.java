@@ -1,11 +1,15 @@
 package com.example.ttp_serve.dto;
 
 import com.example.ttp_serve.enums.CourseStatus;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class CourseDTO {
     private Long id;
     private Long coachId;
@@ -0,0 +1,15 @@
+package com.example.ttp_serve.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CourseSweepStatsDTO {
+    private LocalDateTime lastRunAt;
+    private Integer lastRunRows;
+    private Integer lastRunChunks;
+    private Long lastRunMillis;
+    private Long totalRows;
+    private Long runCount;
+}
@@ -0,0 +1,31 @@
+package com.example.ttp_serve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页响应
+ * 按 (createdAt, id) 倒序翻页，nextCursor 为下一页的不透明续页令牌；
+ * totalElements 仅在请求时计算，否则为空
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, size, nextCursor, hasNext, totalElements);
+    }
+}
@@ -3,12 +3,16 @@ package com.example.ttp_serve.dto;
 import com.example.ttp_serve.enums.PaymentMethod;
 import com.example.ttp_serve.enums.PaymentStatus;
 import com.example.ttp_serve.enums.PaymentType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class PaymentDTO {
     private Long id;
     private Long userId;
@@ -0,0 +1,22 @@
+package com.example.ttp_serve.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class PaymentReconcileStatsDTO {
+    private Boolean running;
+    private LocalDateTime runStartedAt;
+    private LocalDateTime runFinishedAt;
+    private Long runTotal;
+    private Long runProcessed;
+    private Long runSucceeded;
+    private Long runFailed;
+    private Long runSkipped;
+    private Long runErrors;
+    private Long runMillis;
+    private Long totalSucceeded;
+    private Long totalFailed;
+    private Long runCount;
+}
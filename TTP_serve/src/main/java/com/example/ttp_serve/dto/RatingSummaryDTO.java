@@ -0,0 +1,24 @@
+package com.example.ttp_serve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户收到的评价汇总：有评分的评价数、评分合计、全部评价数和平均评分
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummaryDTO {
+    private Long userId;
+    private Long ratingCount;
+    private Long ratingSum;
+    private Long evaluationCount;
+    private Double averageRating;
+
+    public static RatingSummaryDTO of(Long userId, long ratingCount, long ratingSum, long evaluationCount) {
+        double average = ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+        return new RatingSummaryDTO(userId, ratingCount, ratingSum, evaluationCount, average);
+    }
+}
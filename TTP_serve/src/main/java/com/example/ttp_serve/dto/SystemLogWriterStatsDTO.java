@@ -0,0 +1,13 @@
+package com.example.ttp_serve.dto;
+
+import com.example.ttp_serve.enums.LogOverflowPolicy;
+import lombok.Data;
+
+@Data
+public class SystemLogWriterStatsDTO {
+    private LogOverflowPolicy overflowPolicy;
+    private Integer pending; // 队列中等待写入的日志数
+    private Long writtenCount;
+    private Long droppedCount; // 队列满时被丢弃的日志数
+    private Long spilledCount; // 队列满时写入溢出文件的日志数
+}
@@ -0,0 +1,53 @@
+package com.example.ttp_serve.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.example.ttp_serve.enums.*;
+
+/**
+ * 学员余额流水，只追加不修改
+ * amount 为带符号的变动金额，学员余额应始终等于其全部流水之和
+ * 每笔支付最多产生一条流水，唯一约束保证并发的重复处理不会重复入账
+ */
+@Entity
+@Table(name = "balance_ledger")
+@Immutable
+@Data
+@NoArgsConstructor
+public class BalanceLedger {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_user_id", nullable = false)
+    private Student student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_id", unique = true)
+    private Payment payment;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", precision = 10, scale = 2, nullable = false)
+    private BigDecimal balanceAfter;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false)
+    private LedgerEntryType entryType;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -24,12 +24,27 @@ public class ContestSchedule {
     @Column(name = "round_number", nullable = false)
     private Integer roundNumber;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "group_type")
+    private ContestGroup groupType;
+
+    @Enumerated(EnumType.STRING)
+    private ContestStage stage = ContestStage.GROUP;
+
+    // 小组赛的组号，从1开始
+    @Column(name = "group_number")
+    private Integer groupNumber;
+
+    // 淘汰赛在对阵树中的位置：决赛为1，位置p的两场上一轮比赛为2p和2p+1
+    @Column(name = "bracket_position")
+    private Integer bracketPosition;
+
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "player1_id", nullable = false)
+    @JoinColumn(name = "player1_user_id", nullable = false)
     private Student player1;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "player2_id")
+    @JoinColumn(name = "player2_user_id")
     private Student player2;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,7 +55,7 @@ public class ContestSchedule {
     private LocalDateTime startTime;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "winner_id")
+    @JoinColumn(name = "winner_user_id")
     private Student winner;
 
     @Enumerated(EnumType.STRING)
@@ -19,7 +19,8 @@ import com.example.ttp_serve.enums.*;
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 public class Student extends User {
-    @Column(precision = 10, scale = 2)
+    // 余额只能通过 BalanceLedgerService 的条件更新修改，实体保存时不写回该列
+    @Column(precision = 10, scale = 2, updatable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
     @Column(name = "cancel_count")
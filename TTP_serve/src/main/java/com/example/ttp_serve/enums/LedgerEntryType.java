@@ -0,0 +1,5 @@
+package com.example.ttp_serve.enums;
+
+public enum LedgerEntryType {
+    OPENING, RECHARGE, COURSE_FEE, REFUND, CONTEST_FEE
+}
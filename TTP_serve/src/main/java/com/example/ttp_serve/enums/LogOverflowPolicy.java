@@ -0,0 +1,5 @@
+package com.example.ttp_serve.enums;
+
+public enum LogOverflowPolicy {
+    BLOCK, DROP_OLDEST, SPILL
+}
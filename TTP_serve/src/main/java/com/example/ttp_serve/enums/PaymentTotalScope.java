@@ -0,0 +1,5 @@
+package com.example.ttp_serve.enums;
+
+public enum PaymentTotalScope {
+    USER, TYPE, CAMPUS
+}
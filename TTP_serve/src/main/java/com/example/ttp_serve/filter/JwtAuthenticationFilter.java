@@ -1,13 +1,19 @@
 package com.example.ttp_serve.filter;
 
+import com.example.ttp_serve.cache.TokenRevocationStore;
+import com.example.ttp_serve.cache.UserDetailsCache;
 import com.example.ttp_serve.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import jakarta.servlet.FilterChain;
@@ -15,13 +21,22 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String ACCESS_TOKEN_PARAM = "access_token";
+    private static final String LIVE_STREAM_PATTERN = "/api/contests/{contestId}/live";
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService; // 使用 UserDetailsService 而不是 AuthService
+    private final UserDetailsCache userDetailsCache;
+    private final TokenRevocationStore tokenRevocationStore;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
@@ -29,18 +44,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.getUsernameFromToken(jwt);
+            // 令牌只解析一次，验证失败时返回 null
+            Claims claims = jwt != null ? jwtUtil.parseClaims(jwt) : null;
+
+            if (claims != null && !tokenRevocationStore.isRevoked(claims, jwt)) {
+                String username = claims.getSubject();
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = userDetailsCache.get(username);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                    userDetailsCache.put(userDetails);
+                }
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+                // 已禁用或锁定的用户不再通过认证
+                if (userDetails.isEnabled() && userDetails.isAccountNonLocked()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, getAuthorities(claims, userDetails));
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             // 记录日志，但不中断请求处理
@@ -50,6 +75,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // 优先使用令牌中携带的权限，旧令牌没有该声明时退回到用户信息中的权限
+    private Collection<? extends GrantedAuthority> getAuthorities(Claims claims, UserDetails userDetails) {
+        Object claim = claims.get("authorities");
+        if (claim instanceof List<?> authorities) {
+            return authorities.stream()
+                    .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                    .collect(Collectors.toList());
+        }
+        return userDetails.getAuthorities();
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
 
@@ -57,6 +93,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return bearerToken.substring(7);
         }
 
+        // 浏览器的 EventSource 无法设置请求头，月赛实时推送允许通过查询参数携带令牌
+        if (isLiveStream(request)) {
+            String token = request.getParameter(ACCESS_TOKEN_PARAM);
+            if (token != null && !token.isBlank()) {
+                return token;
+            }
+        }
+
         return null;
     }
-}
\ No newline at end of file
+
+    private boolean isLiveStream(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "GET".equals(request.getMethod()) && PATH_MATCHER.match(LIVE_STREAM_PATTERN, path);
+    }
+}
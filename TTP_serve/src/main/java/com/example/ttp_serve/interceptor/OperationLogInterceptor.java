@@ -0,0 +1,96 @@
+package com.example.ttp_serve.interceptor;
+
+import com.example.ttp_serve.service.SystemLogService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 操作日志拦截器
+ * 记录已登录用户对控制器的增删改请求，模块取控制器名，操作取接口的 @Operation 摘要
+ */
+@Component
+@RequiredArgsConstructor
+public class OperationLogInterceptor implements HandlerInterceptor {
+
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_OPERATION_LENGTH = 200;
+    private static final int MAX_MODULE_LENGTH = 50;
+
+    private final SystemLogService systemLogService;
+
+    private final Map<Class<?>, String> moduleNames = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || !MUTATING_METHODS.contains(request.getMethod())) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return;
+        }
+
+        String operation = operationName(handlerMethod);
+        if (ex != null || response.getStatus() >= 400) {
+            operation = operation + "（失败）";
+        }
+        systemLogService.submitLog(
+                authentication.getName(),
+                moduleNames.computeIfAbsent(handlerMethod.getBeanType(), OperationLogInterceptor::moduleName),
+                truncate(operation, MAX_OPERATION_LENGTH),
+                clientIp(request));
+    }
+
+    private static String operationName(HandlerMethod handlerMethod) {
+        Operation operation = handlerMethod.getMethodAnnotation(Operation.class);
+        if (operation != null && StringUtils.hasText(operation.summary())) {
+            return operation.summary();
+        }
+        return handlerMethod.getMethod().getName();
+    }
+
+    /**
+     * CourseController -> COURSE，CoachStudentRelationController -> COACH_STUDENT_RELATION
+     */
+    private static String moduleName(Class<?> controllerType) {
+        String name = controllerType.getSimpleName();
+        int proxySuffix = name.indexOf('$');
+        if (proxySuffix > 0) {
+            name = name.substring(0, proxySuffix);
+        }
+        if (name.endsWith("Controller")) {
+            name = name.substring(0, name.length() - "Controller".length());
+        }
+        String module = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+        return truncate(module, MAX_MODULE_LENGTH);
+    }
+
+    private static String clientIp(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(forwarded)) {
+            return truncate(forwarded.split(",")[0].trim(), 45);
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
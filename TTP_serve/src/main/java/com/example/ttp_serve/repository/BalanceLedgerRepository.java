@@ -0,0 +1,32 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.entity.BalanceLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedger, Long> {
+
+    // 查询学员的余额流水（按时间倒序）
+    @Query("SELECT l FROM BalanceLedger l LEFT JOIN FETCH l.payment WHERE l.student.id = :studentId ORDER BY l.id DESC")
+    List<BalanceLedger> findByStudentId(@Param("studentId") Long studentId);
+
+    // 该支付记录是否已经入账
+    boolean existsByPaymentId(Long paymentId);
+
+    // 学员全部流水之和
+    @Query("SELECT COALESCE(SUM(l.amount), 0) FROM BalanceLedger l WHERE l.student.id = :studentId")
+    BigDecimal sumAmountByStudentId(@Param("studentId") Long studentId);
+
+    // 查找余额与流水之和不一致的学员，返回 [studentId, balance, ledgerTotal]
+    @Query(value = "SELECT s.user_id, s.balance, COALESCE(SUM(l.amount), 0) AS ledger_total " +
+            "FROM student s LEFT JOIN balance_ledger l ON l.student_user_id = s.user_id " +
+            "GROUP BY s.user_id, s.balance " +
+            "HAVING COALESCE(s.balance, 0) <> COALESCE(SUM(l.amount), 0)", nativeQuery = true)
+    List<Object[]> findBalanceMismatches();
+}
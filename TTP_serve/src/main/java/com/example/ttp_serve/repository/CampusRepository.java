@@ -1,7 +1,7 @@
 package com.example.ttp_serve.repository;
 
+import com.example.ttp_serve.dto.CampusStatsDTO;
 import com.example.ttp_serve.entity.Campus;
-import com.example.ttp_serve.enums.UserType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,6 +13,19 @@ import java.util.Optional;
 @Repository
 public interface CampusRepository extends JpaRepository<Campus, Long> {
 
+    /**
+     * 校区统计：按校区左连接用户分组，用条件求和统计各类用户，子校区数量用相关子查询，
+     * 字段顺序与 CampusStatsDTO 的全参构造函数一致
+     */
+    String CAMPUS_STATS_SELECT = "SELECT new com.example.ttp_serve.dto.CampusStatsDTO(" +
+            "c.id, c.name, COUNT(u.id), " +
+            "SUM(CASE WHEN u.userType = com.example.ttp_serve.enums.UserType.STUDENT THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.userType = com.example.ttp_serve.enums.UserType.COACH THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.userType IN (com.example.ttp_serve.enums.UserType.SUPER_ADMIN, " +
+            "com.example.ttp_serve.enums.UserType.CAMPUS_ADMIN) THEN 1 ELSE 0 END), " +
+            "(SELECT COUNT(child) FROM Campus child WHERE child.parent = c)) " +
+            "FROM Campus c LEFT JOIN User u ON u.campus = c ";
+
     // 根据名称查找校区
     Optional<Campus> findByName(String name);
 
@@ -28,9 +41,14 @@ public interface CampusRepository extends JpaRepository<Campus, Long> {
     // 根据联系人电话查找校区
     List<Campus> findByContactPhone(String contactPhone);
 
-    // 根据地址模糊查询校区
-    @Query("SELECT c FROM Campus c WHERE c.address LIKE %:address%")
-    List<Campus> findByAddressContaining(@Param("address") String address);
+    // 搜索索引加载校区：[id, name, address]
+    @Query("SELECT c.id, c.name, c.address FROM Campus c")
+    List<Object[]> findSearchRows();
+
+    // 校区层级缓存加载校区：[id, parentId, name, address, contactPerson, contactPhone, email, createdAt, updatedAt]
+    @Query("SELECT c.id, p.id, c.name, c.address, c.contactPerson, c.contactPhone, c.email, c.createdAt, c.updatedAt " +
+            "FROM Campus c LEFT JOIN c.parent p")
+    List<Object[]> findHierarchyRows();
 
     // 统计校区数量
     @Query("SELECT COUNT(c) FROM Campus c")
@@ -39,7 +57,11 @@ public interface CampusRepository extends JpaRepository<Campus, Long> {
     // 统计子校区数量
     Long countByParentId(Long parentId);
 
-    // 根据名称模糊查询校区
-    @Query("SELECT c FROM Campus c WHERE c.name LIKE %:name%")
-    List<Campus> findByNameContaining(@Param("name") String name);
+    // 单个校区的统计信息
+    @Query(CAMPUS_STATS_SELECT + "WHERE c.id = :campusId GROUP BY c.id, c.name")
+    Optional<CampusStatsDTO> findCampusStats(@Param("campusId") Long campusId);
+
+    // 所有校区的统计信息
+    @Query(CAMPUS_STATS_SELECT + "GROUP BY c.id, c.name ORDER BY c.id")
+    List<CampusStatsDTO> findAllCampusStats();
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,19 +25,6 @@ public interface CoachRepository extends JpaRepository<Coach, Long>, JpaSpecific
      */
     List<Coach> findByRealNameContainingAndCampusId(String name, Long campusId);
 
-    /**
-     * 根据姓名、性别、年龄和校区查找教练
-     */
-    @Query("SELECT c FROM Coach c WHERE " +
-            "(:name IS NULL OR c.realName LIKE %:name%) AND " +
-            "(:gender IS NULL OR c.gender = :gender) AND " +
-            "(:age IS NULL OR c.age = :age) AND " +
-            "c.campus.id = :campusId")
-    List<Coach> findByCriteria(@Param("name") String name,
-                               @Param("gender") String gender,
-                               @Param("age") Integer age,
-                               @Param("campusId") Long campusId);
-
     /**
      * 根据教练级别查找
      */
@@ -52,4 +40,23 @@ public interface CoachRepository extends JpaRepository<Coach, Long>, JpaSpecific
      */
     long countByCampusId(Long campusId);
 
+    /**
+     * 教练目录加载的字段，顺序见 CoachDirectory
+     */
+    String DIRECTORY_SELECT = "SELECT c.id, c.username, c.realName, c.gender, c.age, c.phone, c.email, c.avatar, " +
+            "c.userType, cp.id, cp.name, c.status, c.createdAt, c.updatedAt, c.level, c.awards, c.hourlyRate, " +
+            "c.currentStudents, c.maxStudents FROM Coach c LEFT JOIN c.campus cp ";
+
+    /**
+     * 教练目录加载全部教练
+     */
+    @Query(DIRECTORY_SELECT)
+    List<Object[]> findDirectoryRows();
+
+    /**
+     * 教练目录按ID重新加载教练，已删除的教练不在结果中
+     */
+    @Query(DIRECTORY_SELECT + "WHERE c.id IN :ids")
+    List<Object[]> findDirectoryRowsByIds(@Param("ids") Collection<Long> ids);
+
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.entity.ContestSchedule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 比赛安排批量写入
+ * 主键为自增列，Hibernate 无法对这类实体批量插入，这里按多行 VALUES 每批一条 INSERT 写入，
+ * 并把生成的主键回填到传入的对象上。需在事务中调用。
+ */
+@Repository
+@RequiredArgsConstructor
+public class ContestScheduleBatchRepository {
+
+    // 每条 INSERT 包含的行数，每行11个参数
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO contest_schedule " +
+            "(contest_id, round_number, group_type, stage, group_number, player1_user_id, player2_user_id, " +
+            "court_id, start_time, status, created_at) VALUES ";
+
+    private static final String ROW_SQL = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 插入全部比赛安排，按传入顺序返回生成的ID
+     */
+    public List<Long> insertAll(List<ContestSchedule> schedules) {
+        List<Long> ids = new ArrayList<>(schedules.size());
+        for (int from = 0; from < schedules.size(); from += ROWS_PER_STATEMENT) {
+            List<ContestSchedule> chunk = schedules.subList(from, Math.min(from + ROWS_PER_STATEMENT, schedules.size()));
+            ids.addAll(insertChunk(chunk));
+        }
+        return ids;
+    }
+
+    private List<Long> insertChunk(List<ContestSchedule> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + chunk.size() * (ROW_SQL.length() + 2));
+        sql.append(INSERT_SQL);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_SQL);
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
+            int index = 1;
+            for (ContestSchedule schedule : chunk) {
+                LocalDateTime createdAt = schedule.getCreatedAt() != null ? schedule.getCreatedAt() : LocalDateTime.now();
+                ps.setLong(index++, schedule.getContest().getId());
+                ps.setInt(index++, schedule.getRoundNumber());
+                ps.setString(index++, schedule.getGroupType() != null ? schedule.getGroupType().name() : null);
+                ps.setString(index++, schedule.getStage().name());
+                if (schedule.getGroupNumber() != null) {
+                    ps.setInt(index++, schedule.getGroupNumber());
+                } else {
+                    ps.setNull(index++, Types.INTEGER);
+                }
+                ps.setLong(index++, schedule.getPlayer1().getId());
+                setId(ps, index++, schedule.getPlayer2() != null ? schedule.getPlayer2().getId() : null);
+                setId(ps, index++, schedule.getCourt() != null ? schedule.getCourt().getId() : null);
+                ps.setTimestamp(index++, schedule.getStartTime() != null ? Timestamp.valueOf(schedule.getStartTime()) : null);
+                ps.setString(index++, schedule.getStatus().name());
+                ps.setTimestamp(index++, Timestamp.valueOf(createdAt));
+            }
+            return ps;
+        }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            throw new IllegalStateException("比赛安排写入数量与生成的ID数量不一致");
+        }
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            chunk.get(i).setId(id);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static void setId(PreparedStatement ps, int index, Long id) throws SQLException {
+        if (id != null) {
+            ps.setLong(index, id);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.ttp_serve.repository;
 
 import com.example.ttp_serve.entity.ContestSchedule;
+import com.example.ttp_serve.enums.ContestGroup;
 import com.example.ttp_serve.enums.ContestScheduleStatus;
+import com.example.ttp_serve.enums.ContestStage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ContestScheduleRepository extends JpaRepository<ContestSchedule, Long> {
@@ -42,4 +47,37 @@ public interface ContestScheduleRepository extends JpaRepository<ContestSchedule
 
     // 统计月赛特定轮次的比赛场次
     Long countByContestIdAndRoundNumber(Long contestId, Integer roundNumber);
-}
\ No newline at end of file
+
+    // 查询时间范围内指定球台上的比赛开始时间，返回 [courtId, startTime]（用于比赛排程）
+    @Query("SELECT cs.court.id, cs.startTime FROM ContestSchedule cs " +
+            "WHERE cs.court.id IN :courtIds AND cs.startTime >= :from AND cs.startTime < :to")
+    List<Object[]> findCourtStartTimes(@Param("courtIds") Collection<Long> courtIds,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    // 查询月赛某组别的全部比赛及选手、胜者和球台，用于在内存中计算小组名次和淘汰赛对阵
+    @Query("SELECT cs FROM ContestSchedule cs JOIN FETCH cs.player1 LEFT JOIN FETCH cs.player2 " +
+            "LEFT JOIN FETCH cs.winner LEFT JOIN FETCH cs.court " +
+            "WHERE cs.contest.id = :contestId AND cs.groupType = :groupType ORDER BY cs.roundNumber, cs.id")
+    List<ContestSchedule> findBracketSchedules(@Param("contestId") Long contestId,
+                                               @Param("groupType") ContestGroup groupType);
+
+    // 查找淘汰赛对阵树中指定位置的比赛
+    Optional<ContestSchedule> findByContestIdAndGroupTypeAndStageAndBracketPosition(Long contestId, ContestGroup groupType,
+                                                                                   ContestStage stage, Integer bracketPosition);
+
+    // 检查月赛某组别是否已生成指定阶段的比赛
+    boolean existsByContestIdAndGroupTypeAndStage(Long contestId, ContestGroup groupType, ContestStage stage);
+
+    // 查询月赛的全部比赛安排及月赛、选手、胜者和球台，用于实时推送的初始快照
+    @Query("SELECT cs FROM ContestSchedule cs JOIN FETCH cs.contest JOIN FETCH cs.player1 LEFT JOIN FETCH cs.player2 " +
+            "LEFT JOIN FETCH cs.winner LEFT JOIN FETCH cs.court " +
+            "WHERE cs.contest.id = :contestId ORDER BY cs.roundNumber, cs.id")
+    List<ContestSchedule> findLiveSchedules(@Param("contestId") Long contestId);
+
+    // 按ID查询变更的比赛安排及关联数据，用于实时推送的增量
+    @Query("SELECT cs FROM ContestSchedule cs JOIN FETCH cs.contest JOIN FETCH cs.player1 LEFT JOIN FETCH cs.player2 " +
+            "LEFT JOIN FETCH cs.winner LEFT JOIN FETCH cs.court " +
+            "WHERE cs.id IN :ids")
+    List<ContestSchedule> findLiveSchedulesByIdIn(@Param("ids") Collection<Long> ids);
+}
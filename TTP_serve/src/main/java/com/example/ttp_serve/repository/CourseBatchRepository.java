@@ -0,0 +1,80 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.entity.Course;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 课程批量写入
+ * 课程主键为自增列，Hibernate 无法对其做批量插入，这里直接使用 JDBC 批处理并回填生成的主键
+ */
+@Repository
+@RequiredArgsConstructor
+public class CourseBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO course " +
+            "(coach_user_id, student_user_id, court_id, start_time, end_time, duration, fee, status, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量插入课程，并把生成的主键写回实体
+     */
+    public void insertAll(List<Course> courses) {
+        if (courses.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Course course = courses.get(i);
+                        ps.setLong(1, course.getCoach().getId());
+                        ps.setLong(2, course.getStudent().getId());
+                        if (course.getCourt() != null) {
+                            ps.setLong(3, course.getCourt().getId());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                        ps.setTimestamp(4, Timestamp.valueOf(course.getStartTime()));
+                        ps.setTimestamp(5, Timestamp.valueOf(course.getEndTime()));
+                        ps.setBigDecimal(6, course.getDuration());
+                        ps.setBigDecimal(7, course.getFee());
+                        ps.setString(8, course.getStatus().name());
+                        ps.setTimestamp(9, Timestamp.valueOf(now));
+                        ps.setTimestamp(10, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return courses.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < courses.size() && i < keys.size(); i++) {
+            Course course = courses.get(i);
+            course.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            course.setCreatedAt(now);
+            course.setUpdatedAt(now);
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.ttp_serve.repository;
 
+import com.example.ttp_serve.dto.CourseDTO;
 import com.example.ttp_serve.entity.Course;
 import com.example.ttp_serve.enums.CourseStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -30,13 +38,57 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     // 根据学员ID和状态查找课程
     List<Course> findByStudentIdAndStatus(Long studentId, CourseStatus status);
 
-    // 根据校区ID查找课程
-    @Query("SELECT c FROM Course c WHERE c.coach.campus.id = :campusId OR c.student.campus.id = :campusId")
-    List<Course> findByCampusId(@Param("campusId") Long campusId);
-
-    // 查找所有课程列表
-    @Query("SELECT c FROM Course c ORDER BY c.createdAt DESC")
-    List<Course> findAllCoursesList();
+    // 课程DTO投影：一次关联查询取出教练、学员、球台、取消人和教练所属校区，避免逐行懒加载
+    String COURSE_DTO_SELECT = "SELECT new com.example.ttp_serve.dto.CourseDTO(" +
+            "c.id, co.id, co.realName, s.id, s.realName, ct.id, ct.courtNumber, " +
+            "c.startTime, c.endTime, c.duration, c.fee, c.status, c.cancelReason, " +
+            "cb.id, cb.realName, c.cancelTime, c.createdAt, c.updatedAt, cp.id, cp.name) " +
+            "FROM Course c JOIN c.coach co JOIN c.student s LEFT JOIN c.court ct " +
+            "LEFT JOIN c.cancelBy cb LEFT JOIN co.campus cp ";
+
+    // 查找所有课程DTO列表
+    @Query(COURSE_DTO_SELECT + "ORDER BY c.createdAt DESC")
+    List<CourseDTO> findAllCourseDTOs();
+
+    // 根据校区ID查找课程DTO列表
+    @Query(COURSE_DTO_SELECT + "WHERE cp.id = :campusId OR s.campus.id = :campusId")
+    List<CourseDTO> findCourseDTOsByCampusId(@Param("campusId") Long campusId);
+
+    // 根据一组校区ID查找课程DTO列表，用于按校区及其全部下级校区筛选
+    @Query(COURSE_DTO_SELECT + "WHERE cp.id IN :campusIds OR s.campus.id IN :campusIds")
+    List<CourseDTO> findCourseDTOsByCampusIds(@Param("campusIds") Collection<Long> campusIds);
+
+    // 根据教练ID查找课程DTO列表
+    @Query(COURSE_DTO_SELECT + "WHERE co.id = :coachId")
+    List<CourseDTO> findCourseDTOsByCoachId(@Param("coachId") Long coachId);
+
+    // 流式导出课程DTO，fetchSize 取 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果集
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(COURSE_DTO_SELECT + "ORDER BY c.createdAt DESC, c.id DESC")
+    Stream<CourseDTO> streamAllCourseDTOs();
+
+    // 流式导出开始时间在日期范围内的课程DTO
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(COURSE_DTO_SELECT + "WHERE c.startTime BETWEEN :start AND :end ORDER BY c.startTime, c.id")
+    Stream<CourseDTO> streamCourseDTOsByStartTimeBetween(@Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    // 游标分页：第一页课程DTO（按创建时间、ID倒序）
+    @Query(COURSE_DTO_SELECT + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CourseDTO> findCourseDTOsFirstPage(Pageable pageable);
+
+    // 游标分页：游标之后的课程DTO
+    @Query(COURSE_DTO_SELECT + "WHERE c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CourseDTO> findCourseDTOsAfterCursor(@Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
 
     // 根据日期范围查找课程
     List<Course> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
@@ -50,6 +102,21 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     // 根据教练ID、状态和时间段查找课程
     List<Course> findByCoachIdAndStatusAndStartTimeBetween(Long coachId, CourseStatus status, LocalDateTime start, LocalDateTime end);
 
+    // 统计教练在时间段内指定状态课程的费用合计
+    @Query("SELECT COALESCE(SUM(c.fee), 0) FROM Course c WHERE c.coach.id = :coachId AND c.status = :status " +
+            "AND c.startTime BETWEEN :start AND :end")
+    BigDecimal sumFeeByCoachIdAndStatusAndStartTimeBetween(@Param("coachId") Long coachId,
+                                                           @Param("status") CourseStatus status,
+                                                           @Param("start") LocalDateTime start,
+                                                           @Param("end") LocalDateTime end);
+
+    // 查询指定时间之后开课的课程统计维度（用于重建每日统计），每节课程一行，由调用方按天分组累加
+    // 返回 [id, coachId, 教练校区ID, 学员校区ID, startTime, status, fee]
+    @Query("SELECT c.id, co.id, cc.id, sc.id, c.startTime, c.status, c.fee FROM Course c " +
+            "JOIN c.coach co LEFT JOIN co.campus cc JOIN c.student s LEFT JOIN s.campus sc " +
+            "WHERE c.startTime >= :from")
+    List<Object[]> findDailyStatsRowsStartingFrom(@Param("from") LocalDateTime from);
+
     // 检查时间冲突
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Course c WHERE " +
             "c.coach.id = :coachId AND c.status <> 'CANCELLED' AND " +
@@ -66,6 +133,34 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
                              @Param("startTime") LocalDateTime startTime,
                              @Param("endTime") LocalDateTime endTime);
 
+    // 查询指定时间之后结束的未取消课程时间段（用于预热排课冲突索引）
+    @Query("SELECT c.id, c.coach.id, ct.id, c.startTime, c.endTime FROM Course c LEFT JOIN c.court ct " +
+            "WHERE c.status <> 'CANCELLED' AND c.endTime > :after")
+    List<Object[]> findActiveTimeSlotsEndingAfter(@Param("after") LocalDateTime after);
+
+    // 查询时间范围内与教练或球台相关的未取消课程时间段（用于批量预约的冲突检查）
+    @Query("SELECT c.id, c.coach.id, ct.id, c.startTime, c.endTime FROM Course c LEFT JOIN c.court ct " +
+            "WHERE c.status <> 'CANCELLED' AND c.startTime < :to AND c.endTime > :from AND " +
+            "(c.coach.id = :coachId OR ct.id = :courtId)")
+    List<Object[]> findActiveTimeSlotsForCoachOrCourt(@Param("coachId") Long coachId,
+                                                      @Param("courtId") Long courtId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    // 查询时间范围内指定球台上未取消的课程时间段，返回 [courtId, startTime, endTime]（用于比赛排程）
+    @Query("SELECT ct.id, c.startTime, c.endTime FROM Course c JOIN c.court ct " +
+            "WHERE ct.id IN :courtIds AND c.status <> 'CANCELLED' AND c.startTime < :to AND c.endTime > :from")
+    List<Object[]> findActiveCourtSlots(@Param("courtIds") Collection<Long> courtIds,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    // 查询时间范围内指定学员未取消的课程时间段，返回 [studentId, startTime, endTime]（用于比赛排程）
+    @Query("SELECT c.student.id, c.startTime, c.endTime FROM Course c " +
+            "WHERE c.student.id IN :studentIds AND c.status <> 'CANCELLED' AND c.startTime < :to AND c.endTime > :from")
+    List<Object[]> findActiveStudentSlots(@Param("studentIds") Collection<Long> studentIds,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
     // 查找已确认且结束时间已过的课程
     @Query("SELECT c FROM Course c WHERE " +
             "c.status = 'CONFIRMED' AND c.endTime < :currentTime AND " +
@@ -73,6 +168,22 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findConfirmedExpiredCoursesByUser(@Param("userId") Long userId,
                                                  @Param("currentTime") LocalDateTime currentTime);
 
+    // 查找已确认且已结束的课程ID（按ID分批）
+    @Query("SELECT c.id FROM Course c WHERE c.status = 'CONFIRMED' AND c.endTime < :currentTime ORDER BY c.id")
+    List<Long> findConfirmedExpiredCourseIds(@Param("currentTime") LocalDateTime currentTime, Pageable pageable);
+
+    // 查找与用户相关的已确认且已结束的课程ID
+    @Query("SELECT c.id FROM Course c WHERE c.status = 'CONFIRMED' AND c.endTime < :currentTime AND " +
+            "(c.coach.id = :userId OR c.student.id = :userId)")
+    List<Long> findConfirmedExpiredCourseIdsByUser(@Param("userId") Long userId,
+                                                   @Param("currentTime") LocalDateTime currentTime);
+
+    // 批量将已结束的已确认课程标记为已完成，状态条件保证并发修改过的课程不会被覆盖
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Course c SET c.status = com.example.ttp_serve.enums.CourseStatus.COMPLETED, c.updatedAt = :currentTime " +
+            "WHERE c.id IN :ids AND c.status = com.example.ttp_serve.enums.CourseStatus.CONFIRMED AND c.endTime < :currentTime")
+    int completeConfirmedExpiredByIds(@Param("ids") List<Long> ids, @Param("currentTime") LocalDateTime currentTime);
+
     // 查找需要提醒的课程（上课前一小时）
     @Query("SELECT c FROM Course c WHERE c.status = 'CONFIRMED' AND " +
             "c.startTime BETWEEN :startTime AND :endTime")
@@ -88,13 +199,21 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     // 分页查询课程
     Page<Course> findAll(Pageable pageable);
 
-    List<Course> findByStatusAndEndTimeBeforeAndEvaluationsEmpty(CourseStatus status, LocalDateTime endTime);
-
-    List<Course> findByStatusAndStudentIdOrCoachId(
-            CourseStatus status,
-            Long studentId,
-            Long coachId
-    );
+    // 用户已完成但尚未评价的课程：作为学员未写学员评价，或作为教练未写教练评价
+    // NOT EXISTS 反连接由评价表 (course_id, from_user_id, type) 索引覆盖，不回表也不逐课程查询
+    String NEED_EVALUATION_WHERE = "WHERE c.status = 'COMPLETED' AND (" +
+            "(c.student.id = :userId AND NOT EXISTS (SELECT 1 FROM Evaluation e WHERE e.course = c " +
+            "AND e.fromUser.id = :userId AND e.type = 'STUDENT_TO_COACH')) OR " +
+            "(c.coach.id = :userId AND NOT EXISTS (SELECT 1 FROM Evaluation e WHERE e.course = c " +
+            "AND e.fromUser.id = :userId AND e.type = 'COACH_TO_STUDENT'))) ";
+
+    // 查找用户需要评价的课程ID
+    @Query("SELECT c.id FROM Course c " + NEED_EVALUATION_WHERE + "ORDER BY c.endTime DESC, c.id DESC")
+    List<Long> findCourseIdsNeedEvaluation(@Param("userId") Long userId);
+
+    // 查找用户需要评价的课程DTO
+    @Query(COURSE_DTO_SELECT + NEED_EVALUATION_WHERE + "ORDER BY c.endTime DESC, c.id DESC")
+    List<CourseDTO> findCourseDTOsNeedEvaluation(@Param("userId") Long userId);
 
     // 统计今日已确认的课程数量
     Long countByStatusAndStartTimeBetween(CourseStatus status, LocalDateTime start, LocalDateTime end);
@@ -3,7 +3,9 @@ package com.example.ttp_serve.repository;
 import com.example.ttp_serve.entity.MonthlyContest;
 import com.example.ttp_serve.enums.ContestGroup;
 import com.example.ttp_serve.enums.ContestStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -42,4 +44,9 @@ public interface MonthlyContestRepository extends JpaRepository<MonthlyContest,
 
     // 统计校区内的月赛数量
     Long countByCampusId(Long campusId);
+
+    // 加写锁查找比赛安排所属的月赛；作为事务的第一条查询，之后的读取都能看到锁等待期间其他事务提交的数据
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ContestSchedule s JOIN s.contest c WHERE s.id = :scheduleId")
+    Optional<MonthlyContest> findByScheduleIdForUpdate(@Param("scheduleId") Long scheduleId);
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.cache.IdempotentResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 支付接口幂等记录
+ * 以 (订单号, 幂等键) 为主键，同一组合只保留第一次写入的响应
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentIdempotencyRepository {
+
+    private static final String FIND_SQL = "SELECT operation, status_code, response_body FROM payment_idempotency " +
+            "WHERE order_id = ? AND idempotency_key = ?";
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO payment_idempotency " +
+            "(order_id, idempotency_key, operation, status_code, response_body, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM payment_idempotency WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotentResponse find(String orderId, String key) {
+        List<IdempotentResponse> rows = jdbcTemplate.query(FIND_SQL,
+                (rs, rowNum) -> new IdempotentResponse(rs.getString(1), rs.getInt(2), rs.getString(3)),
+                orderId, key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void insert(String orderId, String key, IdempotentResponse response) {
+        jdbcTemplate.update(INSERT_SQL, orderId, key, response.operation(), response.status(), response.body(),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public int deleteCreatedBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, Timestamp.valueOf(before));
+    }
+}
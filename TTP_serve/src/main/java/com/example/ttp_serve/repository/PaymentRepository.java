@@ -1,20 +1,27 @@
 package com.example.ttp_serve.repository;
 
+import com.example.ttp_serve.dto.PaymentDTO;
 import com.example.ttp_serve.entity.Payment;
 import com.example.ttp_serve.enums.PaymentMethod;
 import com.example.ttp_serve.enums.PaymentStatus;
 import com.example.ttp_serve.enums.PaymentType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -46,7 +53,8 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // 根据订单号查找支付记录
     Optional<Payment> findByOrderId(String orderId);
 
-    Payment findByRelatedId(Long relatedId);
+    // 根据关联ID和支付类型查找最近的一条支付记录，课程费用和退款共用同一个关联ID（课程ID）
+    Optional<Payment> findFirstByRelatedIdAndPaymentTypeOrderByIdDesc(Long relatedId, PaymentType paymentType);
 
     // 根据用户ID和类型查找支付记录
     List<Payment> findByUserIdAndPaymentType(Long userId, PaymentType paymentType);
@@ -80,4 +88,51 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     // 分页查询支付记录
     Page<Payment> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    // 游标分页：第一页支付记录（按创建时间、ID倒序）
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findFirstPage(Pageable pageable);
+
+    // 游标分页：游标之后的支付记录
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user " +
+            "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findAfterCursor(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+
+    // 统计创建时间早于指定时间、仍处于某状态的支付记录数
+    long countByStatusAndCreatedAtBefore(PaymentStatus status, LocalDateTime before);
+
+    // 流式读取创建时间早于指定时间的待处理支付记录，返回 [id, orderId, paymentType, paymentMethod]
+    // fetchSize 取 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果集，不会一次载入内存；需在事务内消费并关闭
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.id, p.orderId, p.paymentType, p.paymentMethod FROM Payment p " +
+            "WHERE p.status = com.example.ttp_serve.enums.PaymentStatus.PENDING AND p.createdAt < :before " +
+            "ORDER BY p.createdAt, p.id")
+    Stream<Object[]> streamPendingCreatedBefore(@Param("before") LocalDateTime before);
+
+    // 流式导出日期范围内的支付记录，fetchSize 取 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果集
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.ttp_serve.dto.PaymentDTO(p.id, u.id, u.realName, p.amount, p.paymentType, " +
+            "p.paymentMethod, p.orderId, p.status, p.relatedId, p.createdAt, p.updatedAt) " +
+            "FROM Payment p JOIN p.user u WHERE p.createdAt BETWEEN :start AND :end ORDER BY p.createdAt, p.id")
+    Stream<PaymentDTO> streamPaymentDTOsByCreatedAtBetween(@Param("start") LocalDateTime start,
+                                                          @Param("end") LocalDateTime end);
+
+    // 条件更新支付状态：只有当前状态在 from 中时才更新，返回受影响的行数
+    // 并发的重复回调中只有一个能更新成功，其余返回0
+    // 更新后清空持久化上下文，之后按订单号读取到的是数据库中的最新状态，而不是事务中先前加载的旧实体
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :to, p.updatedAt = :now WHERE p.orderId = :orderId AND p.status IN :from")
+    int transitionStatus(@Param("orderId") String orderId,
+                         @Param("from") Collection<PaymentStatus> from,
+                         @Param("to") PaymentStatus to,
+                         @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,66 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.enums.PaymentTotalScope;
+import com.example.ttp_serve.enums.PaymentType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 成功支付金额汇总
+ * 按用户、支付类型和用户所属校区分别累计，支付状态变为成功（或从成功改为其他状态）时
+ * 在同一事务中增减对应的行，查询时按主键读取一行。
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentTotalRepository {
+
+    private static final String ADD_SQL = "INSERT INTO payment_total (scope, scope_key, total) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total = total + VALUES(total)";
+
+    private static final String FIND_SQL = "SELECT total FROM payment_total WHERE scope = ? AND scope_key = ?";
+
+    private static final String[] REBUILD_SQL = {
+            "DELETE FROM payment_total",
+            "INSERT INTO payment_total (scope, scope_key, total) " +
+                    "SELECT 'USER', CAST(p.user_id AS CHAR), SUM(p.amount) FROM payment p " +
+                    "WHERE p.status = 'SUCCESS' GROUP BY p.user_id",
+            "INSERT INTO payment_total (scope, scope_key, total) " +
+                    "SELECT 'TYPE', p.payment_type, SUM(p.amount) FROM payment p " +
+                    "WHERE p.status = 'SUCCESS' GROUP BY p.payment_type",
+            "INSERT INTO payment_total (scope, scope_key, total) " +
+                    "SELECT 'CAMPUS', CAST(u.campus_id AS CHAR), SUM(p.amount) FROM payment p JOIN user u ON u.id = p.user_id " +
+                    "WHERE p.status = 'SUCCESS' AND u.campus_id IS NOT NULL GROUP BY u.campus_id"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 把一笔支付金额计入用户、类型和校区的汇总，amount 为负数时扣除
+     */
+    public void add(Long userId, Long campusId, PaymentType paymentType, BigDecimal amount) {
+        List<Object[]> rows = new ArrayList<>(3);
+        rows.add(new Object[]{PaymentTotalScope.USER.name(), String.valueOf(userId), amount});
+        rows.add(new Object[]{PaymentTotalScope.TYPE.name(), paymentType.name(), amount});
+        if (campusId != null) {
+            rows.add(new Object[]{PaymentTotalScope.CAMPUS.name(), String.valueOf(campusId), amount});
+        }
+        jdbcTemplate.batchUpdate(ADD_SQL, rows);
+    }
+
+    public BigDecimal findTotal(PaymentTotalScope scope, String key) {
+        List<BigDecimal> totals = jdbcTemplate.queryForList(FIND_SQL, BigDecimal.class, scope.name(), key);
+        return totals.isEmpty() || totals.get(0) == null ? BigDecimal.ZERO : totals.get(0);
+    }
+
+    /**
+     * 按全部成功支付记录重新计算汇总，需在事务中调用
+     */
+    public void rebuild() {
+        jdbcTemplate.batchUpdate(REBUILD_SQL);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.ttp_serve.repository;
 
 import com.example.ttp_serve.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,9 +23,19 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     // 查找余额小于指定值的学员
     List<Student> findByBalanceLessThan(BigDecimal amount);
 
-    // 更新学员余额
-    @Query("UPDATE Student s SET s.balance = s.balance + :amount WHERE s.id = :id")
-    void updateBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+    // 增加学员余额，返回更新的行数（直接更新 student 表，避免继承结构下的多表批量更新）
+    @Modifying
+    @Query(value = "UPDATE student SET balance = balance + :amount WHERE user_id = :id", nativeQuery = true)
+    int updateBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // 余额充足时扣减学员余额，余额不足时不更新并返回0
+    @Modifying
+    @Query(value = "UPDATE student SET balance = balance - :amount WHERE user_id = :id AND balance >= :amount", nativeQuery = true)
+    int debitBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // 查询学员当前余额
+    @Query(value = "SELECT balance FROM student WHERE user_id = :id", nativeQuery = true)
+    BigDecimal findBalanceById(@Param("id") Long id);
 
     // 统计校区内的学员数量
     Long countByCampusId(Long campusId);
@@ -0,0 +1,36 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.audit.AuditRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 系统日志批量写入
+ * 按用户名关联用户ID，用户不存在的记录不会写入
+ */
+@Repository
+@RequiredArgsConstructor
+public class SystemLogBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO system_log (user_id, operation, module, ip_address, created_at) " +
+            "SELECT u.id, ?, ?, ?, ? FROM user u WHERE u.username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<AuditRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, record) -> {
+            ps.setString(1, record.operation());
+            ps.setString(2, record.module());
+            ps.setString(3, record.ipAddress());
+            ps.setTimestamp(4, Timestamp.valueOf(record.createdAt()));
+            ps.setString(5, record.username());
+        });
+    }
+}
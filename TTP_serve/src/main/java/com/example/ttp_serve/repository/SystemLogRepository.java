@@ -32,13 +32,27 @@ public interface SystemLogRepository extends JpaRepository<SystemLog, Long> {
     // 根据模块和日期范围查找日志
     List<SystemLog> findByModuleAndCreatedAtBetween(String module, LocalDateTime start, LocalDateTime end);
 
-    // 搜索包含关键字的操作日志
-    @Query("SELECT sl FROM SystemLog sl WHERE sl.operation LIKE %:keyword%")
-    List<SystemLog> searchByOperationKeyword(@Param("keyword") String keyword);
+    // 搜索索引按ID增量加载日志：[id, operation]
+    @Query("SELECT sl.id, sl.operation FROM SystemLog sl WHERE sl.id > :afterId AND sl.createdAt >= :from ORDER BY sl.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId,
+                                       @Param("from") LocalDateTime from,
+                                       Pageable pageable);
 
     // 分页查询日志
     Page<SystemLog> findAll(Pageable pageable);
 
+    // 游标分页：第一页日志（按创建时间、ID倒序）
+    @Query("SELECT sl FROM SystemLog sl JOIN FETCH sl.user ORDER BY sl.createdAt DESC, sl.id DESC")
+    List<SystemLog> findFirstPage(Pageable pageable);
+
+    // 游标分页：游标之后的日志
+    @Query("SELECT sl FROM SystemLog sl JOIN FETCH sl.user " +
+            "WHERE sl.createdAt < :createdAt OR (sl.createdAt = :createdAt AND sl.id < :id) " +
+            "ORDER BY sl.createdAt DESC, sl.id DESC")
+    List<SystemLog> findAfterCursor(@Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
     // 统计日志数量
     @Query("SELECT COUNT(sl) FROM SystemLog sl")
     Long countAll();
@@ -0,0 +1,82 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.dto.RatingSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户收到的评价汇总
+ * 每个被评价者一行，保存有评分的评价数、评分合计和全部评价数；评价新增、修改评分或删除时
+ * 在同一事务中增减，平均评分由合计除以数量得出，查询时按主键读取。
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserRatingRepository {
+
+    private static final String ADD_SQL = "INSERT INTO user_rating (user_id, rating_count, rating_sum, evaluation_count) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE rating_count = rating_count + VALUES(rating_count), " +
+            "rating_sum = rating_sum + VALUES(rating_sum), evaluation_count = evaluation_count + VALUES(evaluation_count)";
+
+    private static final String SELECT_SQL = "SELECT user_id, rating_count, rating_sum, evaluation_count FROM user_rating ";
+
+    private static final String[] REBUILD_SQL = {
+            "DELETE FROM user_rating",
+            "INSERT INTO user_rating (user_id, rating_count, rating_sum, evaluation_count) " +
+                    "SELECT e.to_user_id, COUNT(e.rating), COALESCE(SUM(e.rating), 0), COUNT(*) FROM evaluation e " +
+                    "GROUP BY e.to_user_id"
+    };
+
+    private static final RowMapper<RatingSummaryDTO> ROW_MAPPER = (rs, rowNum) -> RatingSummaryDTO.of(
+            rs.getLong("user_id"), rs.getLong("rating_count"), rs.getLong("rating_sum"), rs.getLong("evaluation_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 增减被评价者的汇总，参数为变化量
+     */
+    public void add(Long userId, long ratingCount, long ratingSum, long evaluationCount) {
+        if (ratingCount == 0 && ratingSum == 0 && evaluationCount == 0) {
+            return;
+        }
+        jdbcTemplate.update(ADD_SQL, userId, ratingCount, ratingSum, evaluationCount);
+    }
+
+    /**
+     * 读取用户的汇总，没有收到过评价时各项为0
+     */
+    public RatingSummaryDTO find(Long userId) {
+        List<RatingSummaryDTO> rows = jdbcTemplate.query(SELECT_SQL + "WHERE user_id = ?", ROW_MAPPER, userId);
+        return rows.isEmpty() ? RatingSummaryDTO.of(userId, 0, 0, 0) : rows.get(0);
+    }
+
+    /**
+     * 一次读取多个用户的汇总，没有收到过评价的用户不在结果中
+     */
+    public Map<Long, RatingSummaryDTO> findAll(Collection<Long> userIds) {
+        Map<Long, RatingSummaryDTO> summaries = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return summaries;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        for (RatingSummaryDTO summary : jdbcTemplate.query(SELECT_SQL + "WHERE user_id IN (" + placeholders + ")",
+                ROW_MAPPER, userIds.toArray())) {
+            summaries.put(summary.getUserId(), summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * 按全部评价重新计算汇总，需在事务中调用
+     */
+    public void rebuild() {
+        jdbcTemplate.batchUpdate(REBUILD_SQL);
+    }
+}
@@ -44,9 +44,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // 根据邮箱查找用户
     Optional<User> findByEmail(String email);
 
-    // 根据用户名或真实姓名模糊查询
-    @Query("SELECT u FROM User u WHERE u.username LIKE %:keyword% OR u.realName LIKE %:keyword%")
-    List<User> findByUsernameOrRealNameContaining(@Param("keyword") String keyword);
+    // 搜索索引加载用户：[id, username, realName, userType, campusId, gender, age]
+    @Query("SELECT u.id, u.username, u.realName, u.userType, c.id, u.gender, u.age FROM User u LEFT JOIN u.campus c")
+    List<Object[]> findSearchRows();
 
     // 统计校区内的用户数量
     Long countByCampusId(Long campusId);
@@ -58,6 +58,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Long countByStatus(UserStatus status);
 
+    // 按用户类型和状态分组统计用户数量，返回 [userType, status, count]
+    @Query("SELECT u.userType, u.status, COUNT(u) FROM User u GROUP BY u.userType, u.status")
+    List<Object[]> countGroupByUserTypeAndStatus();
+
 
     /**
      * 根据用户类型和校区ID分页获取用户列表
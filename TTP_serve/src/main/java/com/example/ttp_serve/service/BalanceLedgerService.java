@@ -0,0 +1,63 @@
+package com.example.ttp_serve.service;
+
+import com.example.ttp_serve.dto.BalanceMismatchDTO;
+import com.example.ttp_serve.entity.BalanceLedger;
+import com.example.ttp_serve.entity.Payment;
+import com.example.ttp_serve.enums.LedgerEntryType;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 学员余额流水服务
+ * 所有余额变动都通过单条条件 UPDATE 完成，并追加一条流水
+ */
+public interface BalanceLedgerService {
+
+    /**
+     * 增加学员余额
+     * @param studentId 学员ID
+     * @param amount 增加的金额，必须大于0
+     * @param type 流水类型
+     * @param payment 关联的支付记录，可为空
+     * @return 新增的流水
+     */
+    BalanceLedger credit(Long studentId, BigDecimal amount, LedgerEntryType type, Payment payment);
+
+    /**
+     * 扣减学员余额，余额不足时抛出业务异常且不做任何修改
+     * @param studentId 学员ID
+     * @param amount 扣减的金额，必须大于0
+     * @param type 流水类型
+     * @param payment 关联的支付记录，可为空
+     * @return 新增的流水
+     */
+    BalanceLedger debit(Long studentId, BigDecimal amount, LedgerEntryType type, Payment payment);
+
+    /**
+     * 记录学员的期初余额（注册时设置的初始余额），不修改余额
+     * @param studentId 学员ID
+     * @param balance 期初余额
+     */
+    void recordOpeningBalance(Long studentId, BigDecimal balance);
+
+    /**
+     * 支付记录是否已经产生过余额流水，用于避免同一笔支付重复入账
+     * @param payment 支付记录
+     * @return 已入账返回 true
+     */
+    boolean isPosted(Payment payment);
+
+    /**
+     * 查询学员的余额流水
+     * @param studentId 学员ID
+     * @return 按时间倒序的流水列表
+     */
+    List<BalanceLedger> getLedger(Long studentId);
+
+    /**
+     * 核对所有学员的余额是否等于流水之和
+     * @return 不一致的学员列表
+     */
+    List<BalanceMismatchDTO> reconcile();
+}
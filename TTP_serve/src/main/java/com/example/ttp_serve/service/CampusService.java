@@ -34,8 +34,8 @@ public interface CampusService {
     // 根据父校区ID获取子校区
     List<CampusResponseDTO> getChildCampuses(Long parentId);
 
-    // 根据名称搜索校区
-    List<CampusResponseDTO> searchCampusesByName(String name);
+    // 按名称或地址搜索校区，结果按匹配程度排序
+    Page<CampusResponseDTO> searchCampuses(String keyword, Pageable pageable);
 
     // 统计校区数量
     Long countCampuses();
@@ -55,4 +55,6 @@ public interface CampusService {
     List<CampusResponseDTO> getCampusTree();
 
     CampusStatsDTO getCampusStats(Long campusId);
+
+    List<CampusStatsDTO> getAllCampusStats();
 }
\ No newline at end of file
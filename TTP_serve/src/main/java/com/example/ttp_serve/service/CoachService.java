@@ -1,8 +1,11 @@
 package com.example.ttp_serve.service;
 
 import com.example.ttp_serve.dto.CoachDTO;
+import com.example.ttp_serve.dto.CoachFilterDTO;
 import com.example.ttp_serve.enums.CoachLevel;
 import com.example.ttp_serve.entity.Coach;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -14,9 +17,18 @@ public interface CoachService {
      * @param gender 性别(可选)
      * @param age 年龄(可选)
      * @param campusId 校区ID
-     * @return 符合条件的教练DTO列表
+     * @param pageable 分页参数
+     * @return 符合条件的教练DTO分页，按姓名的匹配程度排序
      */
-    List<CoachDTO> findCoachesByCriteria(String name, String gender, Integer age, Long campusId);
+    Page<CoachDTO> findCoachesByCriteria(String name, String gender, Integer age, Long campusId, Pageable pageable);
+
+    /**
+     * 按级别、性别、年龄范围、校区、是否有名额和价格区间筛选教练，数据来自内存中的教练目录
+     * @param filter 筛选条件
+     * @param pageable 分页和排序参数，可按 hourlyRate、averageRating、ratingCount、age、currentStudents 排序
+     * @return 符合条件的教练DTO分页
+     */
+    Page<CoachDTO> findCoaches(CoachFilterDTO filter, Pageable pageable);
 
     /**
      * 获取校区所有教练
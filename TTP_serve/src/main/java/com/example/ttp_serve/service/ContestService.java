@@ -1,5 +1,7 @@
 package com.example.ttp_serve.service;
 
+import com.example.ttp_serve.dto.ContestBracketDTO;
+import com.example.ttp_serve.dto.ContestScheduleResultDTO;
 import com.example.ttp_serve.entity.ContestEnrollment;
 import com.example.ttp_serve.entity.ContestSchedule;
 import com.example.ttp_serve.entity.MonthlyContest;
@@ -63,8 +65,8 @@ public interface ContestService {
     // 获取学员的比赛安排
     List<ContestSchedule> getSchedulesByPlayer(Long playerId);
 
-    // 生成比赛安排
-    void generateContestSchedule(Long contestId, ContestGroup groupType);
+    // 生成比赛安排，返回生成的比赛安排ID和耗时
+    ContestScheduleResultDTO generateContestSchedule(Long contestId, ContestGroup groupType);
 
     // 统计月赛的报名人数
     Long countEnrollmentsByContest(Long contestId);
@@ -72,6 +74,9 @@ public interface ContestService {
     // 统计月赛组别的报名人数
     Long countEnrollmentsByGroup(Long contestId, ContestGroup groupType);
 
-    // 更新比赛结果
+    // 更新比赛结果，并生成受影响的下一场淘汰赛
     ContestSchedule updateMatchResult(Long scheduleId, Long winnerId);
+
+    // 获取组别的小组名次和淘汰赛对阵
+    ContestBracketDTO getBracket(Long contestId, ContestGroup groupType);
 }
\ No newline at end of file
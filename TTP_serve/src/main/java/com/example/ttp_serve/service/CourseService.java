@@ -1,5 +1,9 @@
 package com.example.ttp_serve.service;
 
+import com.example.ttp_serve.dto.CourseBatchRequestDTO;
+import com.example.ttp_serve.dto.CourseBatchResultDTO;
+import com.example.ttp_serve.dto.CourseDTO;
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.CourseRequestDTO;
 import com.example.ttp_serve.entity.Course;
 import com.example.ttp_serve.enums.CourseStatus;
@@ -8,6 +12,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.math.BigDecimal;
@@ -37,6 +43,9 @@ public interface CourseService {
     // 获取教练的课程
     List<Course> getCoursesByCoach(Long coachId);
 
+    // 获取教练的课程DTO列表（单次关联查询）
+    List<CourseDTO> getCourseDTOsByCoach(Long coachId);
+
     // 获取学员的课程
     List<Course> getCoursesByStudent(Long studentId);
 
@@ -76,6 +85,9 @@ public interface CourseService {
     // 分页获取所有课程
     Page<Course> getAllCourses(Pageable pageable);
 
+    // 按游标分页获取课程DTO，withTotal为true时才统计总数
+    CursorPage<CourseDTO> getCourseDTOsByCursor(String cursor, int size, boolean withTotal);
+
     // 获取即将开始的课程（用于提醒）
     List<Course> getUpcomingCourses(int hours);
 
@@ -83,12 +95,26 @@ public interface CourseService {
     @Transactional
     void completeExpiredCourses(Long userId);
 
+    // 将一批已结束的已确认课程标记为已完成，返回更新的行数
+    @Transactional
+    int completeExpiredCoursesChunk(LocalDateTime currentTime, int chunkSize);
+
     // 获取需要评价的课程
-    List<Course> getCoursesNeedEvaluation(Long userId);
+    List<CourseDTO> getCoursesNeedEvaluation(Long userId);
 
     // 使用DTO创建课程预约
     Course createCourseFromRequest(CourseRequestDTO courseRequest);
 
+    /**
+     * 批量创建课程预约
+     * 教练、学员、球台只加载一次，所有时间段之间以及与已有预约之间的冲突在一次范围查询后于内存中判断，
+     * 无冲突的课程在同一事务中批量插入
+     *
+     * @param batchRequest 批量预约请求（逐条时间或重复规则）
+     * @return 每条课程的预约结果
+     */
+    CourseBatchResultDTO createCoursesBatch(CourseBatchRequestDTO batchRequest);
+
     // 使用DTO更新课程信息
     Course updateCourseFromRequest(Long id, CourseRequestDTO courseRequest);
 
@@ -142,17 +168,34 @@ public interface CourseService {
     Long countTodayConfirmedCoursesByCampus(Long campusId);
     
     /**
-     * 获取所有课程列表
-     * 
-     * @return 所有课程列表
+     * 获取所有课程DTO列表（单次关联查询）
+     *
+     * @return 按创建时间降序排列的课程DTO列表
      */
-    List<Course> getAllCoursesList();
-    
+    List<CourseDTO> getAllCourseDTOs();
+
     /**
-     * 根据校区ID获取所有课程
-     * 
+     * 将课程逐行写出为CSV，不在内存中保留整个结果集
+     *
+     * @param start 开始时间下限，为空时导出全部课程
+     * @param end 开始时间上限，为空时导出全部课程
+     * @param out 输出流
+     */
+    void exportCoursesCsv(LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException;
+
+    /**
+     * 根据校区ID获取所有课程DTO（单次关联查询）
+     *
+     * @param campusId 校区ID
+     * @return 指定校区的所有课程DTO列表
+     */
+    List<CourseDTO> getCourseDTOsByCampusId(Long campusId);
+
+    /**
+     * 获取指定校区及其全部下级校区的课程DTO（按校区ID列表单次查询）
+     *
      * @param campusId 校区ID
-     * @return 指定校区的所有课程列表
+     * @return 校区及下级校区的所有课程DTO列表
      */
-    List<Course> getCoursesByCampusId(Long campusId);
+    List<CourseDTO> getCourseDTOsByCampusSubtree(Long campusId);
 }
\ No newline at end of file
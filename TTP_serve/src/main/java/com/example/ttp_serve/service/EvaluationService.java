@@ -3,12 +3,15 @@ package com.example.ttp_serve.service;
 import com.example.ttp_serve.dto.EvaluationCreateDto;
 import com.example.ttp_serve.dto.EvaluationDto;
 import com.example.ttp_serve.dto.EvaluationUpdateDTO;
+import com.example.ttp_serve.dto.RatingSummaryDTO;
 import com.example.ttp_serve.entity.Evaluation;
 import com.example.ttp_serve.enums.EvaluationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface EvaluationService {
 
@@ -54,6 +57,12 @@ public interface EvaluationService {
     // 统计被评价者的评价数量
     Long countEvaluationsByToUser(Long userId);
 
+    // 批量获取用户的评价汇总，按传入顺序返回，没有评价的用户各项为0
+    Map<Long, RatingSummaryDTO> getRatingSummaries(Collection<Long> userIds);
+
+    // 按全部评价重新计算评价汇总
+    void rebuildRatingSummaries();
+
     // 检查是否已存在评价
     boolean existsEvaluationByCourseAndFromUser(Long courseId, Long fromUserId, EvaluationType type);
 
@@ -1,5 +1,6 @@
 package com.example.ttp_serve.service;
 
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.PaymentRequestDTO;
 import com.example.ttp_serve.entity.Payment;
 import com.example.ttp_serve.enums.PaymentMethod;
@@ -8,6 +9,8 @@ import com.example.ttp_serve.enums.PaymentType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -56,6 +59,9 @@ public interface PaymentService {
     // 分页获取日期范围内的支付记录
     Page<Payment> getPaymentsByDateRange(LocalDateTime start, LocalDateTime end, Pageable pageable);
 
+    // 将日期范围内的支付记录逐行写出为CSV，不在内存中保留整个结果集
+    void exportPaymentsCsv(LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException;
+
     // 获取用户在日期范围内的支付记录
     List<Payment> getUserPaymentsByDateRange(Long userId, LocalDateTime start, LocalDateTime end);
     
@@ -65,6 +71,9 @@ public interface PaymentService {
     // 分页获取支付记录
     Page<Payment> getPayments(Pageable pageable);
 
+    // 按游标分页获取支付记录，withTotal为true时才统计总数
+    CursorPage<Payment> getPaymentsByCursor(String cursor, int size, boolean withTotal);
+
     // 处理支付成功
     Payment processPaymentSuccess(String orderId);
 
@@ -80,6 +89,9 @@ public interface PaymentService {
     // 获取校区支付总额
     BigDecimal getCampusTotalPayment(Long campusId);
 
+    // 按全部成功支付记录重新计算用户、类型和校区的支付总额
+    void rebuildPaymentTotals();
+
     // 统计支付记录数量
     Long countPayments();
 
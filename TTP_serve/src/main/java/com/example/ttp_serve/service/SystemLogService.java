@@ -1,5 +1,7 @@
 package com.example.ttp_serve.service;
 
+import com.example.ttp_serve.dto.CursorPage;
+import com.example.ttp_serve.dto.SystemLogWriterStatsDTO;
 import com.example.ttp_serve.entity.SystemLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,11 +12,14 @@ import java.util.List;
 public interface SystemLogService {
 
     SystemLog createLog(SystemLog log);
+    void submitLog(String username, String module, String operation, String ipAddress);
     SystemLog getLog(Long id);
     List<SystemLog> getLogsByUser(Long userId);
     List<SystemLog> getLogsByModule(String module);
     List<SystemLog> getLogsByDateRange(LocalDateTime start, LocalDateTime end);
     Page<SystemLog> getLogs(Pageable pageable);
-    List<SystemLog> searchLogs(String keyword);
+    CursorPage<SystemLog> getLogsByCursor(String cursor, int size, boolean withTotal);
+    Page<SystemLog> searchLogs(String keyword, Pageable pageable);
     Long countLogs();
+    SystemLogWriterStatsDTO getWriterStats();
 }
\ No newline at end of file
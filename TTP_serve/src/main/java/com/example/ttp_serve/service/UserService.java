@@ -45,7 +45,7 @@ public interface UserService {
     List<User> getUsersByTypeAndCampusId(UserType userType, Long campusId);
 
     // 根据关键字搜索用户
-    List<User> searchUsers(String keyword);
+    Page<User> searchUsers(String keyword, Pageable pageable);
 
     // 更新用户状态
     User updateUserStatus(Long id, UserStatus status);
@@ -1,5 +1,8 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CoachDirectory;
+import com.example.ttp_serve.cache.SearchIndexes;
+import com.example.ttp_serve.cache.TokenRevocationStore;
 import com.example.ttp_serve.dto.LoginRequest;
 import com.example.ttp_serve.dto.RegisterRequest;
 import com.example.ttp_serve.entity.Campus;
@@ -16,7 +19,9 @@ import com.example.ttp_serve.repository.StudentRepository;
 import com.example.ttp_serve.repository.UserRepository;
 import com.example.ttp_serve.repository.CampusRepository;
 import com.example.ttp_serve.service.AuthService;
+import com.example.ttp_serve.service.BalanceLedgerService;
 import com.example.ttp_serve.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,8 +37,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -48,9 +51,12 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final BalanceLedgerService balanceLedgerService;
 
-    // 存储已注销的令牌（在实际应用中，应使用Redis等分布式缓存）
-    private final Map<String, Long> revokedTokens = new HashMap<>();
+    // 已注销令牌存储（多实例部署时应替换为Redis等分布式缓存）
+    private final TokenRevocationStore tokenRevocationStore;
+    private final SearchIndexes searchIndexes;
+    private final CoachDirectory coachDirectory;
 
 
     @Override
@@ -172,6 +178,13 @@ public class AuthServiceImpl implements AuthService {
 
         // 保存用户
         User savedUser = userRepository.save(user);
+        searchIndexes.syncAfterCommit(savedUser);
+        coachDirectory.refreshAfterCommit(savedUser);
+
+        // 初始余额作为期初流水记录，保证余额等于流水之和
+        if (savedUser instanceof Student student) {
+            balanceLedgerService.recordOpeningBalance(student.getId(), student.getBalance());
+        }
 
         return savedUser;
     }
@@ -180,17 +193,18 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public String refreshToken(String token) {
         // 验证令牌是否有效
-        if (!jwtUtil.validateToken(token)) {
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null) {
             throw new RuntimeException("无效的令牌");
         }
 
         // 检查令牌是否已被注销
-        if (revokedTokens.containsKey(token)) {
+        if (tokenRevocationStore.isRevoked(claims, token)) {
             throw new RuntimeException("令牌已失效");
         }
 
         // 从令牌中提取用户名
-        String username = jwtUtil.getUsernameFromToken(token);
+        String username = claims.getSubject();
 
         // 加载用户信息 - 使用 userDetailsService
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -206,20 +220,14 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public void logout(String token) {
-        // 从令牌中提取用户名
-        String username = jwtUtil.getUsernameFromToken(token);
-
-        // 查找用户ID
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            // 将令牌加入注销列表（设置有效期为令牌剩余时间）
-            long expiration = jwtUtil.getExpirationFromToken(token);
-            long currentTime = System.currentTimeMillis() / 1000;
-            long ttl = expiration - currentTime;
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null) {
+            throw new RuntimeException("无效的令牌");
+        }
 
-            if (ttl > 0) {
-                revokedTokens.put(token, expiration);
-            }
+        // 将令牌加入注销列表（记录保留到令牌过期为止）
+        if (userRepository.existsByUsername(claims.getSubject())) {
+            tokenRevocationStore.revoke(claims, token);
         }
 
         // 清除安全上下文
@@ -228,12 +236,10 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public boolean validateToken(String token) {
-        // 检查令牌是否已被注销
-        if (revokedTokens.containsKey(token)) {
-            return false;
-        }
+        Claims claims = jwtUtil.parseClaims(token);
 
-        return jwtUtil.validateToken(token);
+        // 检查令牌是否有效且未被注销
+        return claims != null && !tokenRevocationStore.isRevoked(claims, token);
     }
 
     @Override
@@ -321,10 +327,9 @@ public class AuthServiceImpl implements AuthService {
     }
 
     /**
-     * 清理过期的注销令牌
+     * 清理过期的注销令牌（存储本身也会定时清理）
      */
     public void cleanupRevokedTokens() {
-        long currentTime = System.currentTimeMillis() / 1000;
-        revokedTokens.entrySet().removeIf(entry -> entry.getValue() < currentTime);
+        tokenRevocationStore.evictExpired();
     }
 }
\ No newline at end of file
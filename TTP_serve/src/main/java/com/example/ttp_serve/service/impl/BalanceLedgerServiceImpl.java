@@ -0,0 +1,110 @@
+package com.example.ttp_serve.service.impl;
+
+import com.example.ttp_serve.dto.BalanceMismatchDTO;
+import com.example.ttp_serve.entity.BalanceLedger;
+import com.example.ttp_serve.entity.Payment;
+import com.example.ttp_serve.enums.LedgerEntryType;
+import com.example.ttp_serve.exception.BusinessException;
+import com.example.ttp_serve.exception.ResourceNotFoundException;
+import com.example.ttp_serve.repository.BalanceLedgerRepository;
+import com.example.ttp_serve.repository.StudentRepository;
+import com.example.ttp_serve.service.BalanceLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 学员余额流水服务实现类
+ * 余额的检查和修改在同一条 UPDATE 中完成，数据库行锁保证并发扣款不会透支；
+ * 流水中的变动后余额在持有行锁时读取，与流水顺序一致。
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerServiceImpl implements BalanceLedgerService {
+
+    private final StudentRepository studentRepository;
+    private final BalanceLedgerRepository balanceLedgerRepository;
+
+    @Override
+    @Transactional
+    public BalanceLedger credit(Long studentId, BigDecimal amount, LedgerEntryType type, Payment payment) {
+        checkAmount(amount);
+        if (studentRepository.updateBalance(studentId, amount) == 0) {
+            throw new ResourceNotFoundException("学员ID '" + studentId + "' 不存在");
+        }
+        return append(studentId, amount, type, payment);
+    }
+
+    @Override
+    @Transactional
+    public BalanceLedger debit(Long studentId, BigDecimal amount, LedgerEntryType type, Payment payment) {
+        checkAmount(amount);
+        if (studentRepository.debitBalance(studentId, amount) == 0) {
+            if (!studentRepository.existsById(studentId)) {
+                throw new ResourceNotFoundException("学员ID '" + studentId + "' 不存在");
+            }
+            throw new BusinessException("学员余额不足");
+        }
+        return append(studentId, amount.negate(), type, payment);
+    }
+
+    @Override
+    @Transactional
+    public void recordOpeningBalance(Long studentId, BigDecimal balance) {
+        if (balance == null || balance.signum() == 0) {
+            return;
+        }
+        BalanceLedger ledger = new BalanceLedger();
+        ledger.setStudent(studentRepository.getReferenceById(studentId));
+        ledger.setAmount(balance);
+        ledger.setBalanceAfter(balance);
+        ledger.setEntryType(LedgerEntryType.OPENING);
+        balanceLedgerRepository.save(ledger);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isPosted(Payment payment) {
+        return payment.getId() != null && balanceLedgerRepository.existsByPaymentId(payment.getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BalanceLedger> getLedger(Long studentId) {
+        if (!studentRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("学员ID '" + studentId + "' 不存在");
+        }
+        return balanceLedgerRepository.findByStudentId(studentId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BalanceMismatchDTO> reconcile() {
+        return balanceLedgerRepository.findBalanceMismatches().stream()
+                .map(row -> new BalanceMismatchDTO(
+                        ((Number) row[0]).longValue(),
+                        (BigDecimal) row[1],
+                        (BigDecimal) row[2]))
+                .collect(Collectors.toList());
+    }
+
+    private BalanceLedger append(Long studentId, BigDecimal amount, LedgerEntryType type, Payment payment) {
+        BalanceLedger ledger = new BalanceLedger();
+        ledger.setStudent(studentRepository.getReferenceById(studentId));
+        ledger.setPayment(payment);
+        ledger.setAmount(amount);
+        ledger.setBalanceAfter(studentRepository.findBalanceById(studentId));
+        ledger.setEntryType(type);
+        return balanceLedgerRepository.save(ledger);
+    }
+
+    private static void checkAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException("变动金额必须大于0");
+        }
+    }
+}
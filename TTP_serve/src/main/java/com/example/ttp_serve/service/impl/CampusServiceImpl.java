@@ -1,25 +1,29 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CampusHierarchy;
+import com.example.ttp_serve.cache.CoachDirectory;
+import com.example.ttp_serve.cache.SearchIndexes;
 import com.example.ttp_serve.dto.CampusRequestDTO;
 import com.example.ttp_serve.dto.CampusResponseDTO;
 import com.example.ttp_serve.dto.CampusStatsDTO;
 import com.example.ttp_serve.entity.Campus;
 import com.example.ttp_serve.entity.User;
-import com.example.ttp_serve.enums.UserType;
 import com.example.ttp_serve.exception.DuplicateResourceException;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.exception.BusinessException;
 import com.example.ttp_serve.repository.CampusRepository;
 import com.example.ttp_serve.repository.UserRepository;
 import com.example.ttp_serve.service.CampusService;
+import com.example.ttp_serve.util.CampusTree;
+import com.example.ttp_serve.util.SearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -30,6 +34,9 @@ public class CampusServiceImpl implements CampusService {
 
     private final CampusRepository campusRepository;
     private final UserRepository userRepository;
+    private final SearchIndexes searchIndexes;
+    private final CampusHierarchy campusHierarchy;
+    private final CoachDirectory coachDirectory;
 
     @Override
     public List<CampusResponseDTO> getAllCampuses() {
@@ -82,6 +89,8 @@ public class CampusServiceImpl implements CampusService {
         campus.setUpdatedAt(LocalDateTime.now());
 
         Campus savedCampus = campusRepository.save(campus);
+        searchIndexes.syncAfterCommit(savedCampus);
+        campusHierarchy.invalidateAfterCommit();
         return convertToDTO(savedCampus);
     }
 
@@ -136,6 +145,9 @@ public class CampusServiceImpl implements CampusService {
         existingCampus.setUpdatedAt(LocalDateTime.now());
 
         Campus updatedCampus = campusRepository.save(existingCampus);
+        searchIndexes.syncAfterCommit(updatedCampus);
+        campusHierarchy.invalidateAfterCommit();
+        coachDirectory.refreshCampusAfterCommit(id);
         return convertToDTO(updatedCampus);
     }
 
@@ -158,25 +170,28 @@ public class CampusServiceImpl implements CampusService {
         }
 
         campusRepository.delete(campus);
+        searchIndexes.removeCampusAfterCommit(id);
+        campusHierarchy.invalidateAfterCommit();
     }
 
     @Override
     public List<CampusResponseDTO> getTopLevelCampuses() {
-        List<Campus> campuses = campusRepository.findByParentIsNull();
-        return campuses.stream().map(this::convertToDTO).collect(Collectors.toList());
+        CampusTree tree = campusHierarchy.tree();
+        return tree.roots().stream().map(node -> convertToDTO(tree, node)).collect(Collectors.toList());
     }
 
     @Override
     public List<CampusResponseDTO> getChildCampuses(Long parentId) {
-        List<Campus> campuses = campusRepository.findByParentId(parentId);
-        return campuses.stream().map(this::convertToDTO).collect(Collectors.toList());
+        CampusTree tree = campusHierarchy.tree();
+        return tree.children(parentId).stream().map(node -> convertToDTO(tree, node)).collect(Collectors.toList());
     }
 
     @Override
-    public List<CampusResponseDTO> searchCampusesByName(String name) {
-        Optional<Campus> campusOpt = campusRepository.findByName(name);
-        return campusOpt.map(campus -> Collections.singletonList(convertToDTO(campus)))
-                .orElse(Collections.emptyList());
+    public Page<CampusResponseDTO> searchCampuses(String keyword, Pageable pageable) {
+        SearchIndex.Hits hits = searchIndexes.searchCampuses(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        List<Campus> campuses = hits.order(campusRepository.findAllById(hits.ids()), Campus::getId);
+        return new PageImpl<>(campuses.stream().map(this::convertToDTO).collect(Collectors.toList()),
+                pageable, hits.total());
     }
 
     @Override
@@ -202,48 +217,31 @@ public class CampusServiceImpl implements CampusService {
 
     @Override
     public List<CampusResponseDTO> getCampusWithChildren(Long campusId) {
-        Campus campus = campusRepository.findById(campusId)
-                .orElseThrow(() -> new ResourceNotFoundException("校区ID '" + campusId + "' 不存在"));
+        CampusTree tree = campusHierarchy.tree();
+        if (!tree.contains(campusId)) {
+            throw new ResourceNotFoundException("校区ID '" + campusId + "' 不存在");
+        }
 
         // 获取所有子校区（包括子校区的子校区）
-        List<Campus> allChildren = getAllChildren(campus);
-        return allChildren.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return tree.descendants(campusId).stream().map(node -> convertToDTO(tree, node)).collect(Collectors.toList());
     }
 
     @Override
     public List<CampusResponseDTO> getCampusTree() {
-        List<Campus> topLevelCampuses = campusRepository.findByParentIsNull();
-        return topLevelCampuses.stream().map(this::convertToTreeDTO).collect(Collectors.toList());
+        CampusTree tree = campusHierarchy.tree();
+        return tree.roots().stream().map(node -> convertToTreeDTO(tree, node)).collect(Collectors.toList());
     }
 
     @Override
     public CampusStatsDTO getCampusStats(Long campusId) {
-        Campus campus = campusRepository.findById(campusId)
+        // 用户数、学员数、教练数、管理员数和子校区数在一条查询中统计
+        return campusRepository.findCampusStats(campusId)
                 .orElseThrow(() -> new ResourceNotFoundException("校区ID '" + campusId + "' 不存在"));
+    }
 
-        CampusStatsDTO stats = new CampusStatsDTO();
-        stats.setCampusId(campusId);
-        stats.setCampusName(campus.getName());
-
-        // 统计用户数量
-        stats.setUserCount(userRepository.countByCampusId(campusId));
-
-        // 统计学员数量
-        stats.setStudentCount(userRepository.countByCampusIdAndUserType(campusId, UserType.STUDENT));
-
-        // 统计教练数量
-        stats.setCoachCount(userRepository.countByCampusIdAndUserType(campusId, UserType.COACH));
-
-        // 统计管理员数量
-        stats.setAdminCount(userRepository.countByCampusIdAndUserTypeIn(
-                campusId,
-                List.of(UserType.SUPER_ADMIN, UserType.CAMPUS_ADMIN)
-        ));
-
-        // 统计子校区数量
-        stats.setChildCampusCount(campusRepository.countByParentId(campusId));
-
-        return stats;
+    @Override
+    public List<CampusStatsDTO> getAllCampusStats() {
+        return campusRepository.findAllCampusStats();
     }
 
     /**
@@ -269,70 +267,49 @@ public class CampusServiceImpl implements CampusService {
     }
 
     /**
-     * 将Campus实体转换为树形结构的CampusResponseDTO
+     * 将校区层级缓存中的校区转换为CampusResponseDTO
      */
-    private CampusResponseDTO convertToTreeDTO(Campus campus) {
-        CampusResponseDTO dto = convertToDTO(campus);
-
-        // 递归转换子校区
-        if (campus.getChildren() != null && !campus.getChildren().isEmpty()) {
-            List<CampusResponseDTO> childrenDTOs = campus.getChildren().stream()
-                    .map(this::convertToTreeDTO)
-                    .collect(Collectors.toList());
-            dto.setChildren(childrenDTOs);
+    private CampusResponseDTO convertToDTO(CampusTree tree, CampusTree.Node node) {
+        CampusResponseDTO dto = new CampusResponseDTO();
+        dto.setId(node.id());
+        dto.setName(node.name());
+        dto.setAddress(node.address());
+        dto.setContactPerson(node.contactPerson());
+        dto.setContactPhone(node.contactPhone());
+        dto.setEmail(node.email());
+        dto.setCreatedAt(node.createdAt());
+        dto.setUpdatedAt(node.updatedAt());
+
+        CampusTree.Node parent = tree.get(node.parentId());
+        if (parent != null) {
+            dto.setParentId(parent.id());
+            dto.setParentName(parent.name());
         }
 
         return dto;
     }
 
     /**
-     * 检查是否形成循环引用
+     * 将校区转换为树形结构的CampusResponseDTO
      */
-    private boolean isCircularReference(Campus campus, Campus potentialParent) {
-        // 如果校区和潜在父校区是同一个，则形成循环引用
-        if (campus.getId() != null && campus.getId().equals(potentialParent.getId())) {
-            return true;
-        }
-
-        // 检查潜在父校区的父级是否包含当前校区
-        Campus currentParent = potentialParent.getParent();
-        while (currentParent != null) {
-            if (currentParent.getId().equals(campus.getId())) {
-                return true;
-            }
-            currentParent = currentParent.getParent();
-        }
-
-        return false;
-    }
-
-    /**
-     * 递归获取所有子校区
-     */
-    private List<Campus> getAllChildren(Campus campus) {
-        List<Campus> allChildren = new java.util.ArrayList<>();
+    private CampusResponseDTO convertToTreeDTO(CampusTree tree, CampusTree.Node node) {
+        CampusResponseDTO dto = convertToDTO(tree, node);
 
-        // 获取直接子校区
-        List<Campus> directChildren = campusRepository.findByParentId(campus.getId());
-        allChildren.addAll(directChildren);
-
-        // 递归获取子校区的子校区
-        for (Campus child : directChildren) {
-            allChildren.addAll(getAllChildren(child));
+        // 递归转换子校区
+        List<CampusTree.Node> children = tree.children(node.id());
+        if (!children.isEmpty()) {
+            dto.setChildren(children.stream()
+                    .map(child -> convertToTreeDTO(tree, child))
+                    .collect(Collectors.toList()));
         }
 
-        return allChildren;
+        return dto;
     }
 
     /**
-     * 递归构建校区树形结构
+     * 检查是否形成循环引用：潜在父校区是当前校区自身或其下级校区
      */
-    private void buildCampusTree(Campus campus) {
-        List<Campus> children = campusRepository.findByParentId(campus.getId());
-        campus.setChildren(children);
-
-        for (Campus child : children) {
-            buildCampusTree(child);
-        }
+    private boolean isCircularReference(Campus campus, Campus potentialParent) {
+        return campus.getId() != null && campusHierarchy.tree().isInSubtree(campus.getId(), potentialParent.getId());
     }
 }
\ No newline at end of file
@@ -1,16 +1,26 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CoachDirectory;
+import com.example.ttp_serve.cache.SearchIndexes;
 import com.example.ttp_serve.dto.CoachDTO;
+import com.example.ttp_serve.dto.CoachFilterDTO;
+import com.example.ttp_serve.dto.RatingSummaryDTO;
 import com.example.ttp_serve.entity.Coach;
 import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.UserType;
 import com.example.ttp_serve.repository.CoachRepository;
+import com.example.ttp_serve.repository.UserRatingRepository;
 import com.example.ttp_serve.service.CoachService;
+import com.example.ttp_serve.util.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @Service
 public class CoachServiceImpl implements CoachService {
@@ -18,34 +28,63 @@ public class CoachServiceImpl implements CoachService {
     @Autowired
     private CoachRepository coachRepository;
 
+    @Autowired
+    private UserRatingRepository userRatingRepository;
+
+    @Autowired
+    private SearchIndexes searchIndexes;
+
+    @Autowired
+    private CoachDirectory coachDirectory;
+
     @Override
-    public List<CoachDTO> findCoachesByCriteria(String name, String gender, Integer age, Long campusId) {
+    public Page<CoachDTO> findCoachesByCriteria(String name, String gender, Integer age, Long campusId,
+                                                Pageable pageable) {
         // 验证至少有一个查询条件
         if (!StringUtils.hasText(name) && !StringUtils.hasText(gender) && age == null) {
             throw new IllegalArgumentException("至少需要提供一个查询条件");
         }
 
-        List<Coach> coaches = coachRepository.findByCriteria(name, gender, age, campusId);
-        return coaches.stream().map(this::convertToDTO).collect(Collectors.toList());
+        // 姓名走搜索索引，性别、年龄和校区在索引内过滤
+        SearchIndex.Hits hits = searchIndexes.searchUsers(name, user ->
+                        user.userType() == UserType.COACH
+                                && Objects.equals(user.campusId(), campusId)
+                                && (!StringUtils.hasText(gender) || (user.gender() != null && user.gender().name().equalsIgnoreCase(gender)))
+                                && (age == null || age.equals(user.age())),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(coachDirectory.get(hits.ids()), pageable, hits.total());
+    }
+
+    @Override
+    public Page<CoachDTO> findCoaches(CoachFilterDTO filter, Pageable pageable) {
+        return coachDirectory.find(filter, pageable);
     }
 
     @Override
     public List<CoachDTO> findAllCoachesByCampus(Long campusId) {
-        List<Coach> coaches = coachRepository.findByCampusId(campusId);
-        return coaches.stream().map(this::convertToDTO).collect(Collectors.toList());
+        CoachFilterDTO filter = new CoachFilterDTO();
+        filter.setCampusId(campusId);
+        return coachDirectory.find(filter, Pageable.unpaged()).getContent();
     }
 
     @Override
     public List<CoachDTO> getAllCoaches() {
-        List<Coach> coaches = coachRepository.findAll();
-        return coaches.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return coachDirectory.find(null, Pageable.unpaged()).getContent();
     }
 
     @Override
     public CoachDTO getCoachDetail(Long coachId) {
+        CoachDTO cached = coachDirectory.get(coachId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 目录中没有时（刚创建尚未同步）回退到数据库
         Coach coach = coachRepository.findById(coachId)
                 .orElseThrow(() -> new RuntimeException("未找到ID为 " + coachId + " 的教练"));
-        return convertToDTO(coach);
+        CoachDTO dto = convertToDTO(coach);
+        setRating(dto, userRatingRepository.find(coachId));
+        return dto;
     }
 
     @Override
@@ -55,12 +94,17 @@ public class CoachServiceImpl implements CoachService {
 
     @Override
     public Coach saveOrUpdateCoach(Coach coach) {
-        return coachRepository.save(coach);
+        Coach savedCoach = coachRepository.save(coach);
+        searchIndexes.syncAfterCommit(savedCoach);
+        coachDirectory.refreshAfterCommit(savedCoach.getId());
+        return savedCoach;
     }
 
     @Override
     public void deleteCoach(Long coachId) {
         coachRepository.deleteById(coachId);
+        searchIndexes.removeUserAfterCommit(coachId);
+        coachDirectory.refreshAfterCommit(coachId);
     }
 
     @Override
@@ -73,6 +117,11 @@ public class CoachServiceImpl implements CoachService {
         return coachRepository.countByCampusId(campusId);
     }
 
+    private void setRating(CoachDTO dto, RatingSummaryDTO rating) {
+        dto.setAverageRating(rating.getAverageRating());
+        dto.setRatingCount(rating.getRatingCount());
+    }
+
     /**
      * 将Coach实体转换为CoachDTO
      */
@@ -1,6 +1,7 @@
 // CoachStudentServiceImpl.java
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CoachDirectory;
 import com.example.ttp_serve.entity.Coach;
 import com.example.ttp_serve.entity.CoachStudentRelation;
 import com.example.ttp_serve.entity.Student;
@@ -25,6 +26,7 @@ public class CoachStudentServiceImpl implements CoachStudentService {
     private final CoachStudentRelationRepository relationRepository;
     private final CoachRepository coachRepository;
     private final StudentRepository studentRepository;
+    private final CoachDirectory coachDirectory;
 
     // 学员最多选择的教练数量
     private static final int MAX_COACHES_PER_STUDENT = 2;
@@ -94,6 +96,7 @@ public class CoachStudentServiceImpl implements CoachStudentService {
         Coach coach = relation.getCoach();
         coach.setCurrentStudents(coach.getCurrentStudents() + 1);
         coachRepository.save(coach);
+        coachDirectory.refreshAfterCommit(coach.getId());
 
         return relationRepository.save(relation);
     }
@@ -190,6 +193,7 @@ public class CoachStudentServiceImpl implements CoachStudentService {
             Coach coach = relation.getCoach();
             coach.setCurrentStudents(coach.getCurrentStudents() - 1);
             coachRepository.save(coach);
+            coachDirectory.refreshAfterCommit(coach.getId());
         }
 
         relationRepository.delete(relation);
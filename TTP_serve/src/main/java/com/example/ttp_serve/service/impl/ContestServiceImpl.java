@@ -1,21 +1,34 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.ContestLiveHub;
+import com.example.ttp_serve.dto.ContestBracketDTO;
+import com.example.ttp_serve.dto.ContestScheduleResultDTO;
 import com.example.ttp_serve.entity.*;
 import com.example.ttp_serve.enums.*;
 import com.example.ttp_serve.exception.BusinessException;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.repository.*;
 import com.example.ttp_serve.service.ContestService;
+import com.example.ttp_serve.util.ContestBracket;
+import com.example.ttp_serve.util.MatchScheduler;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +41,24 @@ public class ContestServiceImpl implements ContestService {
     private final StudentRepository studentRepository;
     private final UserRepository userRepository;
     private final CourtRepository courtRepository;
+    private final CourseRepository courseRepository;
+    private final ContestScheduleBatchRepository scheduleBatchRepository;
+    private final ContestLiveHub contestLiveHub;
+
+    // 每场比赛占用球台的时长（分钟）
+    @Value("${app.contest.match-minutes:30}")
+    private int matchMinutes;
+
+    // 每天比赛的开始和结束时间，当天排不完时顺延到次日
+    @Value("${app.contest.day-start:09:00}")
+    private String contestDayStart;
+
+    @Value("${app.contest.day-end:21:00}")
+    private String contestDayEnd;
+
+    // 每个小组进入淘汰赛的人数
+    @Value("${app.contest.knockout-per-group:2}")
+    private int knockoutPerGroup;
 
     @Override
     @Transactional
@@ -219,7 +250,9 @@ public class ContestServiceImpl implements ContestService {
         schedule.setStatus(ContestScheduleStatus.PENDING);
         schedule.setCreatedAt(LocalDateTime.now());
 
-        return scheduleRepository.save(schedule);
+        ContestSchedule saved = scheduleRepository.save(schedule);
+        contestLiveHub.publishAfterCommit(contest.getId(), List.of(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -245,7 +278,9 @@ public class ContestServiceImpl implements ContestService {
             existingSchedule.setWinner(schedule.getWinner());
         }
 
-        return scheduleRepository.save(existingSchedule);
+        ContestSchedule saved = scheduleRepository.save(existingSchedule);
+        contestLiveHub.publishAfterCommit(existingSchedule.getContest().getId(), List.of(id));
+        return saved;
     }
 
     @Override
@@ -280,7 +315,8 @@ public class ContestServiceImpl implements ContestService {
 
     @Override
     @Transactional
-    public void generateContestSchedule(Long contestId, ContestGroup groupType) {
+    public ContestScheduleResultDTO generateContestSchedule(Long contestId, ContestGroup groupType) {
+        long begin = System.nanoTime();
         MonthlyContest contest = contestRepository.findById(contestId)
                 .orElseThrow(() -> new ResourceNotFoundException("月赛ID '" + contestId + "' 不存在"));
 
@@ -302,67 +338,60 @@ public class ContestServiceImpl implements ContestService {
             throw new BusinessException("没有可用球台");
         }
 
-        // 根据人数确定赛制
-        if (players.size() <= 6) {
-            // 6人及以下采用循环赛
-            generateRoundRobinSchedule(contest, groupType, players, courts);
-        } else {
-            // 7人及以上采用小组赛+淘汰赛
-            generateGroupStageSchedule(contest, groupType, players, courts);
-        }
+        // 根据人数确定赛制：6人及以下采用循环赛，7人及以上采用小组赛+淘汰赛
+        Map<Long, Integer> groupOf = new HashMap<>();
+        List<MatchScheduler.Match> matches = players.size() <= 6
+                ? roundRobinMatches(players, groupOf)
+                : groupStageMatches(players, groupOf);
+        List<Long> playerIds = players.stream().map(Student::getId).collect(Collectors.toList());
+        MatchScheduler.Result result = scheduleMatches(contest, playerIds, courts, matches, null);
+        List<ContestSchedule> schedules = toSchedules(contest, groupType, groupOf, players, courts, matches, result);
+
+        long insertBegin = System.nanoTime();
+        List<Long> scheduleIds = scheduleBatchRepository.insertAll(schedules);
+        long insertNanos = System.nanoTime() - insertBegin;
+        contestLiveHub.publishAfterCommit(contestId, scheduleIds);
 
         // 更新月赛状态
         contest.setStatus(ContestStatus.ONGOING);
         contestRepository.save(contest);
+
+        ContestScheduleResultDTO dto = new ContestScheduleResultDTO();
+        dto.setContestId(contestId);
+        dto.setGroupType(groupType);
+        dto.setMatchCount(schedules.size());
+        dto.setRoundCount(schedules.isEmpty() ? 0 : schedules.get(schedules.size() - 1).getRoundNumber());
+        dto.setLowerBound(result.lowerBound());
+        dto.setStartTime(schedules.isEmpty() ? null : schedules.get(0).getStartTime());
+        dto.setEndTime(result.endTime());
+        dto.setScheduleIds(scheduleIds);
+        dto.setSolveMillis(TimeUnit.NANOSECONDS.toMillis(result.solveNanos()));
+        dto.setInsertMillis(TimeUnit.NANOSECONDS.toMillis(insertNanos));
+        dto.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        return dto;
     }
 
     /**
-     * 生成循环赛赛程
+     * 生成循环赛对阵：每两名选手之间一场
      */
-    private void generateRoundRobinSchedule(MonthlyContest contest, ContestGroup groupType,
-                                            List<Student> players, List<Court> courts) {
-        int numPlayers = players.size();
-        int numRounds = numPlayers % 2 == 0 ? numPlayers - 1 : numPlayers;
-
+    private List<MatchScheduler.Match> roundRobinMatches(List<Student> players, Map<Long, Integer> groupOf) {
         // 随机打乱球员顺序
         Collections.shuffle(players);
 
-        for (int round = 1; round <= numRounds; round++) {
-            for (int i = 0; i < numPlayers / 2; i++) {
-                Student player1 = players.get(i);
-                Student player2 = players.get(numPlayers - 1 - i);
-
-                // 创建比赛安排
-                ContestSchedule schedule = new ContestSchedule();
-                schedule.setContest(contest);
-                schedule.setRoundNumber(round);
-                schedule.setPlayer1(player1);
-                schedule.setPlayer2(player2);
-                schedule.setCourt(getAvailableCourt(courts, contest.getContestDate().atTime(9, 0).plusHours(round - 1)));
-                schedule.setStartTime(contest.getContestDate().atTime(9, 0).plusHours(round - 1));
-                schedule.setStatus(ContestScheduleStatus.PENDING);
-                schedule.setCreatedAt(LocalDateTime.now());
-
-                scheduleRepository.save(schedule);
-            }
-
-            // 旋转球员列表（固定第一个球员，旋转其他球员）
-            if (numPlayers > 2) {
-                Student first = players.get(0);
-                Student second = players.get(1);
-                players.remove(0);
-                players.remove(0);
-                players.add(second);
-                players.add(0, first);
+        List<MatchScheduler.Match> matches = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            groupOf.put(players.get(i).getId(), 1);
+            for (int j = i + 1; j < players.size(); j++) {
+                matches.add(new MatchScheduler.Match(players.get(i).getId(), players.get(j).getId()));
             }
         }
+        return matches;
     }
 
     /**
-     * 生成小组赛+淘汰赛赛程
+     * 生成小组赛对阵：约4人一组，组内循环；全部小组赛结束后由 {@link #generateKnockout} 生成淘汰赛
      */
-    private void generateGroupStageSchedule(MonthlyContest contest, ContestGroup groupType,
-                                            List<Student> players, List<Court> courts) {
+    private List<MatchScheduler.Match> groupStageMatches(List<Student> players, Map<Long, Integer> groupOf) {
         int numPlayers = players.size();
         int numGroups = (int) Math.ceil(numPlayers / 4.0); // 每组约4人
 
@@ -377,47 +406,107 @@ public class ContestServiceImpl implements ContestService {
 
         for (int i = 0; i < numPlayers; i++) {
             groups.get(i % numGroups).add(players.get(i));
+            groupOf.put(players.get(i).getId(), i % numGroups + 1);
         }
 
-        // 生成小组赛
-        int round = 1;
-        for (int groupIndex = 0; groupIndex < groups.size(); groupIndex++) {
-            List<Student> groupPlayers = groups.get(groupIndex);
-
-            // 小组内循环赛
+        // 小组内循环赛
+        List<MatchScheduler.Match> matches = new ArrayList<>();
+        for (List<Student> groupPlayers : groups) {
             for (int i = 0; i < groupPlayers.size(); i++) {
                 for (int j = i + 1; j < groupPlayers.size(); j++) {
-                    Student player1 = groupPlayers.get(i);
-                    Student player2 = groupPlayers.get(j);
-
-                    ContestSchedule schedule = new ContestSchedule();
-                    schedule.setContest(contest);
-                    schedule.setRoundNumber(round);
-                    schedule.setPlayer1(player1);
-                    schedule.setPlayer2(player2);
-                    schedule.setCourt(getAvailableCourt(courts, contest.getContestDate().atTime(9, 0).plusHours(round - 1)));
-                    schedule.setStartTime(contest.getContestDate().atTime(9, 0).plusHours(round - 1));
-                    schedule.setStatus(ContestScheduleStatus.PENDING);
-                    schedule.setCreatedAt(LocalDateTime.now());
-
-                    scheduleRepository.save(schedule);
-                    round++;
+                    matches.add(new MatchScheduler.Match(groupPlayers.get(i).getId(), groupPlayers.get(j).getId()));
                 }
             }
         }
+        return matches;
+    }
+
+    /**
+     * 为对阵分配球台和开始时间
+     * 同一时段的比赛在不同球台上同时进行；
+     * 球台上已有的课程和比赛、选手已预约的课程所在时段都会避开。
+     * notBefore 不为空时只使用此后开始的时段，用于比赛日当天追加的淘汰赛场次。
+     */
+    private MatchScheduler.Result scheduleMatches(MonthlyContest contest, Collection<Long> playerIds,
+                                                  List<Court> courts, List<MatchScheduler.Match> matches,
+                                                  LocalDateTime notBefore) {
+        LocalDate firstDay = contest.getContestDate();
+        if (notBefore != null && notBefore.toLocalDate().isAfter(firstDay)) {
+            firstDay = notBefore.toLocalDate();
+        }
+        MatchScheduler scheduler = new MatchScheduler(firstDay,
+                LocalTime.parse(contestDayStart), LocalTime.parse(contestDayEnd), matchMinutes);
+        if (notBefore != null) {
+            scheduler.startNotBefore(notBefore);
+        }
 
-        // TODO: 生成淘汰赛赛程（根据小组赛结果）
-        // 这里需要先进行小组赛，然后根据小组排名生成淘汰赛
+        List<Long> courtIds = new ArrayList<>(courts.size());
+        for (Court court : courts) {
+            courtIds.add(court.getId());
+            scheduler.addCourt(court.getId());
+        }
+
+        LocalDateTime from = scheduler.firstSlotStart();
+        LocalDateTime to = scheduler.horizonEnd(matches);
+        for (Object[] row : courseRepository.findActiveCourtSlots(courtIds, from, to)) {
+            scheduler.blockCourt((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]);
+        }
+        for (Object[] row : scheduleRepository.findCourtStartTimes(courtIds, from.minusMinutes(matchMinutes), to)) {
+            LocalDateTime startTime = (LocalDateTime) row[1];
+            scheduler.blockCourt((Long) row[0], startTime, startTime.plusMinutes(matchMinutes));
+        }
+        for (Object[] row : courseRepository.findActiveStudentSlots(playerIds, from, to)) {
+            scheduler.blockPlayer((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]);
+        }
+
+        try {
+            return scheduler.schedule(matches);
+        } catch (IllegalStateException e) {
+            throw new BusinessException(e.getMessage());
+        }
     }
 
     /**
-     * 获取可用球台
+     * 按分配结果在内存中构造比赛安排，轮次号为时段的先后顺序（跳过空闲时段后连续编号）
      */
-    private Court getAvailableCourt(List<Court> courts, LocalDateTime startTime) {
-        // 简单实现：随机选择一个球台
-        // 实际应用中应该检查球台在该时间段是否可用
-        Random random = new Random();
-        return courts.get(random.nextInt(courts.size()));
+    private List<ContestSchedule> toSchedules(MonthlyContest contest, ContestGroup groupType, Map<Long, Integer> groupOf,
+                                              List<Student> players, List<Court> courts,
+                                              List<MatchScheduler.Match> matches, MatchScheduler.Result result) {
+        Map<Long, Court> courtById = new HashMap<>();
+        for (Court court : courts) {
+            courtById.put(court.getId(), court);
+        }
+        Map<Long, Student> playerById = new HashMap<>();
+        for (Student player : players) {
+            playerById.put(player.getId(), player);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ContestSchedule> schedules = new ArrayList<>(result.assignments().size());
+        int round = 0;
+        int previousSlot = -1;
+        for (MatchScheduler.Assignment assignment : result.assignments()) {
+            if (assignment.slot() != previousSlot) {
+                round++;
+                previousSlot = assignment.slot();
+            }
+            MatchScheduler.Match match = matches.get(assignment.matchIndex());
+
+            ContestSchedule schedule = new ContestSchedule();
+            schedule.setContest(contest);
+            schedule.setRoundNumber(round);
+            schedule.setGroupType(groupType);
+            schedule.setStage(ContestStage.GROUP);
+            schedule.setGroupNumber(groupOf.get(match.player1()));
+            schedule.setPlayer1(playerById.get(match.player1()));
+            schedule.setPlayer2(playerById.get(match.player2()));
+            schedule.setCourt(courtById.get(assignment.courtId()));
+            schedule.setStartTime(assignment.startTime());
+            schedule.setStatus(ContestScheduleStatus.PENDING);
+            schedule.setCreatedAt(now);
+            schedules.add(schedule);
+        }
+        return schedules;
     }
 
     @Override
@@ -443,6 +532,10 @@ public class ContestServiceImpl implements ContestService {
     @Override
     @Transactional
     public ContestSchedule updateMatchResult(Long scheduleId, Long winnerId) {
+        // 先锁定所属月赛，同一月赛的结果录入串行执行：
+        // 最后两场小组赛同时录入时，后提交的一方能看到前者的结果并生成淘汰赛
+        contestRepository.findByScheduleIdForUpdate(scheduleId);
+
         ContestSchedule schedule = scheduleRepository.findById(scheduleId)
                 .orElseThrow(() -> new ResourceNotFoundException("比赛安排ID '" + scheduleId + "' 不存在"));
 
@@ -450,15 +543,271 @@ public class ContestServiceImpl implements ContestService {
         Student winner = studentRepository.findById(winnerId)
                 .orElseThrow(() -> new ResourceNotFoundException("选手ID '" + winnerId + "' 不存在"));
 
+        if (schedule.getPlayer2() == null) {
+            throw new BusinessException("对手尚未确定，不能录入比赛结果");
+        }
+
         // 检查获胜者是否是比赛选手
         if (!winnerId.equals(schedule.getPlayer1().getId()) &&
                 !winnerId.equals(schedule.getPlayer2().getId())) {
             throw new BusinessException("获胜者必须是比赛选手之一");
         }
 
+        Long previousWinnerId = schedule.getWinner() != null ? schedule.getWinner().getId() : null;
+        if (winnerId.equals(previousWinnerId)) {
+            return schedule;
+        }
+
+        // 本次操作改动的全部比赛安排，提交后推送给实时订阅者
+        Set<Long> changed = new LinkedHashSet<>();
+        changed.add(scheduleId);
+
+        boolean knockout = schedule.getStage() == ContestStage.KNOCKOUT;
+        boolean bracket = schedule.getGroupType() != null;
+        if (bracket && previousWinnerId != null) {
+            if (knockout) {
+                withdrawFromNextRound(schedule, previousWinnerId, changed);
+            } else if (scheduleRepository.existsByContestIdAndGroupTypeAndStage(
+                    schedule.getContest().getId(), schedule.getGroupType(), ContestStage.KNOCKOUT)) {
+                throw new BusinessException("淘汰赛已生成，不能修改小组赛结果");
+            }
+        }
+
         schedule.setWinner(winner);
         schedule.setStatus(ContestScheduleStatus.COMPLETED);
+        ContestSchedule saved = scheduleRepository.save(schedule);
+
+        // 只生成受本场结果影响的下一场比赛，已有的对阵保持不变
+        if (bracket) {
+            if (knockout) {
+                advance(schedule.getContest(), schedule.getGroupType(), schedule.getBracketPosition(),
+                        winner, schedule.getRoundNumber(), changed);
+            } else {
+                generateKnockout(schedule.getContest(), schedule.getGroupType(), changed);
+            }
+        }
+        contestLiveHub.publishAfterCommit(schedule.getContest().getId(), changed);
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ContestBracketDTO getBracket(Long contestId, ContestGroup groupType) {
+        // 检查月赛是否存在
+        if (!contestRepository.existsById(contestId)) {
+            throw new ResourceNotFoundException("月赛ID '" + contestId + "' 不存在");
+        }
+
+        List<ContestSchedule> schedules = scheduleRepository.findBracketSchedules(contestId, groupType);
+        Map<Long, String> names = new HashMap<>();
+        List<ContestBracket.Result> results = new ArrayList<>();
+        ContestBracketDTO dto = new ContestBracketDTO();
+        dto.setContestId(contestId);
+        dto.setGroupType(groupType);
+        for (ContestSchedule schedule : schedules) {
+            names.put(schedule.getPlayer1().getId(), schedule.getPlayer1().getRealName());
+            if (schedule.getPlayer2() != null) {
+                names.put(schedule.getPlayer2().getId(), schedule.getPlayer2().getRealName());
+            }
+            Long winnerId = schedule.getWinner() != null ? schedule.getWinner().getId() : null;
+            if (schedule.getStage() == ContestStage.KNOCKOUT) {
+                dto.getKnockout().add(new ContestBracketDTO.Match(
+                        schedule.getId(),
+                        schedule.getRoundNumber(),
+                        schedule.getBracketPosition(),
+                        schedule.getPlayer1().getId(),
+                        schedule.getPlayer1().getRealName(),
+                        schedule.getPlayer2() != null ? schedule.getPlayer2().getId() : null,
+                        schedule.getPlayer2() != null ? schedule.getPlayer2().getRealName() : null,
+                        winnerId,
+                        schedule.getCourt() != null ? schedule.getCourt().getCourtNumber() : null,
+                        schedule.getStartTime(),
+                        schedule.getStatus()));
+                if (Integer.valueOf(1).equals(schedule.getBracketPosition()) && schedule.getWinner() != null) {
+                    dto.setChampionId(winnerId);
+                    dto.setChampionName(schedule.getWinner().getRealName());
+                }
+            } else if (schedule.getPlayer2() != null) {
+                results.add(groupResult(schedule));
+            }
+        }
+
+        for (List<ContestBracket.Standing> group : ContestBracket.standings(results).values()) {
+            for (ContestBracket.Standing standing : group) {
+                dto.getStandings().add(new ContestBracketDTO.Standing(
+                        standing.groupNumber(),
+                        standing.rank(),
+                        standing.playerId(),
+                        names.get(standing.playerId()),
+                        standing.played(),
+                        standing.wins(),
+                        standing.losses()));
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * 某组别的小组赛全部结束后，按小组名次生成淘汰赛首轮
+     * 只有一个小组（循环赛）时名次即最终结果，不生成淘汰赛
+     */
+    private void generateKnockout(MonthlyContest contest, ContestGroup groupType, Set<Long> changed) {
+        List<ContestSchedule> schedules = scheduleRepository.findBracketSchedules(contest.getId(), groupType);
+        List<ContestBracket.Result> results = new ArrayList<>(schedules.size());
+        Map<Long, Student> playerById = new HashMap<>();
+        int lastRound = 0;
+        for (ContestSchedule schedule : schedules) {
+            if (schedule.getStage() == ContestStage.KNOCKOUT || schedule.getStatus() != ContestScheduleStatus.COMPLETED) {
+                return;
+            }
+            playerById.put(schedule.getPlayer1().getId(), schedule.getPlayer1());
+            playerById.put(schedule.getPlayer2().getId(), schedule.getPlayer2());
+            results.add(groupResult(schedule));
+            lastRound = Math.max(lastRound, schedule.getRoundNumber());
+        }
+
+        Map<Integer, List<ContestBracket.Standing>> standings = ContestBracket.standings(results);
+        if (standings.size() < 2) {
+            return;
+        }
+        ContestBracket.Draw draw = ContestBracket.draw(standings, knockoutPerGroup);
+
+        // 首轮双方都确定的比赛一起排程，轮空的选手直接进入下一轮
+        int firstRound = lastRound + 1;
+        List<ContestSchedule> firstRoundSchedules = new ArrayList<>();
+        Map<Integer, Long> byes = new LinkedHashMap<>();
+        for (int position = draw.size() / 2; position < draw.size(); position++) {
+            Long player1 = draw.playerAt(2 * position);
+            Long player2 = draw.playerAt(2 * position + 1);
+            if (player1 != null && player2 != null) {
+                firstRoundSchedules.add(newKnockoutSchedule(contest, groupType, position, firstRound,
+                        playerById.get(player1), playerById.get(player2)));
+            } else if (player1 != null || player2 != null) {
+                byes.put(position, player1 != null ? player1 : player2);
+            }
+        }
+        assignCourts(contest, firstRoundSchedules);
+        for (ContestSchedule schedule : scheduleRepository.saveAll(firstRoundSchedules)) {
+            changed.add(schedule.getId());
+        }
+
+        byes.forEach((position, playerId) ->
+                advance(contest, groupType, position, playerById.get(playerId), firstRound, changed));
+    }
+
+    /**
+     * 淘汰赛位置 position 的胜者进入下一轮：下一轮比赛不存在时先以该选手创建，
+     * 对手确定后再分配球台和时间
+     */
+    private void advance(MonthlyContest contest, ContestGroup groupType, Integer position, Student winner, int round,
+                         Set<Long> changed) {
+        if (position == null || position <= 1) {
+            return;
+        }
+        int next = position / 2;
+        ContestSchedule nextMatch = scheduleRepository
+                .findByContestIdAndGroupTypeAndStageAndBracketPosition(contest.getId(), groupType, ContestStage.KNOCKOUT, next)
+                .orElse(null);
+        if (nextMatch == null) {
+            ContestSchedule created = scheduleRepository.save(newKnockoutSchedule(contest, groupType, next, round + 1, winner, null));
+            changed.add(created.getId());
+            return;
+        }
+        if (nextMatch.getPlayer2() != null) {
+            throw new BusinessException("下一轮对阵已确定");
+        }
+        nextMatch.setPlayer2(winner);
+        assignCourts(contest, List.of(nextMatch));
+        scheduleRepository.save(nextMatch);
+        changed.add(nextMatch.getId());
+    }
+
+    /**
+     * 修改淘汰赛结果时，把原胜者从尚未开始的下一轮比赛中撤下
+     */
+    private void withdrawFromNextRound(ContestSchedule schedule, Long previousWinnerId, Set<Long> changed) {
+        Integer position = schedule.getBracketPosition();
+        if (position == null || position <= 1) {
+            return;
+        }
+        ContestSchedule nextMatch = scheduleRepository
+                .findByContestIdAndGroupTypeAndStageAndBracketPosition(schedule.getContest().getId(),
+                        schedule.getGroupType(), ContestStage.KNOCKOUT, position / 2)
+                .orElse(null);
+        if (nextMatch == null) {
+            return;
+        }
+        if (nextMatch.getStatus() != ContestScheduleStatus.PENDING || nextMatch.getWinner() != null) {
+            throw new BusinessException("下一轮比赛已开始，不能修改本场结果");
+        }
+        boolean wasPlayer1 = previousWinnerId.equals(nextMatch.getPlayer1().getId());
+        changed.add(nextMatch.getId());
+        if (nextMatch.getPlayer2() == null) {
+            if (wasPlayer1) {
+                scheduleRepository.delete(nextMatch);
+            }
+            return;
+        }
+        if (wasPlayer1) {
+            nextMatch.setPlayer1(nextMatch.getPlayer2());
+        }
+        nextMatch.setPlayer2(null);
+        nextMatch.setCourt(null);
+        nextMatch.setStartTime(null);
+        scheduleRepository.save(nextMatch);
+    }
+
+    /**
+     * 为双方已确定的淘汰赛分配当前时间之后的球台和时段，没有可用球台时留待人工安排
+     */
+    private void assignCourts(MonthlyContest contest, List<ContestSchedule> schedules) {
+        if (schedules.isEmpty()) {
+            return;
+        }
+        List<Court> courts = courtRepository.findByCampusIdAndStatus(contest.getCampus().getId(), CourtStatus.AVAILABLE);
+        if (courts.isEmpty()) {
+            return;
+        }
+        Map<Long, Court> courtById = new HashMap<>();
+        for (Court court : courts) {
+            courtById.put(court.getId(), court);
+        }
+        List<MatchScheduler.Match> matches = new ArrayList<>(schedules.size());
+        List<Long> playerIds = new ArrayList<>(schedules.size() * 2);
+        for (ContestSchedule schedule : schedules) {
+            matches.add(new MatchScheduler.Match(schedule.getPlayer1().getId(), schedule.getPlayer2().getId()));
+            playerIds.add(schedule.getPlayer1().getId());
+            playerIds.add(schedule.getPlayer2().getId());
+        }
+
+        MatchScheduler.Result result = scheduleMatches(contest, playerIds, courts, matches, LocalDateTime.now());
+        for (MatchScheduler.Assignment assignment : result.assignments()) {
+            ContestSchedule schedule = schedules.get(assignment.matchIndex());
+            schedule.setCourt(courtById.get(assignment.courtId()));
+            schedule.setStartTime(assignment.startTime());
+        }
+    }
+
+    private ContestSchedule newKnockoutSchedule(MonthlyContest contest, ContestGroup groupType, int position, int round,
+                                                Student player1, Student player2) {
+        ContestSchedule schedule = new ContestSchedule();
+        schedule.setContest(contest);
+        schedule.setGroupType(groupType);
+        schedule.setStage(ContestStage.KNOCKOUT);
+        schedule.setBracketPosition(position);
+        schedule.setRoundNumber(round);
+        schedule.setPlayer1(player1);
+        schedule.setPlayer2(player2);
+        schedule.setStatus(ContestScheduleStatus.PENDING);
+        schedule.setCreatedAt(LocalDateTime.now());
+        return schedule;
+    }
 
-        return scheduleRepository.save(schedule);
+    private static ContestBracket.Result groupResult(ContestSchedule schedule) {
+        return new ContestBracket.Result(
+                schedule.getGroupNumber() != null ? schedule.getGroupNumber() : 1,
+                schedule.getPlayer1().getId(),
+                schedule.getPlayer2().getId(),
+                schedule.getWinner() != null ? schedule.getWinner().getId() : null);
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,52 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CampusHierarchy;
+import com.example.ttp_serve.cache.CourseDailyStats;
+import com.example.ttp_serve.cache.CourseScheduleIndex;
+import com.example.ttp_serve.dto.CourseBatchRequestDTO;
+import com.example.ttp_serve.dto.CourseBatchResultDTO;
+import com.example.ttp_serve.dto.CourseDTO;
+import com.example.ttp_serve.dto.CursorPage;
 import com.example.ttp_serve.dto.CourseRequestDTO;
 import com.example.ttp_serve.entity.*;
 import com.example.ttp_serve.enums.CourseStatus;
+import com.example.ttp_serve.enums.LedgerEntryType;
 import com.example.ttp_serve.enums.PaymentMethod;
 import com.example.ttp_serve.enums.PaymentType;
 import com.example.ttp_serve.exception.BusinessException;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.repository.*;
+import com.example.ttp_serve.service.BalanceLedgerService;
 import com.example.ttp_serve.service.CourseService;
 import com.example.ttp_serve.service.PaymentService;
+import com.example.ttp_serve.util.CsvWriter;
+import com.example.ttp_serve.util.IntervalTree;
+import com.example.ttp_serve.util.KeysetCursor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CourseServiceImpl implements CourseService {
 
+    // 单次批量预约允许的最大课程数
+    private static final int MAX_BATCH_SIZE = 200;
+
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final CourtRepository courtRepository;
@@ -32,6 +54,11 @@ public class CourseServiceImpl implements CourseService {
     private final StudentRepository studentRepository;
     private final CoachRepository coachRepository;
     private final PaymentRepository paymentRepository;
+    private final CourseScheduleIndex courseScheduleIndex;
+    private final CourseBatchRepository courseBatchRepository;
+    private final CourseDailyStats courseDailyStats;
+    private final BalanceLedgerService balanceLedgerService;
+    private final CampusHierarchy campusHierarchy;
 
     @Override
     @Transactional
@@ -60,13 +87,13 @@ public class CourseServiceImpl implements CourseService {
 
 
         // 检查时间冲突
-        if (checkTimeConflict(courseRequest.getCoachId(), courseRequest.getStartTime(), courseRequest.getEndTime())) {
+        if (hasCoachConflict(courseRequest.getCoachId(), courseRequest.getStartTime(), courseRequest.getEndTime())) {
             throw new BusinessException("该时间段已有预约");
         }
 
 
         // 检查球台时间冲突（如果指定了球台）
-        if (courseRequest.getCourtId() != null && checkCourtTimeConflict(
+        if (courseRequest.getCourtId() != null && hasCourtConflict(
                 courseRequest.getCourtId(),
                 courseRequest.getStartTime(),
                 courseRequest.getEndTime()
@@ -75,8 +102,7 @@ public class CourseServiceImpl implements CourseService {
         }
 
         // 计算课程时长（小时）
-        long minutes = java.time.Duration.between(courseRequest.getStartTime(), courseRequest.getEndTime()).toMinutes();
-        BigDecimal duration = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, BigDecimal.ROUND_HALF_UP);
+        BigDecimal duration = calculateDuration(courseRequest.getStartTime(), courseRequest.getEndTime());
         course.setDuration(duration);
 
         // 计算课程费用（使用教练的小时费率）
@@ -87,7 +113,179 @@ public class CourseServiceImpl implements CourseService {
         course.setCreatedAt(LocalDateTime.now());
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseScheduleIndex.syncAfterCommit(savedCourse);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
+    }
+
+    @Override
+    @Transactional
+    public CourseBatchResultDTO createCoursesBatch(CourseBatchRequestDTO batchRequest) {
+        List<CourseRequestDTO> requests = expandBatchRequest(batchRequest);
+        if (requests.isEmpty()) {
+            throw new BusinessException("批量预约的课程不能为空");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("单次批量预约不能超过" + MAX_BATCH_SIZE + "节课程");
+        }
+
+        // 教练、学员、球台在整批中只加载一次
+        Coach coach = coachRepository.findById(batchRequest.getCoachId())
+                .orElseThrow(() -> new ResourceNotFoundException("教练ID '" + batchRequest.getCoachId() + "' 不存在"));
+        Student student = studentRepository.findById(batchRequest.getStudentId())
+                .orElseThrow(() -> new ResourceNotFoundException("学员ID '" + batchRequest.getStudentId() + "' 不存在"));
+        Court court = null;
+        if (batchRequest.getCourtId() != null) {
+            court = courtRepository.findById(batchRequest.getCourtId())
+                    .orElseThrow(() -> new ResourceNotFoundException("球台ID '" + batchRequest.getCourtId() + "' 不存在"));
+        }
+
+        CourseBatchResultDTO result = new CourseBatchResultDTO();
+        result.setTotal(requests.size());
+        List<String> errors = new ArrayList<>();
+        LocalDateTime rangeStart = null;
+        LocalDateTime rangeEnd = null;
+        for (CourseRequestDTO request : requests) {
+            String error = validateBatchItem(batchRequest, request);
+            errors.add(error);
+            if (error == null) {
+                rangeStart = rangeStart == null || request.getStartTime().isBefore(rangeStart) ? request.getStartTime() : rangeStart;
+                rangeEnd = rangeEnd == null || request.getEndTime().isAfter(rangeEnd) ? request.getEndTime() : rangeEnd;
+            }
+        }
+
+        // 一次范围查询取出相关的已有预约，之后的冲突判断全部在内存中完成
+        IntervalTree coachSlots = new IntervalTree();
+        IntervalTree courtSlots = new IntervalTree();
+        if (rangeStart != null) {
+            List<Object[]> existing = courseRepository.findActiveTimeSlotsForCoachOrCourt(
+                    coach.getId(), batchRequest.getCourtId(), rangeStart, rangeEnd);
+            for (Object[] row : existing) {
+                long id = (Long) row[0];
+                long start = toEpochSecond((LocalDateTime) row[3]);
+                long end = toEpochSecond((LocalDateTime) row[4]);
+                if (coach.getId().equals(row[1])) {
+                    coachSlots.insert(id, start, end);
+                }
+                if (court != null && court.getId().equals(row[2])) {
+                    courtSlots.insert(id, start, end);
+                }
+            }
+        }
+
+        List<Course> accepted = new ArrayList<>();
+        List<CourseBatchResultDTO.Item> acceptedItems = new ArrayList<>();
+        long pendingId = -1;
+        for (int i = 0; i < requests.size(); i++) {
+            CourseRequestDTO request = requests.get(i);
+            CourseBatchResultDTO.Item item = new CourseBatchResultDTO.Item(
+                    i, request.getStartTime(), request.getEndTime(), false, null, errors.get(i));
+            result.getItems().add(item);
+            if (item.getMessage() != null) {
+                continue;
+            }
+
+            long start = toEpochSecond(request.getStartTime());
+            long end = toEpochSecond(request.getEndTime());
+            if (coachSlots.overlaps(start, end)) {
+                item.setMessage("该时间段已有预约");
+                continue;
+            }
+            if (court != null && courtSlots.overlaps(start, end)) {
+                item.setMessage("该球台在该时间段已被占用");
+                continue;
+            }
+            // 已接受的课程也加入区间树，使同批次内的课程互相检查冲突
+            coachSlots.insert(pendingId, start, end);
+            if (court != null) {
+                courtSlots.insert(pendingId, start, end);
+            }
+            pendingId--;
+
+            Course course = new Course();
+            course.setCoach(coach);
+            course.setStudent(student);
+            course.setCourt(court);
+            course.setStartTime(request.getStartTime());
+            course.setEndTime(request.getEndTime());
+            BigDecimal duration = calculateDuration(request.getStartTime(), request.getEndTime());
+            course.setDuration(duration);
+            course.setFee(coach.getHourlyRate().multiply(duration));
+            course.setStatus(CourseStatus.PENDING);
+            accepted.add(course);
+            acceptedItems.add(item);
+        }
+
+        courseBatchRepository.insertAll(accepted);
+        for (int i = 0; i < accepted.size(); i++) {
+            Course course = accepted.get(i);
+            CourseBatchResultDTO.Item item = acceptedItems.get(i);
+            item.setSuccess(true);
+            item.setCourseId(course.getId());
+            item.setMessage("预约成功");
+            courseScheduleIndex.syncAfterCommit(course);
+            courseDailyStats.recordAfterCommit(course);
+        }
+
+        result.setSuccessCount(accepted.size());
+        result.setFailureCount(requests.size() - accepted.size());
+        return result;
+    }
+
+    // 将逐条时间和重复规则展开为课程请求列表
+    private List<CourseRequestDTO> expandBatchRequest(CourseBatchRequestDTO batchRequest) {
+        List<CourseRequestDTO> requests = new ArrayList<>();
+        if (batchRequest.getCourses() != null) {
+            requests.addAll(batchRequest.getCourses());
+        }
+        if (batchRequest.getOccurrences() != null && batchRequest.getOccurrences() > 0) {
+            if (batchRequest.getFirstStartTime() == null || batchRequest.getFirstEndTime() == null) {
+                throw new BusinessException("重复预约需要指定首节课的开始和结束时间");
+            }
+            if (batchRequest.getOccurrences() > MAX_BATCH_SIZE) {
+                throw new BusinessException("单次批量预约不能超过" + MAX_BATCH_SIZE + "节课程");
+            }
+            int intervalDays = batchRequest.getIntervalDays() != null && batchRequest.getIntervalDays() > 0
+                    ? batchRequest.getIntervalDays() : 7;
+            for (int i = 0; i < batchRequest.getOccurrences(); i++) {
+                CourseRequestDTO request = new CourseRequestDTO();
+                request.setStartTime(batchRequest.getFirstStartTime().plusDays((long) i * intervalDays));
+                request.setEndTime(batchRequest.getFirstEndTime().plusDays((long) i * intervalDays));
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    // 校验单条批量预约，返回失败原因，校验通过时返回null
+    private String validateBatchItem(CourseBatchRequestDTO batchRequest, CourseRequestDTO request) {
+        if (request == null || request.getStartTime() == null || request.getEndTime() == null) {
+            return "课程开始时间和结束时间不能为空";
+        }
+        if (!request.getStartTime().isBefore(request.getEndTime())) {
+            return "课程结束时间必须晚于开始时间";
+        }
+        if (request.getCoachId() != null && !request.getCoachId().equals(batchRequest.getCoachId())) {
+            return "批量预约中的教练必须一致";
+        }
+        if (request.getStudentId() != null && !request.getStudentId().equals(batchRequest.getStudentId())) {
+            return "批量预约中的学员必须一致";
+        }
+        if (request.getCourtId() != null && !request.getCourtId().equals(batchRequest.getCourtId())) {
+            return "批量预约中的球台必须一致";
+        }
+        return null;
+    }
+
+    // 计算课程时长（小时）
+    private static BigDecimal calculateDuration(LocalDateTime startTime, LocalDateTime endTime) {
+        long minutes = java.time.Duration.between(startTime, endTime).toMinutes();
+        return BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, BigDecimal.ROUND_HALF_UP);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
     }
 
     @Override
@@ -134,7 +332,10 @@ public class CourseServiceImpl implements CourseService {
 
         existingCourse.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(existingCourse);
+        Course savedCourse = courseRepository.save(existingCourse);
+        courseScheduleIndex.syncAfterCommit(savedCourse);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
     }
 
     // 原有方法保持不变，但需要将createCourse和updateCourse方法标记为过时或删除
@@ -184,7 +385,8 @@ public class CourseServiceImpl implements CourseService {
 
         // 处理退款（如果课程已支付）
         if (course.getStatus() == CourseStatus.CONFIRMED) {
-            Payment payment = paymentRepository.findByRelatedId(course.getId());
+            Payment payment = paymentRepository.findFirstByRelatedIdAndPaymentTypeOrderByIdDesc(course.getId(), PaymentType.COURSE_FEE)
+                    .orElseThrow(() -> new BusinessException("课程ID '" + course.getId() + "' 没有课程费用支付记录"));
             // 创建支付记录
             Payment refundPayment=paymentService.generatePaymentOrder(
                     PaymentType.REFUND,
@@ -193,7 +395,8 @@ public class CourseServiceImpl implements CourseService {
                     payment.getAmount(),
                     payment.getRelatedId()// related_id设置为课程ID
             );
-            paymentService.processRefund(refundPayment.getOrderId());
+            // 退还余额并将退款记录标记为成功
+            paymentService.processPaymentSuccess(refundPayment.getOrderId());
 
             // 如果是学生取消已确认的课程，增加取消次数
             if (cancelledBy.equals(course.getStudent().getId())) {
@@ -223,7 +426,10 @@ public class CourseServiceImpl implements CourseService {
         course.setCancelTime(LocalDateTime.now());
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseScheduleIndex.syncAfterCommit(savedCourse);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
     }
 
     @Override
@@ -236,21 +442,8 @@ public class CourseServiceImpl implements CourseService {
             throw new BusinessException("只能确认待确认的课程");
         }
 
-        // 检查学员余额是否足够
-        Student student = studentRepository.findById(course.getStudent().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("学员不存在"));
-
-        if (student.getBalance().compareTo(course.getFee()) < 0) {
-            throw new BusinessException("学员余额不足，无法确认课程");
-        }
-
-        // 扣除课程费用
-        student.setBalance(student.getBalance().subtract(course.getFee()));
-        student.setUpdatedAt(LocalDateTime.now());
-        studentRepository.save(student);
-
         // 创建支付记录
-        paymentService.generatePaymentOrder(
+        Payment payment = paymentService.generatePaymentOrder(
                 PaymentType.COURSE_FEE,
                 PaymentMethod.OFFLINE, // 或者根据实际情况选择支付方式
                 course.getStudent().getId(),
@@ -258,10 +451,20 @@ public class CourseServiceImpl implements CourseService {
                 course.getId() // related_id设置为课程ID
         );
 
+        // 扣除课程费用，余额检查与扣减在同一条更新中完成，余额不足时整个确认回滚
+        if (course.getFee().signum() > 0) {
+            balanceLedgerService.debit(course.getStudent().getId(), course.getFee(), LedgerEntryType.COURSE_FEE, payment);
+        }
+        // 费用已从余额扣除，支付记录随之标记为成功
+        paymentService.processPaymentSuccess(payment.getOrderId());
+
         course.setStatus(CourseStatus.CONFIRMED);
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseScheduleIndex.syncAfterCommit(savedCourse);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
     }
 
     @Override
@@ -277,7 +480,9 @@ public class CourseServiceImpl implements CourseService {
         course.setStatus(CourseStatus.COMPLETED);
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
     }
 
     @Override
@@ -286,19 +491,25 @@ public class CourseServiceImpl implements CourseService {
         // 获取当前时间
         LocalDateTime currentTime = LocalDateTime.now();
         
-        // 查找该用户相关的已确认且已结束的课程
-        List<Course> expiredCourses = courseRepository.findConfirmedExpiredCoursesByUser(userId, currentTime);
-        
-        if (!expiredCourses.isEmpty()) {
-            // 批量更新课程状态为已完成
-            for (Course course : expiredCourses) {
-                course.setStatus(CourseStatus.COMPLETED);
-                course.setUpdatedAt(LocalDateTime.now());
-            }
-            
-            // 批量保存
-            courseRepository.saveAll(expiredCourses);
+        // 查找该用户相关的已确认且已结束的课程，用一条 UPDATE 标记为已完成
+        List<Long> expiredIds = courseRepository.findConfirmedExpiredCourseIdsByUser(userId, currentTime);
+        completeExpiredByIds(expiredIds, currentTime);
+    }
+
+    @Override
+    @Transactional
+    public int completeExpiredCoursesChunk(LocalDateTime currentTime, int chunkSize) {
+        List<Long> expiredIds = courseRepository.findConfirmedExpiredCourseIds(currentTime, PageRequest.of(0, chunkSize));
+        return completeExpiredByIds(expiredIds, currentTime);
+    }
+
+    private int completeExpiredByIds(List<Long> expiredIds, LocalDateTime currentTime) {
+        if (expiredIds.isEmpty()) {
+            return 0;
         }
+        int updated = courseRepository.completeConfirmedExpiredByIds(expiredIds, currentTime);
+        courseDailyStats.moveStatusAfterCommit(expiredIds, CourseStatus.CONFIRMED, CourseStatus.COMPLETED);
+        return updated;
     }
 
     @Override
@@ -317,6 +528,16 @@ public class CourseServiceImpl implements CourseService {
         return courseRepository.findByCoachId(coachId);
     }
 
+    @Override
+    public List<CourseDTO> getCourseDTOsByCoach(Long coachId) {
+        // 检查教练是否存在
+        if (!userRepository.existsById(coachId)) {
+            throw new ResourceNotFoundException("教练ID '" + coachId + "' 不存在");
+        }
+
+        return courseRepository.findCourseDTOsByCoachId(coachId);
+    }
+
     @Override
     public List<Course> getCoursesByCoachAndStatus(Long coachId, CourseStatus status) {
         // 检查教练是否存在
@@ -384,11 +605,29 @@ public class CourseServiceImpl implements CourseService {
             throw new ResourceNotFoundException("教练ID '" + coachId + "' 不存在");
         }
 
-        return courseRepository.existsTimeConflict(coachId, startTime, endTime);
+        return hasCoachConflict(coachId, startTime, endTime);
     }
 
     @Override
     public boolean checkCourtTimeConflict(Long courtId, LocalDateTime startTime, LocalDateTime endTime) {
+        return hasCourtConflict(courtId, startTime, endTime);
+    }
+
+    // 优先使用内存索引判断教练时间冲突，索引命中时回查数据库确认，避免残留条目误拦截预约
+    private boolean hasCoachConflict(Long coachId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (courseScheduleIndex.covers(startTime)) {
+            return courseScheduleIndex.hasCoachConflict(coachId, startTime, endTime)
+                    && courseRepository.existsTimeConflict(coachId, startTime, endTime);
+        }
+        return courseRepository.existsTimeConflict(coachId, startTime, endTime);
+    }
+
+    // 优先使用内存索引判断球台时间冲突，处理方式同上
+    private boolean hasCourtConflict(Long courtId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (courseScheduleIndex.covers(startTime)) {
+            return courseScheduleIndex.hasCourtConflict(courtId, startTime, endTime)
+                    && courseRepository.isCourtAvailable(courtId, startTime, endTime);
+        }
         return courseRepository.isCourtAvailable(courtId, startTime, endTime);
     }
 
@@ -422,6 +661,16 @@ public class CourseServiceImpl implements CourseService {
         return courseRepository.findAll(pageable);
     }
 
+    @Override
+    public CursorPage<CourseDTO> getCourseDTOsByCursor(String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<CourseDTO> rows = position == null
+                ? courseRepository.findCourseDTOsFirstPage(KeysetCursor.limit(size))
+                : courseRepository.findCourseDTOsAfterCursor(position.createdAt(), position.id(), KeysetCursor.limit(size));
+        Long total = withTotal ? courseRepository.count() : null;
+        return KeysetCursor.toPage(rows, size, CourseDTO::getCreatedAt, CourseDTO::getId, total);
+    }
+
     @Override
     public List<Course> getUpcomingCourses(int hours) {
         LocalDateTime now = LocalDateTime.now();
@@ -431,12 +680,9 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
-    public List<Course> getCoursesNeedEvaluation(Long userId) {
-        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
-
-        // 获取已完成但未评价的课程
-        return courseRepository.findByStatusAndEndTimeBeforeAndEvaluationsEmpty(
-                CourseStatus.COMPLETED, yesterday);
+    public List<CourseDTO> getCoursesNeedEvaluation(Long userId) {
+        // 获取用户已完成但未评价的课程
+        return courseRepository.findCourseDTOsNeedEvaluation(userId);
     }
 
     @Override
@@ -466,7 +712,10 @@ public class CourseServiceImpl implements CourseService {
         course.setCancelTime(LocalDateTime.now());
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseScheduleIndex.syncAfterCommit(savedCourse);
+        courseDailyStats.recordAfterCommit(savedCourse);
+        return savedCourse;
     }
 
     @Override
@@ -481,14 +730,13 @@ public class CourseServiceImpl implements CourseService {
         LocalDateTime startOfMonth = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusSeconds(1);
 
-        // 查询教练本月已完成的课程
-        List<Course> completedCourses = courseRepository.findByCoachIdAndStatusAndStartTimeBetween(
+        // 优先使用每日统计，未覆盖时由数据库求和
+        if (courseDailyStats.covers(startOfMonth.toLocalDate())) {
+            return courseDailyStats.sumFeeByCoach(coachId, CourseStatus.COMPLETED,
+                    startOfMonth.toLocalDate(), endOfMonth.toLocalDate());
+        }
+        return courseRepository.sumFeeByCoachIdAndStatusAndStartTimeBetween(
                 coachId, CourseStatus.COMPLETED, startOfMonth, endOfMonth);
-
-        // 计算总收入
-        return completedCourses.stream()
-                .map(Course::getFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
     @Override
@@ -499,6 +747,9 @@ public class CourseServiceImpl implements CourseService {
         LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
 
         // 查询今日已确认的课程数量
+        if (courseDailyStats.covers(startOfDay.toLocalDate())) {
+            return courseDailyStats.countAll(CourseStatus.CONFIRMED, startOfDay.toLocalDate());
+        }
         return courseRepository.countByStatusAndStartTimeBetween(CourseStatus.CONFIRMED, startOfDay, endOfDay);
     }
 
@@ -515,6 +766,9 @@ public class CourseServiceImpl implements CourseService {
         LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
 
         // 查询指定教练今日已确认的课程数量
+        if (courseDailyStats.covers(startOfDay.toLocalDate())) {
+            return courseDailyStats.countByCoach(coachId, CourseStatus.CONFIRMED, startOfDay.toLocalDate());
+        }
         return courseRepository.countByCoachIdAndStatusAndStartTimeBetween(coachId, CourseStatus.CONFIRMED, startOfDay, endOfDay);
     }
 
@@ -542,18 +796,55 @@ public class CourseServiceImpl implements CourseService {
         LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
 
         // 查询指定校区今日已确认的课程数量
+        if (courseDailyStats.covers(startOfDay.toLocalDate())) {
+            return courseDailyStats.countByCampus(campusId, CourseStatus.CONFIRMED, startOfDay.toLocalDate());
+        }
         return courseRepository.countByCampusIdAndStatusAndStartTimeBetween(campusId, CourseStatus.CONFIRMED, startOfDay, endOfDay);
     }
 
     @Override
-    public List<Course> getAllCoursesList() {
-        return courseRepository.findAllCoursesList();
+    public List<CourseDTO> getAllCourseDTOs() {
+        return courseRepository.findAllCourseDTOs();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCoursesCsv(LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException {
+        if ((start == null) != (end == null)) {
+            throw new BusinessException("开始时间和结束时间需同时指定");
+        }
+        if (start != null && start.isAfter(end)) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRow("ID", "教练ID", "教练姓名", "学员ID", "学员姓名", "校区", "球台", "开始时间", "结束时间",
+                "时长", "费用", "状态", "取消原因", "取消人", "取消时间", "创建时间");
+        try (Stream<CourseDTO> rows = start != null
+                ? courseRepository.streamCourseDTOsByStartTimeBetween(start, end)
+                : courseRepository.streamAllCourseDTOs()) {
+            Iterator<CourseDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                CourseDTO c = iterator.next();
+                csv.writeRow(c.getId(), c.getCoachId(), c.getCoachName(), c.getStudentId(), c.getStudentName(),
+                        c.getCampusName(), c.getCourtNumber(), c.getStartTime(), c.getEndTime(),
+                        c.getDuration(), c.getFee(), c.getStatus(), c.getCancelReason(), c.getCancelByUserName(),
+                        c.getCancelTime(), c.getCreatedAt());
+            }
+        }
+        csv.flush();
+    }
+
+    @Override
+    public List<CourseDTO> getCourseDTOsByCampusId(Long campusId) {
+        return courseRepository.findCourseDTOsByCampusId(campusId);
     }
 
     @Override
-    public List<Course> getCoursesByCampusId(Long campusId) {
-        // 检查校区是否存在
-        // 这里我们不检查校区是否存在，因为JPA查询会自动返回空列表
-        return courseRepository.findByCampusId(campusId);
+    public List<CourseDTO> getCourseDTOsByCampusSubtree(Long campusId) {
+        List<Long> campusIds = campusHierarchy.subtreeIds(campusId);
+        if (campusIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return courseRepository.findCourseDTOsByCampusIds(campusIds);
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CoachDirectory;
 import com.example.ttp_serve.dto.EvaluationCreateDto;
 import com.example.ttp_serve.dto.EvaluationDto;
 import com.example.ttp_serve.dto.EvaluationUpdateDTO;
+import com.example.ttp_serve.dto.RatingSummaryDTO;
 import com.example.ttp_serve.entity.Course;
 import com.example.ttp_serve.entity.Evaluation;
 import com.example.ttp_serve.entity.User;
@@ -13,6 +15,7 @@ import com.example.ttp_serve.exception.BusinessException;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.repository.CourseRepository;
 import com.example.ttp_serve.repository.EvaluationRepository;
+import com.example.ttp_serve.repository.UserRatingRepository;
 import com.example.ttp_serve.repository.UserRepository;
 import com.example.ttp_serve.service.EvaluationService;
 import com.example.ttp_serve.util.EvaluationConverter;
@@ -23,16 +26,23 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class EvaluationServiceImpl implements EvaluationService {
 
+    // 批量查询评分时一次最多的用户数
+    private static final int MAX_RATING_BATCH = 500;
+
     private final EvaluationRepository evaluationRepository;
     private final UserRepository userRepository;
     private final CourseRepository courseRepository;
+    private final UserRatingRepository userRatingRepository;
+    private final CoachDirectory coachDirectory;
 
     @Override
     @Transactional
@@ -71,7 +81,9 @@ public class EvaluationServiceImpl implements EvaluationService {
         // 设置创建时间
         evaluation.setCreatedAt(LocalDateTime.now());
 
-        return evaluationRepository.save(evaluation);
+        Evaluation saved = evaluationRepository.save(evaluation);
+        updateRatingSummary(toUser.getId(), null, saved.getRating(), 1);
+        return saved;
     }
 
     @Override
@@ -81,6 +93,7 @@ public class EvaluationServiceImpl implements EvaluationService {
                 .orElseThrow(() -> new ResourceNotFoundException("评价ID '" + id + "' 不存在"));
 
         // 只能更新评价内容和评分
+        Integer previousRating = existingEvaluation.getRating();
         if (evaluation.getContent() != null) {
             existingEvaluation.setContent(evaluation.getContent());
         }
@@ -89,7 +102,9 @@ public class EvaluationServiceImpl implements EvaluationService {
             existingEvaluation.setRating(evaluation.getRating());
         }
 
-        return evaluationRepository.save(existingEvaluation);
+        Evaluation saved = evaluationRepository.save(existingEvaluation);
+        updateRatingSummary(existingEvaluation.getToUser().getId(), previousRating, saved.getRating(), 0);
+        return saved;
     }
 
     @Override
@@ -99,6 +114,7 @@ public class EvaluationServiceImpl implements EvaluationService {
                 .orElseThrow(() -> new ResourceNotFoundException("评价ID '" + id + "' 不存在"));
 
         evaluationRepository.delete(evaluation);
+        updateRatingSummary(evaluation.getToUser().getId(), evaluation.getRating(), null, -1);
     }
 
     // 新的DTO方法实现
@@ -117,6 +133,7 @@ public class EvaluationServiceImpl implements EvaluationService {
                 .orElseThrow(() -> new ResourceNotFoundException("评价ID '" + id + "' 不存在"));
 
         // 只能更新评价内容和评分
+        Integer previousRating = existingEvaluation.getRating();
         if (evaluationUpdateDto.getContent() != null) {
             existingEvaluation.setContent(evaluationUpdateDto.getContent());
         }
@@ -126,6 +143,7 @@ public class EvaluationServiceImpl implements EvaluationService {
         }
 
         Evaluation updatedEvaluation = evaluationRepository.save(existingEvaluation);
+        updateRatingSummary(existingEvaluation.getToUser().getId(), previousRating, updatedEvaluation.getRating(), 0);
         return EvaluationConverter.toDto(updatedEvaluation);
     }
 
@@ -264,7 +282,7 @@ public class EvaluationServiceImpl implements EvaluationService {
             throw new ResourceNotFoundException("用户ID '" + userId + "' 不存在");
         }
 
-        return evaluationRepository.calculateAverageRating(userId);
+        return userRatingRepository.find(userId).getAverageRating();
     }
 
     @Override
@@ -274,7 +292,27 @@ public class EvaluationServiceImpl implements EvaluationService {
             throw new ResourceNotFoundException("用户ID '" + userId + "' 不存在");
         }
 
-        return evaluationRepository.countByToUserId(userId);
+        return userRatingRepository.find(userId).getEvaluationCount();
+    }
+
+    @Override
+    public Map<Long, RatingSummaryDTO> getRatingSummaries(Collection<Long> userIds) {
+        if (userIds.size() > MAX_RATING_BATCH) {
+            throw new BusinessException("一次最多查询 " + MAX_RATING_BATCH + " 个用户的评分");
+        }
+        Map<Long, RatingSummaryDTO> found = userRatingRepository.findAll(userIds);
+        Map<Long, RatingSummaryDTO> summaries = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            summaries.put(userId, found.getOrDefault(userId, RatingSummaryDTO.of(userId, 0, 0, 0)));
+        }
+        return summaries;
+    }
+
+    @Override
+    @Transactional
+    public void rebuildRatingSummaries() {
+        userRatingRepository.rebuild();
+        coachDirectory.reloadAfterCommit();
     }
 
     @Override
@@ -285,19 +323,17 @@ public class EvaluationServiceImpl implements EvaluationService {
     @Override
     public List<Long> getCoursesNeedEvaluation(Long userId) {
         // 获取用户已完成但未评价的课程
-        List<Course> completedCourses = courseRepository.findByStatusAndStudentIdOrCoachId(
-                CourseStatus.COMPLETED, userId, userId);
-
-        return completedCourses.stream()
-                .filter(course -> {
-                    // 检查用户是否已经评价过该课程
-                    EvaluationType type = course.getStudent().getId().equals(userId) ?
-                            EvaluationType.STUDENT_TO_COACH : EvaluationType.COACH_TO_STUDENT;
-
-                    return !existsEvaluationByCourseAndFromUser(course.getId(), userId, type);
-                })
-                .map(Course::getId)
-                .collect(Collectors.toList());
+        return courseRepository.findCourseIdsNeedEvaluation(userId);
+    }
+
+    /**
+     * 按评分的变化增减被评价者的评价汇总，评分为 null 表示该评价不计入平均分
+     */
+    private void updateRatingSummary(Long toUserId, Integer previousRating, Integer newRating, int evaluationDelta) {
+        long countDelta = (newRating != null ? 1 : 0) - (previousRating != null ? 1 : 0);
+        long sumDelta = (newRating != null ? newRating : 0) - (previousRating != null ? previousRating : 0);
+        userRatingRepository.add(toUserId, countDelta, sumDelta, evaluationDelta);
+        coachDirectory.refreshRatingAfterCommit(toUserId);
     }
 
     /**
@@ -1,25 +1,36 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.dto.CursorPage;
+import com.example.ttp_serve.dto.PaymentDTO;
 import com.example.ttp_serve.dto.PaymentRequestDTO;
 import com.example.ttp_serve.entity.*;
+import com.example.ttp_serve.enums.LedgerEntryType;
 import com.example.ttp_serve.enums.PaymentMethod;
 import com.example.ttp_serve.enums.PaymentStatus;
+import com.example.ttp_serve.enums.PaymentTotalScope;
 import com.example.ttp_serve.enums.PaymentType;
 import com.example.ttp_serve.exception.BusinessException;
 import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.repository.*;
+import com.example.ttp_serve.service.BalanceLedgerService;
 import com.example.ttp_serve.service.PaymentService;
+import com.example.ttp_serve.util.CsvWriter;
+import com.example.ttp_serve.util.KeysetCursor;
+import com.example.ttp_serve.util.OrderIdGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.stream.Stream;
 
 import static com.example.ttp_serve.enums.EnrollmentStatus.PAID;
 
@@ -29,9 +40,11 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
-    private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
     private final ContestEnrollmentRepository contestEnrollmentRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final OrderIdGenerator orderIdGenerator;
+    private final PaymentTotalRepository paymentTotalRepository;
 
     @Override
     @Transactional
@@ -76,10 +89,25 @@ public class PaymentServiceImpl implements PaymentService {
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("支付记录ID '" + id + "' 不存在"));
 
+        PaymentStatus previous = payment.getStatus();
+        if (previous == status) {
+            return payment;
+        }
+
+        // 以读取到的状态为条件更新，期间支付回调等并发操作已修改状态时不再重复计入汇总
+        LocalDateTime now = LocalDateTime.now();
+        int updated = paymentRepository.transitionStatus(payment.getOrderId(), List.of(previous), status, now);
+        if (updated == 0) {
+            throw new BusinessException("支付记录ID '" + id + "' 的状态已被其他操作修改，请刷新后重试");
+        }
+
+        payment = paymentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("支付记录ID '" + id + "' 不存在"));
         payment.setStatus(status);
-        payment.setUpdatedAt(LocalDateTime.now());
+        payment.setUpdatedAt(now);
+        updateTotals(payment, previous);
 
-        return paymentRepository.save(payment);
+        return payment;
     }
 
     @Override
@@ -154,6 +182,26 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentRepository.findByCreatedAtBetween(start, end, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPaymentsCsv(LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException {
+        if (start.isAfter(end)) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRow("ID", "订单号", "用户ID", "用户姓名", "金额", "支付类型", "支付方式", "状态", "关联ID", "创建时间", "更新时间");
+        try (Stream<PaymentDTO> rows = paymentRepository.streamPaymentDTOsByCreatedAtBetween(start, end)) {
+            Iterator<PaymentDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                PaymentDTO p = iterator.next();
+                csv.writeRow(p.getId(), p.getOrderId(), p.getUserId(), p.getUserName(), p.getAmount(),
+                        p.getPaymentType(), p.getPaymentMethod(), p.getStatus(), p.getRelatedId(),
+                        p.getCreatedAt(), p.getUpdatedAt());
+            }
+        }
+        csv.flush();
+    }
+
     @Override
     public List<Payment> getUserPaymentsByDateRange(Long userId, LocalDateTime start, LocalDateTime end) {
         // 检查用户是否存在
@@ -179,14 +227,34 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentRepository.findAll(pageable);
     }
 
+    @Override
+    public CursorPage<Payment> getPaymentsByCursor(String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Payment> rows = position == null
+                ? paymentRepository.findFirstPage(KeysetCursor.limit(size))
+                : paymentRepository.findAfterCursor(position.createdAt(), position.id(), KeysetCursor.limit(size));
+        Long total = withTotal ? paymentRepository.count() : null;
+        return KeysetCursor.toPage(rows, size, Payment::getCreatedAt, Payment::getId, total);
+    }
+
     @Override
     @Transactional
     public Payment processPaymentSuccess(String orderId) {
+        // 先以条件更新抢占状态变更，重复或并发的回调只有一次能执行后续业务逻辑
+        // 已关闭的订单收到迟到的成功回调时同样按成功处理
+        LocalDateTime now = LocalDateTime.now();
+        int updated = paymentRepository.transitionStatus(orderId,
+                List.of(PaymentStatus.PENDING, PaymentStatus.FAILED), PaymentStatus.SUCCESS, now);
         Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("订单号 '" + orderId + "' 不存在"));
+        if (updated == 0) {
+            // 已经处理过
+            return payment;
+        }
 
         payment.setStatus(PaymentStatus.SUCCESS);
-        payment.setUpdatedAt(LocalDateTime.now());
+        payment.setUpdatedAt(now);
+        addToTotals(payment, payment.getAmount());
 
         // 根据支付类型处理相应的业务逻辑
         switch (payment.getPaymentType()) {
@@ -210,11 +278,21 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     @Transactional
     public Payment processPaymentFailure(String orderId) {
+        // 只有待处理的支付可以标记为失败，重复的失败回调不做任何修改
+        LocalDateTime now = LocalDateTime.now();
+        int updated = paymentRepository.transitionStatus(orderId,
+                List.of(PaymentStatus.PENDING), PaymentStatus.FAILED, now);
         Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("订单号 '" + orderId + "' 不存在"));
+        if (updated == 0) {
+            if (payment.getStatus() == PaymentStatus.SUCCESS) {
+                throw new BusinessException("订单号 '" + orderId + "' 已支付成功，不能标记为失败");
+            }
+            return payment;
+        }
 
         payment.setStatus(PaymentStatus.FAILED);
-        payment.setUpdatedAt(LocalDateTime.now());
+        payment.setUpdatedAt(now);
 
         return paymentRepository.save(payment);
     }
@@ -226,17 +304,41 @@ public class PaymentServiceImpl implements PaymentService {
             throw new ResourceNotFoundException("用户ID '" + userId + "' 不存在");
         }
 
-        return paymentRepository.sumAmountByUserId(userId);
+        return paymentTotalRepository.findTotal(PaymentTotalScope.USER, String.valueOf(userId));
     }
 
     @Override
     public BigDecimal getTotalPaymentByType(PaymentType type) {
-        return paymentRepository.sumAmountByPaymentType(type);
+        return paymentTotalRepository.findTotal(PaymentTotalScope.TYPE, type.name());
     }
 
     @Override
     public BigDecimal getCampusTotalPayment(Long campusId) {
-        return paymentRepository.sumAmountByCampusId(campusId);
+        return paymentTotalRepository.findTotal(PaymentTotalScope.CAMPUS, String.valueOf(campusId));
+    }
+
+    @Override
+    @Transactional
+    public void rebuildPaymentTotals() {
+        paymentTotalRepository.rebuild();
+    }
+
+    /**
+     * 支付状态进入或离开成功状态时，在当前事务中同步增减金额汇总
+     */
+    private void updateTotals(Payment payment, PaymentStatus previous) {
+        boolean wasSuccess = previous == PaymentStatus.SUCCESS;
+        boolean isSuccess = payment.getStatus() == PaymentStatus.SUCCESS;
+        if (wasSuccess == isSuccess) {
+            return;
+        }
+        addToTotals(payment, isSuccess ? payment.getAmount() : payment.getAmount().negate());
+    }
+
+    private void addToTotals(Payment payment, BigDecimal amount) {
+        User user = payment.getUser();
+        Long campusId = user.getCampus() != null ? user.getCampus().getId() : null;
+        paymentTotalRepository.add(user.getId(), campusId, payment.getPaymentType(), amount);
     }
 
     @Override
@@ -274,14 +376,10 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BusinessException("非充值类型的支付记录");
         }
 
-        // 更新学员余额
-        Student student = studentRepository.findById(payment.getUser().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("学员不存在"));
-
-        student.setBalance(student.getBalance().add(payment.getAmount()));
-        student.setUpdatedAt(LocalDateTime.now());
-
-        studentRepository.save(student);
+        // 更新学员余额并记录流水，已入账的支付不再重复增加
+        if (!balanceLedgerService.isPosted(payment)) {
+            balanceLedgerService.credit(payment.getUser().getId(), payment.getAmount(), LedgerEntryType.RECHARGE, payment);
+        }
 
         return payment;
     }
@@ -314,14 +412,10 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BusinessException("非退款类型的支付记录");
         }
 
-        // 更新学员余额
-        Student student = studentRepository.findById(payment.getUser().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("学员不存在"));
-
-        student.setBalance(student.getBalance().add(payment.getAmount()));
-        student.setUpdatedAt(LocalDateTime.now());
-
-        studentRepository.save(student);
+        // 退还学员余额并记录流水，已入账的退款不再重复退还
+        if (!balanceLedgerService.isPosted(payment)) {
+            balanceLedgerService.credit(payment.getUser().getId(), payment.getAmount(), LedgerEntryType.REFUND, payment);
+        }
 
         return payment;
     }
@@ -353,6 +447,6 @@ public class PaymentServiceImpl implements PaymentService {
 
     // 生成订单号
     private String generateOrderId() {
-        return "PAY" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return orderIdGenerator.nextId();
     }
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.audit.AuditRecord;
+import com.example.ttp_serve.audit.SystemLogWriter;
+import com.example.ttp_serve.cache.SearchIndexes;
+import com.example.ttp_serve.dto.CursorPage;
+import com.example.ttp_serve.dto.SystemLogWriterStatsDTO;
 import com.example.ttp_serve.entity.SystemLog;
 import com.example.ttp_serve.entity.User;
 import com.example.ttp_serve.repository.SystemLogRepository;
 import com.example.ttp_serve.service.SystemLogService;
+import com.example.ttp_serve.util.KeysetCursor;
+import com.example.ttp_serve.util.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -17,10 +25,15 @@ import java.util.Optional;
 public class SystemLogServiceImpl implements SystemLogService {
 
     private final SystemLogRepository systemLogRepository;
+    private final SystemLogWriter systemLogWriter;
+    private final SearchIndexes searchIndexes;
 
     @Autowired
-    public SystemLogServiceImpl(SystemLogRepository systemLogRepository) {
+    public SystemLogServiceImpl(SystemLogRepository systemLogRepository, SystemLogWriter systemLogWriter,
+                                SearchIndexes searchIndexes) {
         this.systemLogRepository = systemLogRepository;
+        this.systemLogWriter = systemLogWriter;
+        this.searchIndexes = searchIndexes;
     }
 
     @Override
@@ -28,6 +41,14 @@ public class SystemLogServiceImpl implements SystemLogService {
         return systemLogRepository.save(log);
     }
 
+    /**
+     * 异步记录日志，不占用调用方的事务，由后台线程批量写入
+     */
+    @Override
+    public void submitLog(String username, String module, String operation, String ipAddress) {
+        systemLogWriter.submit(new AuditRecord(username, module, operation, ipAddress, LocalDateTime.now()));
+    }
+
     @Override
     public SystemLog getLog(Long id) {
         Optional<SystemLog> log = systemLogRepository.findById(id);
@@ -55,12 +76,29 @@ public class SystemLogServiceImpl implements SystemLogService {
     }
 
     @Override
-    public List<SystemLog> searchLogs(String keyword) {
-        return systemLogRepository.searchByOperationKeyword(keyword);
+    public CursorPage<SystemLog> getLogsByCursor(String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<SystemLog> rows = position == null
+                ? systemLogRepository.findFirstPage(KeysetCursor.limit(size))
+                : systemLogRepository.findAfterCursor(position.createdAt(), position.id(), KeysetCursor.limit(size));
+        Long total = withTotal ? systemLogRepository.count() : null;
+        return KeysetCursor.toPage(rows, size, SystemLog::getCreatedAt, SystemLog::getId, total);
+    }
+
+    @Override
+    public Page<SystemLog> searchLogs(String keyword, Pageable pageable) {
+        SearchIndex.Hits hits = searchIndexes.searchLogs(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        List<SystemLog> logs = hits.order(systemLogRepository.findAllById(hits.ids()), SystemLog::getId);
+        return new PageImpl<>(logs, pageable, hits.total());
     }
 
     @Override
     public Long countLogs() {
         return systemLogRepository.countAll();
     }
+
+    @Override
+    public SystemLogWriterStatsDTO getWriterStats() {
+        return systemLogWriter.getStats();
+    }
 }
\ No newline at end of file
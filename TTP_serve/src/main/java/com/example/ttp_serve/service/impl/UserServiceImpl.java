@@ -1,5 +1,8 @@
 package com.example.ttp_serve.service.impl;
 
+import com.example.ttp_serve.cache.CoachDirectory;
+import com.example.ttp_serve.cache.SearchIndexes;
+import com.example.ttp_serve.cache.UserDetailsCache;
 import com.example.ttp_serve.dto.UserRequestDTO;
 import com.example.ttp_serve.entity.Campus;
 import com.example.ttp_serve.entity.User;
@@ -10,8 +13,10 @@ import com.example.ttp_serve.exception.ResourceNotFoundException;
 import com.example.ttp_serve.repository.CampusRepository;
 import com.example.ttp_serve.repository.UserRepository;
 import com.example.ttp_serve.service.UserService;
+import com.example.ttp_serve.util.SearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,6 +36,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final CampusRepository campusRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final SearchIndexes searchIndexes;
+    private final CoachDirectory coachDirectory;
 
     @Override
     public Optional<User> getUserById(Long id) {
@@ -99,7 +107,10 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        searchIndexes.syncAfterCommit(savedUser);
+        coachDirectory.refreshAfterCommit(savedUser);
+        return savedUser;
     }
 
     @Override
@@ -107,6 +118,7 @@ public class UserServiceImpl implements UserService {
     public User updateUserFromRequest(Long id, UserRequestDTO userRequest) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("用户ID '" + id + "' 不存在"));
+        userDetailsCache.invalidate(existingUser.getUsername());
 
         // 检查用户名是否与其他用户冲突
         if (userRequest.getUsername() != null && !userRequest.getUsername().equals(existingUser.getUsername())) {
@@ -165,7 +177,10 @@ public class UserServiceImpl implements UserService {
 
         existingUser.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        searchIndexes.syncAfterCommit(savedUser);
+        coachDirectory.refreshAfterCommit(savedUser);
+        return savedUser;
     }
 
     // 原有方法保持不变，但需要将createUser和updateUser方法标记为过时或删除
@@ -226,6 +241,8 @@ public class UserServiceImpl implements UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        userDetailsCache.invalidate(user.getUsername());
+        coachDirectory.refreshAfterCommit(user);
     }
 
     @Override
@@ -247,8 +264,10 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> searchUsers(String keyword) {
-        return userRepository.findByUsernameOrRealNameContaining(keyword);
+    public Page<User> searchUsers(String keyword, Pageable pageable) {
+        SearchIndex.Hits hits = searchIndexes.searchUsers(keyword, null, (int) pageable.getOffset(), pageable.getPageSize());
+        List<User> users = hits.order(userRepository.findAllById(hits.ids()), User::getId);
+        return new PageImpl<>(users, pageable, hits.total());
     }
 
     @Override
@@ -260,7 +279,10 @@ public class UserServiceImpl implements UserService {
         user.setStatus(status);
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsCache.invalidate(savedUser.getUsername());
+        coachDirectory.refreshAfterCommit(savedUser);
+        return savedUser;
     }
 
     @Override
@@ -303,7 +325,9 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsCache.invalidate(savedUser.getUsername());
+        return savedUser;
     }
 
     @Override
@@ -331,7 +355,9 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsCache.invalidate(savedUser.getUsername());
+        return savedUser;
     }
 
     @Override
@@ -372,6 +398,8 @@ public class UserServiceImpl implements UserService {
                 user.setStatus(status);
                 user.setUpdatedAt(LocalDateTime.now());
                 userRepository.save(user);
+                userDetailsCache.invalidate(user.getUsername());
+                coachDirectory.refreshAfterCommit(user);
                 updatedCount++;
             } catch (ResourceNotFoundException e) {
                 // 记录日志或跳过不存在的用户
@@ -428,6 +456,7 @@ public class UserServiceImpl implements UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User savedUser = userRepository.save(user);
+        userDetailsCache.invalidate(savedUser.getUsername());
 
         // 在实际应用中，这里应该发送包含新密码的邮件或短信给用户
         // emailService.sendPasswordResetEmail(user.getEmail(), newPassword);
@@ -438,16 +467,30 @@ public class UserServiceImpl implements UserService {
     // 辅助方法：根据用户类型和状态获取用户数量统计
     public UserStats getUserStats() {
         UserStats stats = new UserStats();
-
-        stats.setTotalUsers(userRepository.count());
-        stats.setActiveUsers(userRepository.countByStatus(UserStatus.ACTIVE));
-        stats.setInactiveUsers(userRepository.countByStatus(UserStatus.INACTIVE));
-        stats.setPendingUsers(userRepository.countByStatus(UserStatus.PENDING));
-
+        Map<UserStatus, Long> usersByStatus = new EnumMap<>(UserStatus.class);
         for (UserType type : UserType.values()) {
-            stats.getUsersByType().put(type, userRepository.countByUserType(type));
+            stats.getUsersByType().put(type, 0L);
+        }
+
+        // 按类型和状态分组一次查出，再在内存中汇总
+        long total = 0;
+        for (Object[] row : userRepository.countGroupByUserTypeAndStatus()) {
+            UserType type = (UserType) row[0];
+            UserStatus status = (UserStatus) row[1];
+            long count = (Long) row[2];
+            total += count;
+            if (type != null) {
+                stats.getUsersByType().merge(type, count, Long::sum);
+            }
+            if (status != null) {
+                usersByStatus.merge(status, count, Long::sum);
+            }
         }
 
+        stats.setTotalUsers(total);
+        stats.setActiveUsers(usersByStatus.getOrDefault(UserStatus.ACTIVE, 0L));
+        stats.setInactiveUsers(usersByStatus.getOrDefault(UserStatus.INACTIVE, 0L));
+        stats.setPendingUsers(usersByStatus.getOrDefault(UserStatus.PENDING, 0L));
         return stats;
     }
 
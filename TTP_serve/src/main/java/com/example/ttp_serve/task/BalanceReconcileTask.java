@@ -0,0 +1,44 @@
+package com.example.ttp_serve.task;
+
+import com.example.ttp_serve.dto.BalanceMismatchDTO;
+import com.example.ttp_serve.service.BalanceLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 学员余额对账任务
+ * 每天核对一次学员余额是否等于其余额流水之和，保留最近一次的结果供管理端查询
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceReconcileTask {
+
+    private final BalanceLedgerService balanceLedgerService;
+
+    private volatile List<BalanceMismatchDTO> lastMismatches;
+    private volatile LocalDateTime lastRunAt;
+
+    @Scheduled(cron = "${app.balance-reconcile.cron:0 30 2 * * *}")
+    public List<BalanceMismatchDTO> reconcile() {
+        List<BalanceMismatchDTO> mismatches = balanceLedgerService.reconcile();
+        lastMismatches = mismatches;
+        lastRunAt = LocalDateTime.now();
+        return mismatches;
+    }
+
+    /**
+     * 最近一次对账发现的不一致记录，尚未运行过时立即执行一次
+     */
+    public List<BalanceMismatchDTO> getLastMismatches() {
+        List<BalanceMismatchDTO> mismatches = lastMismatches;
+        return mismatches != null ? mismatches : reconcile();
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.ttp_serve.task;
+
+import com.example.ttp_serve.dto.CourseSweepStatsDTO;
+import com.example.ttp_serve.service.CourseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已结束课程自动完成任务
+ * 定时把结束时间已过的已确认课程标记为已完成，每批一个事务、一条 UPDATE，
+ * 单次运行最多处理 maxChunks 批，剩余的留到下次运行。
+ */
+@Component
+public class ExpiredCourseSweeper {
+
+    private final CourseService courseService;
+    private final int chunkSize;
+    private final int maxChunks;
+
+    private final CourseSweepStatsDTO stats = new CourseSweepStatsDTO();
+
+    public ExpiredCourseSweeper(CourseService courseService,
+                                @Value("${app.course-sweep.chunk-size:500}") int chunkSize,
+                                @Value("${app.course-sweep.max-chunks:20}") int maxChunks) {
+        this.courseService = courseService;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        stats.setTotalRows(0L);
+        stats.setRunCount(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.course-sweep.interval-ms:300000}",
+            initialDelayString = "${app.course-sweep.initial-delay-ms:60000}")
+    public void sweep() {
+        long begin = System.currentTimeMillis();
+        LocalDateTime currentTime = LocalDateTime.now();
+        int rows = 0;
+        int chunks = 0;
+        while (chunks < maxChunks) {
+            int updated = courseService.completeExpiredCoursesChunk(currentTime, chunkSize);
+            chunks++;
+            rows += updated;
+            if (updated < chunkSize) {
+                break;
+            }
+        }
+        record(currentTime, rows, chunks, System.currentTimeMillis() - begin);
+    }
+
+    /**
+     * 最近一次运行的行数、批数和耗时，以及累计完成的课程数
+     */
+    public synchronized CourseSweepStatsDTO getStats() {
+        CourseSweepStatsDTO copy = new CourseSweepStatsDTO();
+        copy.setLastRunAt(stats.getLastRunAt());
+        copy.setLastRunRows(stats.getLastRunRows());
+        copy.setLastRunChunks(stats.getLastRunChunks());
+        copy.setLastRunMillis(stats.getLastRunMillis());
+        copy.setTotalRows(stats.getTotalRows());
+        copy.setRunCount(stats.getRunCount());
+        return copy;
+    }
+
+    private synchronized void record(LocalDateTime runAt, int rows, int chunks, long millis) {
+        stats.setLastRunAt(runAt);
+        stats.setLastRunRows(rows);
+        stats.setLastRunChunks(chunks);
+        stats.setLastRunMillis(millis);
+        stats.setTotalRows(stats.getTotalRows() + rows);
+        stats.setRunCount(stats.getRunCount() + 1);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.ttp_serve.task;
+
+import com.example.ttp_serve.dto.PaymentReconcileStatsDTO;
+import com.example.ttp_serve.entity.Payment;
+import com.example.ttp_serve.enums.PaymentMethod;
+import com.example.ttp_serve.enums.PaymentStatus;
+import com.example.ttp_serve.enums.PaymentType;
+import com.example.ttp_serve.repository.BalanceLedgerRepository;
+import com.example.ttp_serve.repository.PaymentRepository;
+import com.example.ttp_serve.service.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 待处理支付对账任务
+ * 以只读事务流式读取超时仍为待处理的支付记录，每攒满一批在新事务中逐条结算：
+ * 课程费用在确认课程时已扣款，直接标记成功；退款已入账的标记成功，未入账的留给人工处理；
+ * 线上渠道的充值和报名费超时未回调，按支付失败关闭；线下支付等待人工确认，不自动处理。
+ * 某一批出错时整批回滚，再逐条重试以跳过出错的记录。
+ */
+@Component
+public class PaymentReconcileTask {
+
+    private enum Settlement { SUCCESS, FAILURE, SKIP }
+
+    private final PaymentRepository paymentRepository;
+    private final BalanceLedgerRepository balanceLedgerRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate streamTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final long pendingTimeoutMinutes;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final PaymentReconcileStatsDTO stats = new PaymentReconcileStatsDTO();
+
+    public PaymentReconcileTask(PaymentRepository paymentRepository,
+                                BalanceLedgerRepository balanceLedgerRepository,
+                                PaymentService paymentService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.payment-reconcile.pending-timeout-minutes:30}") long pendingTimeoutMinutes,
+                                @Value("${app.payment-reconcile.chunk-size:200}") int chunkSize) {
+        this.paymentRepository = paymentRepository;
+        this.balanceLedgerRepository = balanceLedgerRepository;
+        this.paymentService = paymentService;
+        this.streamTransaction = new TransactionTemplate(transactionManager);
+        this.streamTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pendingTimeoutMinutes = pendingTimeoutMinutes;
+        this.chunkSize = chunkSize;
+        stats.setRunning(false);
+        stats.setTotalSucceeded(0L);
+        stats.setTotalFailed(0L);
+        stats.setRunCount(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment-reconcile.interval-ms:600000}",
+            initialDelayString = "${app.payment-reconcile.initial-delay-ms:120000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * 执行一次对账
+     * @return 已有对账在进行时返回 false
+     */
+    public boolean reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        long begin = System.currentTimeMillis();
+        try {
+            LocalDateTime before = LocalDateTime.now().minusMinutes(pendingTimeoutMinutes);
+            start(paymentRepository.countByStatusAndCreatedAtBefore(PaymentStatus.PENDING, before));
+            streamTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = paymentRepository.streamPendingCreatedBefore(before)) {
+                    List<Object[]> chunk = new ArrayList<>(chunkSize);
+                    rows.forEach(row -> {
+                        chunk.add(row);
+                        if (chunk.size() >= chunkSize) {
+                            settleChunk(chunk);
+                            chunk.clear();
+                        }
+                    });
+                    settleChunk(chunk);
+                }
+            });
+        } finally {
+            finish(System.currentTimeMillis() - begin);
+            running.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * 当前或最近一次运行的进度，以及累计结算的数量
+     */
+    public synchronized PaymentReconcileStatsDTO getStats() {
+        PaymentReconcileStatsDTO copy = new PaymentReconcileStatsDTO();
+        copy.setRunning(stats.getRunning());
+        copy.setRunStartedAt(stats.getRunStartedAt());
+        copy.setRunFinishedAt(stats.getRunFinishedAt());
+        copy.setRunTotal(stats.getRunTotal());
+        copy.setRunProcessed(stats.getRunProcessed());
+        copy.setRunSucceeded(stats.getRunSucceeded());
+        copy.setRunFailed(stats.getRunFailed());
+        copy.setRunSkipped(stats.getRunSkipped());
+        copy.setRunErrors(stats.getRunErrors());
+        copy.setRunMillis(stats.getRunMillis());
+        copy.setTotalSucceeded(stats.getTotalSucceeded());
+        copy.setTotalFailed(stats.getTotalFailed());
+        copy.setRunCount(stats.getRunCount());
+        return copy;
+    }
+
+    private void settleChunk(List<Object[]> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            int[] counts = chunkTransaction.execute(status -> settleAll(chunk));
+            record(counts, 0);
+        } catch (RuntimeException e) {
+            // 整批已回滚，逐条重试，只跳过真正出错的记录
+            for (Object[] row : chunk) {
+                try {
+                    record(chunkTransaction.execute(status -> settleAll(List.<Object[]>of(row))), 0);
+                } catch (RuntimeException ex) {
+                    record(new int[3], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在当前事务中结算一批支付，返回 [成功, 失败, 跳过] 的数量
+     */
+    private int[] settleAll(List<Object[]> rows) {
+        int[] counts = new int[3];
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            String orderId = (String) row[1];
+            // 读取后可能已被支付回调处理，以最新状态为准
+            PaymentStatus current = paymentRepository.findById(id).map(Payment::getStatus).orElse(null);
+            Settlement settlement = current == PaymentStatus.PENDING
+                    ? decide(id, (PaymentType) row[2], (PaymentMethod) row[3])
+                    : Settlement.SKIP;
+            switch (settlement) {
+                case SUCCESS:
+                    paymentService.processPaymentSuccess(orderId);
+                    counts[0]++;
+                    break;
+                case FAILURE:
+                    paymentService.processPaymentFailure(orderId);
+                    counts[1]++;
+                    break;
+                case SKIP:
+                    counts[2]++;
+                    break;
+            }
+        }
+        return counts;
+    }
+
+    private Settlement decide(Long id, PaymentType type, PaymentMethod method) {
+        switch (type) {
+            case COURSE_FEE:
+                return Settlement.SUCCESS;
+            case REFUND:
+                return balanceLedgerRepository.existsByPaymentId(id) ? Settlement.SUCCESS : Settlement.SKIP;
+            case RECHARGE:
+            case CONTEST_FEE:
+                return method == PaymentMethod.OFFLINE ? Settlement.SKIP : Settlement.FAILURE;
+            default:
+                return Settlement.SKIP;
+        }
+    }
+
+    private synchronized void start(long total) {
+        stats.setRunning(true);
+        stats.setRunStartedAt(LocalDateTime.now());
+        stats.setRunFinishedAt(null);
+        stats.setRunTotal(total);
+        stats.setRunProcessed(0L);
+        stats.setRunSucceeded(0L);
+        stats.setRunFailed(0L);
+        stats.setRunSkipped(0L);
+        stats.setRunErrors(0L);
+        stats.setRunMillis(null);
+    }
+
+    private synchronized void record(int[] counts, int errors) {
+        stats.setRunProcessed(stats.getRunProcessed() + counts[0] + counts[1] + counts[2] + errors);
+        stats.setRunSucceeded(stats.getRunSucceeded() + counts[0]);
+        stats.setRunFailed(stats.getRunFailed() + counts[1]);
+        stats.setRunSkipped(stats.getRunSkipped() + counts[2]);
+        stats.setRunErrors(stats.getRunErrors() + errors);
+        stats.setTotalSucceeded(stats.getTotalSucceeded() + counts[0]);
+        stats.setTotalFailed(stats.getTotalFailed() + counts[1]);
+    }
+
+    private synchronized void finish(long millis) {
+        stats.setRunning(false);
+        stats.setRunFinishedAt(LocalDateTime.now());
+        stats.setRunMillis(millis);
+        stats.setRunCount(stats.getRunCount() + 1);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.ttp_serve.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 校区层级的不可变快照
+ * 校区按先序遍历排列，每个位置记录父节点位置和子树结束位置（不含），
+ * 因此一个校区的全部下级校区就是数组中紧随其后的一段，判断上下级关系只需比较位置，
+ * 查询上级校区沿父节点数组向上走，都不需要访问数据库。同级校区按ID排序。
+ * 父校区不存在或数据中出现环时，从断开处起作为顶级校区处理。
+ */
+public final class CampusTree {
+
+    public record Node(Long id, Long parentId, String name, String address, String contactPerson,
+                       String contactPhone, String email, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    // 按先序排列的校区
+    private final Node[] nodes;
+    // 父校区的先序位置，顶级校区为 -1
+    private final int[] parents;
+    // 子树在先序数组中的结束位置（不含）
+    private final int[] ends;
+    // 按ID排序的校区ID及其先序位置，用于二分查找
+    private final long[] sortedIds;
+    private final int[] positions;
+
+    private CampusTree(Node[] nodes, int[] parents, int[] ends, long[] sortedIds, int[] positions) {
+        this.nodes = nodes;
+        this.parents = parents;
+        this.ends = ends;
+        this.sortedIds = sortedIds;
+        this.positions = positions;
+    }
+
+    public static CampusTree of(Collection<Node> campuses) {
+        Node[] byId = campuses.toArray(new Node[0]);
+        Arrays.sort(byId, Comparator.comparing(Node::id));
+        int n = byId.length;
+        long[] sortedIds = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortedIds[i] = byId[i].id();
+        }
+
+        // 按ID下标建立子节点链表，倒序插入使同级校区按ID排列
+        int[] firstChild = new int[n];
+        int[] nextSibling = new int[n];
+        Arrays.fill(firstChild, -1);
+        boolean[] hasParent = new boolean[n];
+        for (int i = n - 1; i >= 0; i--) {
+            int parent = indexOf(sortedIds, byId[i].parentId());
+            if (parent >= 0 && parent != i) {
+                nextSibling[i] = firstChild[parent];
+                firstChild[parent] = i;
+                hasParent[i] = true;
+            }
+        }
+
+        Node[] nodes = new Node[n];
+        int[] parents = new int[n];
+        int[] ends = new int[n];
+        int[] positions = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] cursor = firstChild.clone();
+        int next = 0;
+        // 先从没有父校区的校区开始遍历，剩下未访问的只可能在环上，逐个断开作为顶级校区
+        for (int pass = 0; pass < 2; pass++) {
+            for (int start = 0; start < n; start++) {
+                if (visited[start] || (pass == 0 && hasParent[start])) {
+                    continue;
+                }
+                visited[start] = true;
+                positions[start] = next;
+                parents[next] = -1;
+                nodes[next++] = byId[start];
+                int depth = 0;
+                stack[depth++] = start;
+                while (depth > 0) {
+                    int top = stack[depth - 1];
+                    int child = cursor[top];
+                    if (child < 0) {
+                        ends[positions[top]] = next;
+                        depth--;
+                        continue;
+                    }
+                    cursor[top] = nextSibling[child];
+                    if (!visited[child]) {
+                        visited[child] = true;
+                        positions[child] = next;
+                        parents[next] = positions[top];
+                        nodes[next++] = byId[child];
+                        stack[depth++] = child;
+                    }
+                }
+            }
+        }
+        return new CampusTree(nodes, parents, ends, sortedIds, positions);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public boolean contains(Long id) {
+        return positionOf(id) >= 0;
+    }
+
+    /**
+     * 按ID获取校区，不存在时返回 null
+     */
+    public Node get(Long id) {
+        int position = positionOf(id);
+        return position >= 0 ? nodes[position] : null;
+    }
+
+    /**
+     * 顶级校区
+     */
+    public List<Node> roots() {
+        List<Node> roots = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i = ends[i]) {
+            roots.add(nodes[i]);
+        }
+        return roots;
+    }
+
+    /**
+     * 直接下级校区，校区不存在时返回空列表
+     */
+    public List<Node> children(Long id) {
+        List<Node> children = new ArrayList<>();
+        int position = positionOf(id);
+        if (position < 0) {
+            return children;
+        }
+        for (int i = position + 1; i < ends[position]; i = ends[i]) {
+            children.add(nodes[i]);
+        }
+        return children;
+    }
+
+    /**
+     * 全部下级校区（不含自身），按先序排列
+     */
+    public List<Node> descendants(Long id) {
+        int position = positionOf(id);
+        if (position < 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(nodes).subList(position + 1, ends[position]));
+    }
+
+    /**
+     * 校区自身及全部下级校区的ID，校区不存在时返回空列表
+     */
+    public List<Long> subtreeIds(Long id) {
+        int position = positionOf(id);
+        if (position < 0) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(ends[position] - position);
+        for (int i = position; i < ends[position]; i++) {
+            ids.add(nodes[i].id());
+        }
+        return ids;
+    }
+
+    /**
+     * 从直接上级到顶级校区依次排列的上级校区
+     */
+    public List<Node> ancestors(Long id) {
+        List<Node> ancestors = new ArrayList<>();
+        int position = positionOf(id);
+        for (int i = position >= 0 ? parents[position] : -1; i >= 0; i = parents[i]) {
+            ancestors.add(nodes[i]);
+        }
+        return ancestors;
+    }
+
+    /**
+     * id 是否为 rootId 自身或其下级校区
+     */
+    public boolean isInSubtree(Long rootId, Long id) {
+        int root = positionOf(rootId);
+        int position = positionOf(id);
+        return root >= 0 && position >= root && position < ends[root];
+    }
+
+    private int positionOf(Long id) {
+        int index = indexOf(sortedIds, id);
+        return index >= 0 ? positions[index] : -1;
+    }
+
+    private static int indexOf(long[] sortedIds, Long id) {
+        if (id == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? index : -1;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.ttp_serve.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 月赛小组名次与淘汰赛对阵
+ * 小组名次由组内胜负矩阵在内存中计算：先比胜场；胜场相同的选手之间比相互交手的胜场，
+ * 再比负场（少者在前，小组赛未赛完时起作用），最后按选手ID。
+ * 各组前若干名进入淘汰赛，各组第一按成绩占据前面的种子位，其次是各组第二，依此类推。
+ * 对阵树规模取不小于晋级人数的2的幂，按标准种子顺序放置（1号和2号种子只会在决赛相遇），
+ * 空位即轮空，首轮尽量避免同组选手再次相遇。
+ */
+public final class ContestBracket {
+
+    public record Result(int groupNumber, long player1, long player2, Long winner) {
+    }
+
+    public record Standing(int groupNumber, int rank, long playerId, int played, int wins, int losses) {
+    }
+
+    /**
+     * 淘汰赛首轮：size 为首轮选手位置数，leaves[i] 为对阵树位置 size + i 上的选手，null 表示轮空。
+     * 首轮比赛位于位置 size/2 到 size-1，位置 m 的双方为位置 2m 和 2m+1 上的选手。
+     */
+    public record Draw(int size, Long[] leaves) {
+
+        public Long playerAt(int position) {
+            return leaves[position - size];
+        }
+    }
+
+    private ContestBracket() {
+    }
+
+    /**
+     * 按组计算名次，未决出胜负的比赛只计入选手名单
+     */
+    public static Map<Integer, List<Standing>> standings(List<Result> results) {
+        Map<Integer, Map<Long, Integer>> playersByGroup = new TreeMap<>();
+        Map<Integer, List<Result>> resultsByGroup = new TreeMap<>();
+        for (Result result : results) {
+            Map<Long, Integer> players = playersByGroup.computeIfAbsent(result.groupNumber(), k -> new LinkedHashMap<>());
+            players.putIfAbsent(result.player1(), players.size());
+            players.putIfAbsent(result.player2(), players.size());
+            resultsByGroup.computeIfAbsent(result.groupNumber(), k -> new ArrayList<>()).add(result);
+        }
+
+        Map<Integer, List<Standing>> standings = new TreeMap<>();
+        for (Map.Entry<Integer, Map<Long, Integer>> entry : playersByGroup.entrySet()) {
+            int groupNumber = entry.getKey();
+            Map<Long, Integer> players = entry.getValue();
+            int n = players.size();
+            long[] ids = new long[n];
+            players.forEach((id, index) -> ids[index] = id);
+
+            // beat[i][j] 为选手i胜选手j的场次
+            int[][] beat = new int[n][n];
+            int[] played = new int[n];
+            int[] wins = new int[n];
+            for (Result result : resultsByGroup.get(groupNumber)) {
+                if (result.winner() == null) {
+                    continue;
+                }
+                int a = players.get(result.player1());
+                int b = players.get(result.player2());
+                int winner = result.winner() == result.player1() ? a : b;
+                int loser = winner == a ? b : a;
+                played[a]++;
+                played[b]++;
+                wins[winner]++;
+                beat[winner][loser]++;
+            }
+
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingInt(i -> -wins[i]).thenComparingLong(i -> ids[i]));
+
+            // 胜场相同的选手按相互间的胜场、负场重新排序
+            for (int from = 0; from < n; ) {
+                int to = from + 1;
+                while (to < n && wins[order[to]] == wins[order[from]]) {
+                    to++;
+                }
+                if (to - from > 1) {
+                    Integer[] tied = Arrays.copyOfRange(order, from, to);
+                    int[] mutual = new int[n];
+                    for (int i : tied) {
+                        for (int j : tied) {
+                            mutual[i] += beat[i][j];
+                        }
+                    }
+                    Arrays.sort(tied, Comparator.<Integer>comparingInt(i -> -mutual[i])
+                            .thenComparingInt(i -> played[i] - wins[i])
+                            .thenComparingLong(i -> ids[i]));
+                    System.arraycopy(tied, 0, order, from, tied.length);
+                }
+                from = to;
+            }
+
+            List<Standing> group = new ArrayList<>(n);
+            for (int rank = 0; rank < n; rank++) {
+                int i = order[rank];
+                group.add(new Standing(groupNumber, rank + 1, ids[i], played[i], wins[i], played[i] - wins[i]));
+            }
+            standings.put(groupNumber, group);
+        }
+        return standings;
+    }
+
+    /**
+     * 取各组前 perGroup 名生成淘汰赛首轮
+     */
+    public static Draw draw(Map<Integer, List<Standing>> standings, int perGroup) {
+        List<Standing> qualifiers = new ArrayList<>();
+        for (int rank = 1; rank <= perGroup; rank++) {
+            List<Standing> tier = new ArrayList<>();
+            for (List<Standing> group : standings.values()) {
+                if (group.size() >= rank) {
+                    tier.add(group.get(rank - 1));
+                }
+            }
+            tier.sort(Comparator.comparingInt((Standing s) -> -s.wins())
+                    .thenComparingInt(Standing::losses)
+                    .thenComparingInt(Standing::groupNumber));
+            qualifiers.addAll(tier);
+        }
+        if (qualifiers.size() < 2) {
+            throw new IllegalArgumentException("晋级淘汰赛的选手不足2人");
+        }
+
+        int size = 1;
+        while (size < qualifiers.size()) {
+            size <<= 1;
+        }
+        int[] seeds = seedOrder(size);
+        Long[] leaves = new Long[size];
+        int[] groups = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (seeds[i] <= qualifiers.size()) {
+                Standing standing = qualifiers.get(seeds[i] - 1);
+                leaves[i] = standing.playerId();
+                groups[i] = standing.groupNumber();
+            }
+        }
+        avoidSameGroup(leaves, groups);
+        return new Draw(size, leaves);
+    }
+
+    /**
+     * 标准种子顺序：返回各位置上的种子号（从1开始），首轮为第 s 号对第 size+1-s 号
+     */
+    static int[] seedOrder(int size) {
+        int[] order = {1};
+        while (order.length < size) {
+            int n = order.length * 2;
+            int[] next = new int[n];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = n + 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    /**
+     * 首轮同组相遇时，与最近的另一场比赛交换种子较低的一方，交换后两场都不能是同组相遇
+     */
+    private static void avoidSameGroup(Long[] leaves, int[] groups) {
+        int matches = leaves.length / 2;
+        for (int k = 0; k < matches; k++) {
+            if (!sameGroup(leaves, groups, 2 * k, 2 * k + 1)) {
+                continue;
+            }
+            for (int distance = 1; distance < matches; distance++) {
+                int other = swapCandidate(leaves, groups, k, k + distance);
+                if (other < 0) {
+                    other = swapCandidate(leaves, groups, k, k - distance);
+                }
+                if (other >= 0) {
+                    swap(leaves, groups, 2 * k + 1, 2 * other + 1);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int swapCandidate(Long[] leaves, int[] groups, int k, int other) {
+        if (other < 0 || other >= leaves.length / 2 || leaves[2 * other + 1] == null) {
+            return -1;
+        }
+        boolean valid = groups[2 * k] != groups[2 * other + 1] && groups[2 * other] != groups[2 * k + 1];
+        return valid ? other : -1;
+    }
+
+    private static boolean sameGroup(Long[] leaves, int[] groups, int a, int b) {
+        return leaves[a] != null && leaves[b] != null && groups[a] == groups[b];
+    }
+
+    private static void swap(Long[] leaves, int[] groups, int a, int b) {
+        Long leaf = leaves[a];
+        leaves[a] = leaves[b];
+        leaves[b] = leaf;
+        int group = groups[a];
+        groups[a] = groups[b];
+        groups[b] = group;
+    }
+}
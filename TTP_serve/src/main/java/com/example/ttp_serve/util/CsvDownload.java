@@ -0,0 +1,51 @@
+package com.example.ttp_serve.util;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV 文件下载响应
+ * 内容在响应线程中边查询边写出；客户端声明支持 gzip 时压缩传输。
+ */
+public final class CsvDownload {
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private CsvDownload() {
+    }
+
+    public static ResponseEntity<StreamingResponseBody> of(String filename, String acceptEncoding, Body body) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(TEXT_CSV);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody stream = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 16 * 1024);
+                body.writeTo(gzipOut);
+                gzipOut.finish();
+            } else {
+                body.writeTo(out);
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().headers(headers).body(stream);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
@@ -35,6 +36,7 @@ public class JwtUtil {
                 .collect(Collectors.toList());
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
                 .claim("authorities", authorities)
                 .setIssuedAt(now)
@@ -67,6 +69,20 @@ public class JwtUtil {
         return claims.getExpiration().getTime() / 1000;
     }
 
+    /**
+     * 解析并验证JWT令牌，令牌无效时返回 null
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parser()
+                    .setSigningKey(jwtSecret)
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * 验证JWT令牌
      */
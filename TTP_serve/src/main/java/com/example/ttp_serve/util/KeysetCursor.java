@@ -0,0 +1,73 @@
+package com.example.ttp_serve.util;
+
+import com.example.ttp_serve.dto.CursorPage;
+import com.example.ttp_serve.exception.BusinessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * (createdAt, id) 键集分页游标
+ * 游标以 Base64URL 编码，对调用方不透明
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    // 单页最大条数
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，游标为空时返回 null 表示从第一页开始
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 多取一条用于判断是否还有下一页
+     */
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, normalizeSize(size) + 1);
+    }
+
+    public static int normalizeSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 根据多取一条的查询结果构建游标分页
+     */
+    public static <T> CursorPage<T> toPage(List<T> rows, int size,
+                                           Function<T, LocalDateTime> createdAt,
+                                           Function<T, Long> id,
+                                           Long totalElements) {
+        int pageSize = normalizeSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(createdAt.apply(last), id.apply(last)).encode();
+        }
+        return new CursorPage<>(content, pageSize, nextCursor, hasNext, totalElements);
+    }
+}
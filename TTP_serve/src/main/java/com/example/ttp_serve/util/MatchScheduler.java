@@ -0,0 +1,280 @@
+package com.example.ttp_serve.util;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 比赛时段排程
+ * 把一天中的比赛时间按固定时长切成时段，每个时段把互不冲突的比赛分配到当时空闲的球台上并行进行：
+ * 同一时段内每名选手最多一场、每张球台最多一场，已被课程或其他比赛占用的球台和选手不参与该时段。
+ * 每个时段优先安排剩余场次最多的选手的比赛（按双方剩余场次之和做计数排序），
+ * 使总时段数尽量接近下界 max(总场次 / 球台数, 单个选手的场次)。
+ * 当天的比赛时间用完后顺延到次日同一时间段。可排程的范围由场次、球台数和单个选手的场次推算，
+ * 另留出若干天给被占用的时段。非线程安全，每次排程新建实例。
+ */
+public class MatchScheduler {
+
+    // 在推算的时段数之外为球台和选手被占用的时段预留的天数，超过说明球台长期被占用，无法排完
+    private static final int BLOCKED_DAYS = 14;
+
+    public record Match(long player1, long player2) {
+    }
+
+    public record Assignment(int matchIndex, int slot, long courtId, LocalDateTime startTime) {
+    }
+
+    public record Result(List<Assignment> assignments, int slots, int lowerBound,
+                         LocalDateTime endTime, long solveNanos) {
+    }
+
+    private final LocalDate firstDay;
+    private final LocalTime dayStart;
+    private final int slotMinutes;
+    private final int slotsPerDay;
+
+    private final List<Long> courts = new ArrayList<>();
+    private final Map<Long, IntervalTree> courtBlocks = new HashMap<>();
+    private final Map<Long, IntervalTree> playerBlocks = new HashMap<>();
+    private long blockSequence;
+    private long notBeforeMinutes = Long.MIN_VALUE;
+
+    public MatchScheduler(LocalDate firstDay, LocalTime dayStart, LocalTime dayEnd, int slotMinutes) {
+        if (slotMinutes <= 0) {
+            throw new IllegalArgumentException("比赛时长必须大于0");
+        }
+        this.firstDay = firstDay;
+        this.dayStart = dayStart;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = (int) (Duration.between(dayStart, dayEnd).toMinutes() / slotMinutes);
+        if (slotsPerDay <= 0) {
+            throw new IllegalArgumentException("每天的比赛时间不足一场比赛");
+        }
+    }
+
+    public void addCourt(long courtId) {
+        if (!courts.contains(courtId)) {
+            courts.add(courtId);
+        }
+    }
+
+    /**
+     * 标记球台在 [start, end) 已被占用
+     */
+    public void blockCourt(long courtId, LocalDateTime start, LocalDateTime end) {
+        block(courtBlocks, courtId, start, end);
+    }
+
+    /**
+     * 标记选手在 [start, end) 已有其他安排
+     */
+    public void blockPlayer(long playerId, LocalDateTime start, LocalDateTime end) {
+        block(playerBlocks, playerId, start, end);
+    }
+
+    /**
+     * 只使用不早于该时间开始的时段，用于比赛开始后追加的场次
+     */
+    public void startNotBefore(LocalDateTime time) {
+        notBeforeMinutes = minutesOf(time);
+    }
+
+    /**
+     * 第一个时段的开始时间
+     */
+    public LocalDateTime firstSlotStart() {
+        return slotStart(0);
+    }
+
+    /**
+     * 排这些比赛时可排程范围的结束时间，查询占用情况时只需覆盖到这里；需在添加球台之后调用
+     */
+    public LocalDateTime horizonEnd(List<Match> matches) {
+        Map<Long, Integer> played = new HashMap<>();
+        for (Match match : matches) {
+            played.merge(match.player1(), 1, Integer::sum);
+            played.merge(match.player2(), 1, Integer::sum);
+        }
+        int maxPlayed = played.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        return slotStart(horizonSlots(matches.size(), maxPlayed) - 1).plusMinutes(slotMinutes);
+    }
+
+    public LocalDateTime slotStart(int slot) {
+        return firstDay.plusDays(slot / slotsPerDay)
+                .atTime(dayStart)
+                .plusMinutes((long) (slot % slotsPerDay) * slotMinutes);
+    }
+
+    public Result schedule(List<Match> matches) {
+        long begin = System.nanoTime();
+        if (courts.isEmpty()) {
+            throw new IllegalStateException("没有可用球台");
+        }
+
+        // 选手编号压缩为连续下标
+        Map<Long, Integer> playerIndex = new LinkedHashMap<>();
+        int[] p1 = new int[matches.size()];
+        int[] p2 = new int[matches.size()];
+        for (int i = 0; i < matches.size(); i++) {
+            Match match = matches.get(i);
+            if (match.player1() == match.player2()) {
+                throw new IllegalArgumentException("比赛双方不能是同一名选手");
+            }
+            p1[i] = playerIndex.computeIfAbsent(match.player1(), k -> playerIndex.size());
+            p2[i] = playerIndex.computeIfAbsent(match.player2(), k -> playerIndex.size());
+        }
+        long[] playerIds = playerIndex.keySet().stream().mapToLong(Long::longValue).toArray();
+        int[] remaining = new int[playerIds.length];
+        for (int i = 0; i < matches.size(); i++) {
+            remaining[p1[i]]++;
+            remaining[p2[i]]++;
+        }
+        int maxRemaining = 0;
+        for (int r : remaining) {
+            maxRemaining = Math.max(maxRemaining, r);
+        }
+        int lowerBound = Math.max(maxRemaining, (matches.size() + courts.size() - 1) / courts.size());
+
+        List<Assignment> assignments = new ArrayList<>(matches.size());
+        int[] pending = new int[matches.size()];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = i;
+        }
+        int pendingCount = pending.length;
+        boolean[] assigned = new boolean[matches.size()];
+
+        // 计数排序用的桶：按双方剩余场次之和分组，同组内保持比赛原有顺序
+        int[] bucketStart = new int[2 * maxRemaining + 2];
+        int[] ordered = new int[matches.size()];
+        int[] playedInSlot = new int[playerIds.length];
+        boolean[] blockedInSlot = new boolean[playerIds.length];
+        int slotMark = 0;
+
+        int maxSlots = horizonSlots(matches.size(), maxRemaining);
+        int lastSlot = -1;
+        for (int slot = 0; pendingCount > 0; slot++) {
+            if (slot >= maxSlots) {
+                throw new IllegalStateException("在" + (maxSlots / slotsPerDay) + "天内无法排完全部比赛，请检查球台占用情况");
+            }
+            long start = minutesOf(slotStart(slot));
+            long end = start + slotMinutes;
+            if (start < notBeforeMinutes) {
+                continue;
+            }
+
+            List<Long> freeCourts = new ArrayList<>(courts.size());
+            for (Long courtId : courts) {
+                IntervalTree blocks = courtBlocks.get(courtId);
+                if (blocks == null || !blocks.overlaps(start, end)) {
+                    freeCourts.add(courtId);
+                }
+            }
+            if (freeCourts.isEmpty()) {
+                continue;
+            }
+
+            slotMark++;
+            if (!playerBlocks.isEmpty()) {
+                for (int p = 0; p < playerIds.length; p++) {
+                    IntervalTree blocks = playerBlocks.get(playerIds[p]);
+                    blockedInSlot[p] = blocks != null && blocks.overlaps(start, end);
+                }
+            }
+
+            // 按剩余场次之和从大到小排列待排比赛
+            Arrays.fill(bucketStart, 0);
+            for (int k = 0; k < pendingCount; k++) {
+                int m = pending[k];
+                bucketStart[remaining[p1[m]] + remaining[p2[m]]]++;
+            }
+            int offset = 0;
+            for (int key = bucketStart.length - 1; key >= 0; key--) {
+                int count = bucketStart[key];
+                bucketStart[key] = offset;
+                offset += count;
+            }
+            for (int k = 0; k < pendingCount; k++) {
+                int m = pending[k];
+                ordered[bucketStart[remaining[p1[m]] + remaining[p2[m]]]++] = m;
+            }
+
+            int used = 0;
+            for (int k = 0; k < pendingCount && used < freeCourts.size(); k++) {
+                int m = ordered[k];
+                int a = p1[m];
+                int b = p2[m];
+                if (playedInSlot[a] == slotMark || playedInSlot[b] == slotMark || blockedInSlot[a] || blockedInSlot[b]) {
+                    continue;
+                }
+                playedInSlot[a] = slotMark;
+                playedInSlot[b] = slotMark;
+                assigned[m] = true;
+                assignments.add(new Assignment(m, slot, freeCourts.get(used), slotStart(slot)));
+                used++;
+            }
+            if (used == 0) {
+                continue;
+            }
+
+            // 移除本时段已安排的比赛并更新剩余场次
+            int kept = 0;
+            for (int k = 0; k < pendingCount; k++) {
+                int m = pending[k];
+                if (assigned[m]) {
+                    remaining[p1[m]]--;
+                    remaining[p2[m]]--;
+                } else {
+                    pending[kept++] = m;
+                }
+            }
+            pendingCount = kept;
+            lastSlot = slot;
+        }
+
+        LocalDateTime endTime = lastSlot >= 0 ? slotStart(lastSlot).plusMinutes(slotMinutes) : null;
+        return new Result(assignments, lastSlot + 1, lowerBound, endTime, System.nanoTime() - begin);
+    }
+
+    /**
+     * 可排程的时段数：开始时间之前跳过的时段，加上不考虑占用时贪心排程所需时段数的上界
+     * （每个未排满的时段里，剩余比赛都至少有一方已在该时段比赛，故不超过 总场次/球台数 + 2×单个选手场次），
+     * 按整天向上取整后再加上预留给占用时段的天数
+     */
+    private int horizonSlots(int matchCount, int maxPlayed) {
+        if (courts.isEmpty()) {
+            throw new IllegalStateException("没有可用球台");
+        }
+        long needed = firstUsableSlot() + (matchCount + courts.size() - 1) / courts.size() + 2L * maxPlayed;
+        long days = (needed + slotsPerDay - 1) / slotsPerDay + BLOCKED_DAYS;
+        return (int) Math.min(Integer.MAX_VALUE / 2, days * slotsPerDay);
+    }
+
+    private int firstUsableSlot() {
+        if (notBeforeMinutes <= 0) {
+            return 0;
+        }
+        long dayMinutes = Duration.ofDays(1).toMinutes();
+        long day = notBeforeMinutes / dayMinutes;
+        long offset = notBeforeMinutes % dayMinutes - dayStart.toSecondOfDay() / 60;
+        long slotInDay = Math.min(slotsPerDay, Math.max(0, (offset + slotMinutes - 1) / slotMinutes));
+        return (int) Math.min(Integer.MAX_VALUE / 4, day * slotsPerDay + slotInDay);
+    }
+
+    private void block(Map<Long, IntervalTree> blocks, long id, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            return;
+        }
+        blocks.computeIfAbsent(id, k -> new IntervalTree()).insert(++blockSequence, minutesOf(start), minutesOf(end));
+    }
+
+    private long minutesOf(LocalDateTime time) {
+        return Duration.between(firstDay.atStartOfDay(), time).toMinutes();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.ttp_serve.util;
+
+/**
+ * 支付订单号生成器
+ * 由 app.order-id.generator 选择实现：snowflake（默认）或 uuid（旧格式）
+ */
+public interface OrderIdGenerator {
+
+    String nextId();
+}
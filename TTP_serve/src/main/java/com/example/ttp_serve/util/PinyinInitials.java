@@ -0,0 +1,72 @@
+package com.example.ttp_serve.util;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+/**
+ * 汉字拼音首字母
+ * GB2312 一级汉字（3755个常用字）按拼音排序，根据汉字的 GB2312 编码落在哪个声母区间即可得到首字母，
+ * 不需要拼音词典。二级汉字和非 GB2312 字符没有首字母；多音字取一级字库排序所用的读音。
+ */
+public final class PinyinInitials {
+
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    // 各首字母在 GB2312 一级汉字中的起始编码，最后一项为一级汉字的结束位置（不含）
+    private static final int[] BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7, 0xBFA6, 0xC0AC, 0xC2E8,
+            0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6, 0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA
+    };
+    private static final String LETTERS = "abcdefghjklmnopqrstwxyz";
+
+    private PinyinInitials() {
+    }
+
+    /**
+     * 返回文本中汉字的拼音首字母串，例如“张三丰”返回 "zsf"；
+     * 字母和数字原样保留（转为小写），其他字符跳过。文本中没有汉字时返回 null
+     */
+    public static String of(String text) {
+        if (text == null) {
+            return null;
+        }
+        CharsetEncoder encoder = GB2312.newEncoder();
+        StringBuilder initials = new StringBuilder(text.length());
+        boolean hasHan = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (Character.isLetterOrDigit(c)) {
+                    initials.append(Character.toLowerCase(c));
+                }
+                continue;
+            }
+            char initial = initialOf(encoder, c);
+            if (initial != 0) {
+                initials.append(initial);
+                hasHan = true;
+            }
+        }
+        return hasHan ? initials.toString() : null;
+    }
+
+    private static char initialOf(CharsetEncoder encoder, char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN || !encoder.canEncode(c)) {
+            return 0;
+        }
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) {
+            return 0;
+        }
+        int code = (bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF);
+        if (code < BOUNDARIES[0] || code >= BOUNDARIES[BOUNDARIES.length - 1]) {
+            return 0;
+        }
+        for (int i = LETTERS.length() - 1; i >= 0; i--) {
+            if (code >= BOUNDARIES[i]) {
+                return LETTERS.charAt(i);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.ttp_serve.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 内存 n-gram 倒排索引
+ * 每个文档由若干按权重从高到低排列的字段组成。字段统一做全角转半角和小写处理后，按单字和相邻两字建立倒排表；
+ * 含汉字的字段另外索引其拼音首字母（见 {@link PinyinInitials}），权重低于所有原字段，可以用 "zs" 搜到“张三”。
+ * 查询按空白切分为多个词，各词都要命中。候选集取所有词的 n-gram 中倒排表最短的一个，再逐个校验字段是否包含各词，
+ * 因此命中范围与 LIKE '%词%' 一致，但不需要扫描全部文档。
+ * 命中结果依次按匹配方式（与字段完全相同、字段前缀、单词开头、任意位置）、字段权重、字段长度和文档ID排序。
+ * 非线程安全，由调用方加锁。
+ */
+public class SearchIndex<A> {
+
+    // 已删除的文档槽位超过该数量且多于有效文档时整理倒排表
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    public record Hits(List<Long> ids, int total) {
+
+        /**
+         * 按命中顺序排列按ID查出的记录，索引同步前已删除的记录跳过
+         */
+        public <T> List<T> order(Iterable<T> rows, Function<T, Long> idOf) {
+            Map<Long, T> byId = new HashMap<>();
+            rows.forEach(row -> byId.put(idOf.apply(row), row));
+            List<T> ordered = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                T row = byId.get(id);
+                if (row != null) {
+                    ordered.add(row);
+                }
+            }
+            return ordered;
+        }
+    }
+
+    private record Doc<A>(long id, A attributes, String[] fields) {
+    }
+
+    private record Hit(long id, int kinds, int fields, int length) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::kinds)
+            .thenComparingInt(Hit::fields)
+            .thenComparingInt(Hit::length)
+            .thenComparingLong(Hit::id);
+
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    // 槽位到文档，删除或更新后原槽位置为 null，倒排表中的旧槽位在查询时跳过
+    private List<Doc<A>> docs = new ArrayList<>();
+    private Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private int deleted;
+
+    /**
+     * 添加或替换文档，fields 按权重从高到低排列，可以为 null
+     */
+    public void put(long id, A attributes, String... fields) {
+        remove(id);
+        String[] indexed = new String[fields.length * 2];
+        for (int i = 0; i < fields.length; i++) {
+            indexed[i] = normalize(fields[i]);
+            indexed[fields.length + i] = PinyinInitials.of(indexed[i]);
+        }
+        attach(new Doc<>(id, attributes, indexed));
+    }
+
+    public void remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        docs.set(slot, null);
+        deleted++;
+        if (deleted > COMPACT_THRESHOLD && deleted > slots.size()) {
+            compact();
+        }
+    }
+
+    public boolean contains(long id) {
+        return slots.containsKey(id);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * 查询第 offset 条起的 limit 条命中结果，query 为空时返回全部满足 filter 的文档（按ID排序）
+     */
+    public Hits search(String query, Predicate<? super A> filter, int offset, int limit) {
+        String[] terms = terms(query);
+        List<Hit> hits = new ArrayList<>();
+        if (terms.length == 0) {
+            for (Doc<A> doc : docs) {
+                if (doc != null && (filter == null || filter.test(doc.attributes()))) {
+                    hits.add(new Hit(doc.id(), 0, 0, 0));
+                }
+            }
+        } else {
+            Postings candidates = candidates(terms);
+            for (int k = 0; candidates != null && k < candidates.size; k++) {
+                Doc<A> doc = docs.get(candidates.slots[k]);
+                if (doc == null || (filter != null && !filter.test(doc.attributes()))) {
+                    continue;
+                }
+                Hit hit = match(doc, terms);
+                if (hit != null) {
+                    hits.add(hit);
+                }
+            }
+        }
+        hits.sort(RANKING);
+
+        int from = Math.min(Math.max(offset, 0), hits.size());
+        int to = (int) Math.min((long) from + Math.max(limit, 0), hits.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(hits.get(i).id());
+        }
+        return new Hits(ids, hits.size());
+    }
+
+    /**
+     * 全角转半角、转小写并去掉首尾空白，空串返回 null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).strip();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static String[] terms(String query) {
+        String normalized = normalize(query);
+        if (normalized == null) {
+            return new String[0];
+        }
+        Set<String> terms = new LinkedHashSet<>(Arrays.asList(normalized.split("\\s+")));
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * 取各词 n-gram 中最短的倒排表，任一 n-gram 没有倒排表时返回 null
+     */
+    private Postings candidates(String[] terms) {
+        Postings shortest = null;
+        for (String term : terms) {
+            for (String gram : grams(term)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return null;
+                }
+                if (shortest == null || list.size < shortest.size) {
+                    shortest = list;
+                }
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * 各词都要命中某个字段，匹配方式和字段权重取各词最好的一处相加
+     */
+    private static Hit match(Doc<?> doc, String[] terms) {
+        int kinds = 0;
+        int fields = 0;
+        int length = 0;
+        for (String term : terms) {
+            int bestKind = Integer.MAX_VALUE;
+            int bestField = 0;
+            for (int f = 0; f < doc.fields().length; f++) {
+                String field = doc.fields()[f];
+                int kind = field != null ? matchKind(field, term) : Integer.MAX_VALUE;
+                if (kind < bestKind) {
+                    bestKind = kind;
+                    bestField = f;
+                }
+            }
+            if (bestKind == Integer.MAX_VALUE) {
+                return null;
+            }
+            kinds += bestKind;
+            fields += bestField;
+            length += doc.fields()[bestField].length();
+        }
+        return new Hit(doc.id(), kinds, fields, length);
+    }
+
+    // 0 完全相同，1 字段前缀，2 单词开头，3 任意位置，不包含时返回 Integer.MAX_VALUE
+    private static int matchKind(String field, String term) {
+        int pos = field.indexOf(term);
+        if (pos < 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (pos == 0) {
+            return field.length() == term.length() ? 0 : 1;
+        }
+        for (; pos > 0; pos = field.indexOf(term, pos + 1)) {
+            if (!Character.isLetterOrDigit(field.charAt(pos - 1))) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    /**
+     * 单字的词用单字倒排表，否则用相邻两字，跨空白的 n-gram 不建索引
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text.length() == 1) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + 1 < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i)) && !Character.isWhitespace(text.charAt(i + 1))) {
+                grams.add(text.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    private void attach(Doc<A> doc) {
+        int slot = docs.size();
+        docs.add(doc);
+        slots.put(doc.id(), slot);
+        Set<String> grams = new LinkedHashSet<>();
+        for (String field : doc.fields()) {
+            if (field == null) {
+                continue;
+            }
+            for (int i = 0; i < field.length(); i++) {
+                if (!Character.isWhitespace(field.charAt(i))) {
+                    grams.add(field.substring(i, i + 1));
+                }
+            }
+            grams.addAll(grams(field));
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, k -> new Postings()).add(slot);
+        }
+    }
+
+    private void compact() {
+        List<Doc<A>> live = new ArrayList<>(slots.size());
+        for (Doc<A> doc : docs) {
+            if (doc != null) {
+                live.add(doc);
+            }
+        }
+        docs = new ArrayList<>(live.size());
+        postings = new HashMap<>();
+        slots.clear();
+        deleted = 0;
+        live.forEach(this::attach);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.ttp_serve.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法订单号生成器
+ * 64 位ID = 41 位毫秒时间（自 2024-01-01 起）| 10 位节点号 | 12 位序号，
+ * 输出为 "PAY" 加 19 位补零的十进制数，定长且按生成时间排序。
+ * 上次使用的时间和序号打包在一个 AtomicLong 中，通过 CAS 循环无锁推进：
+ * 同一毫秒内序号用完时借用下一毫秒，时钟回拨时沿用已用过的最大时间继续递增，
+ * 逻辑时间超前实际时钟过多时自旋等待，回拨超过上限时抛出异常。
+ */
+public class SnowflakeOrderIdGenerator implements OrderIdGenerator {
+
+    public static final String PREFIX = "PAY";
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ID_DIGITS = 19;
+
+    private final long nodeId;
+    private final long maxAheadMs;
+    private final long maxRollbackMs;
+    private final LongSupplier clock;
+
+    // 高位为上次使用的逻辑时间（相对 EPOCH），低 12 位为该毫秒内已用的序号
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeOrderIdGenerator(long nodeId) {
+        this(nodeId, 1000, 10000, System::currentTimeMillis);
+    }
+
+    SnowflakeOrderIdGenerator(long nodeId, long maxAheadMs, long maxRollbackMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0 到 " + MAX_NODE_ID + " 之间");
+        }
+        this.nodeId = nodeId;
+        this.maxAheadMs = maxAheadMs;
+        this.maxRollbackMs = maxRollbackMs;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return format(nextLong());
+    }
+
+    /**
+     * 生成数值形式的ID
+     */
+    public long nextLong() {
+        while (true) {
+            long current = state.get();
+            long lastTime = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                long behind = lastTime - now;
+                if (behind > maxRollbackMs) {
+                    throw new IllegalStateException("系统时钟回拨 " + behind + " 毫秒，无法生成订单号");
+                }
+                if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                    next = current + 1;
+                } else if (behind < maxAheadMs) {
+                    // 本毫秒序号已用完，借用下一毫秒
+                    next = (lastTime + 1) << SEQUENCE_BITS;
+                } else {
+                    // 借用的时间已超前实际时钟太多，等待时钟追上
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 格式化为定长订单号，字典序与数值大小一致
+     */
+    static String format(long id) {
+        char[] chars = new char[PREFIX.length() + ID_DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.ttp_serve.util;
+
+import java.util.UUID;
+
+/**
+ * 旧格式订单号："PAY" + 毫秒时间戳 + UUID 前8位，不保证跨节点唯一
+ */
+public class UuidOrderIdGenerator implements OrderIdGenerator {
+
+    @Override
+    public String nextId() {
+        return "PAY" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
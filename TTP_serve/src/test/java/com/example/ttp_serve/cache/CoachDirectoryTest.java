@@ -0,0 +1,213 @@
+package com.example.ttp_serve.cache;
+
+import com.example.ttp_serve.dto.CoachDTO;
+import com.example.ttp_serve.dto.CoachFilterDTO;
+import com.example.ttp_serve.entity.Campus;
+import com.example.ttp_serve.entity.Coach;
+import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.Gender;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.exception.BusinessException;
+import com.example.ttp_serve.repository.CampusRepository;
+import com.example.ttp_serve.repository.CoachRepository;
+import com.example.ttp_serve.repository.UserRatingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 教练目录的筛选、排序、分页和变更后的重新加载。
+ * 目录在独立的只读事务中加载，测试数据需要先提交，因此测试本身不开启事务。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:coach_directory;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CoachDirectory.class, CampusHierarchy.class, UserRatingRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CoachDirectoryTest {
+
+    @Autowired
+    private CoachDirectory coachDirectory;
+
+    @Autowired
+    private CampusHierarchy campusHierarchy;
+
+    @Autowired
+    private CampusRepository campusRepository;
+
+    @Autowired
+    private CoachRepository coachRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Campus headquarters;
+    private Long senior;
+    private Long junior;
+    private Long intermediate;
+    private Long seniorBranch;
+
+    @BeforeEach
+    void setUp() {
+        // user_rating 由 JdbcTemplate 维护，不在实体中
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_rating (user_id BIGINT PRIMARY KEY, " +
+                "rating_count INT NOT NULL DEFAULT 0, rating_sum BIGINT NOT NULL DEFAULT 0, " +
+                "evaluation_count INT NOT NULL DEFAULT 0)");
+
+        headquarters = campusRepository.save(campus("总校", null));
+        Campus branch = campusRepository.save(campus("分校", headquarters));
+        Campus other = campusRepository.save(campus("东区", null));
+
+        senior = coach("coach_senior", CoachLevel.SENIOR, Gender.MALE, 30, headquarters, "200.00", 20);
+        junior = coach("coach_junior", CoachLevel.JUNIOR, Gender.FEMALE, 25, branch, "80.00", 3);
+        intermediate = coach("coach_mid", CoachLevel.INTERMEDIATE, Gender.FEMALE, 40, other, "150.00", 0);
+        seniorBranch = coach("coach_senior_b", CoachLevel.SENIOR, Gender.FEMALE, 35, branch, "199.99", 5);
+
+        rate(senior, 2, 10);
+        rate(junior, 1, 4);
+        rate(seniorBranch, 2, 9);
+        campusHierarchy.invalidateAfterCommit();
+        coachDirectory.warmUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_rating");
+        coachRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM campus WHERE parent_id IS NOT NULL");
+        jdbcTemplate.update("DELETE FROM campus");
+    }
+
+    @Test
+    void filtersByCampusSubtreeAvailabilityPriceAgeAndLevel() {
+        CoachFilterDTO filter = new CoachFilterDTO();
+        filter.setCampusId(headquarters.getId());
+        assertEquals(List.of(senior), find(filter));
+
+        filter.setIncludeSubCampuses(true);
+        assertEquals(List.of(senior, junior, seniorBranch), find(filter));
+
+        filter.setAvailable(true);
+        assertEquals(List.of(junior, seniorBranch), find(filter));
+
+        filter.setMaxHourlyRate(new BigDecimal("199.98"));
+        assertEquals(List.of(junior), find(filter));
+
+        CoachFilterDTO priceAndGender = new CoachFilterDTO();
+        priceAndGender.setGender(Gender.FEMALE);
+        priceAndGender.setMinHourlyRate(new BigDecimal("100"));
+        assertEquals(List.of(intermediate, seniorBranch), find(priceAndGender));
+
+        CoachFilterDTO ageAndLevel = new CoachFilterDTO();
+        ageAndLevel.setMinAge(30);
+        ageAndLevel.setMaxAge(35);
+        assertEquals(List.of(senior, seniorBranch), find(ageAndLevel));
+        ageAndLevel.setLevel(CoachLevel.SENIOR);
+        ageAndLevel.setGender(Gender.MALE);
+        assertEquals(List.of(senior), find(ageAndLevel));
+    }
+
+    @Test
+    void sortsAndPagesWithCampusNameAndRating() {
+        Page<CoachDTO> first = coachDirectory.find(null, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "averageRating")));
+        assertEquals(4, first.getTotalElements());
+        assertEquals(List.of(senior, seniorBranch), ids(first.getContent()));
+        assertEquals(5.0, first.getContent().get(0).getAverageRating());
+        assertEquals("总校", first.getContent().get(0).getCampusName());
+        assertEquals("分校", first.getContent().get(1).getCampusName());
+
+        Page<CoachDTO> second = coachDirectory.find(null, PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "averageRating")));
+        assertEquals(List.of(junior, intermediate), ids(second.getContent()));
+
+        assertEquals(List.of(junior, intermediate, seniorBranch, senior),
+                ids(coachDirectory.find(null, PageRequest.of(0, 10, Sort.by("hourlyRate"))).getContent()));
+        assertThrows(BusinessException.class,
+                () -> coachDirectory.find(null, PageRequest.of(0, 10, Sort.by("phone"))));
+    }
+
+    @Test
+    void reloadsChangedCoachesRatingsAndCampusNames() {
+        Coach coach = coachRepository.findById(junior).orElseThrow();
+        coach.setCurrentStudents(20);
+        coachRepository.save(coach);
+        coachDirectory.refreshAfterCommit(junior);
+
+        CoachFilterDTO available = new CoachFilterDTO();
+        available.setAvailable(true);
+        assertEquals(List.of(intermediate, seniorBranch), find(available));
+
+        coachRepository.deleteById(intermediate);
+        coachDirectory.refreshAfterCommit(intermediate);
+        assertNull(coachDirectory.get(intermediate));
+
+        rate(junior, 1, 2);
+        coachDirectory.refreshRatingAfterCommit(junior);
+        assertEquals(3.0, coachDirectory.get(junior).getAverageRating());
+
+        jdbcTemplate.update("UPDATE campus SET name = ? WHERE id = ?", "总部", headquarters.getId());
+        coachDirectory.refreshCampusAfterCommit(headquarters.getId());
+        assertEquals("总部", coachDirectory.get(senior).getCampusName());
+    }
+
+    private List<Long> find(CoachFilterDTO filter) {
+        return ids(coachDirectory.find(filter, PageRequest.of(0, 100)).getContent());
+    }
+
+    private static List<Long> ids(List<CoachDTO> coaches) {
+        return coaches.stream().map(CoachDTO::getId).toList();
+    }
+
+    private void rate(Long coachId, int ratingCount, int ratingSum) {
+        jdbcTemplate.update("MERGE INTO user_rating (user_id, rating_count, rating_sum, evaluation_count) KEY (user_id) " +
+                "SELECT ?, COALESCE(MAX(rating_count), 0) + ?, COALESCE(MAX(rating_sum), 0) + ?, " +
+                "COALESCE(MAX(evaluation_count), 0) + ? FROM user_rating WHERE user_id = ?",
+                coachId, ratingCount, ratingSum, ratingCount, coachId);
+    }
+
+    private static Campus campus(String name, Campus parent) {
+        Campus campus = new Campus();
+        campus.setName(name);
+        campus.setParent(parent);
+        return campus;
+    }
+
+    private Long coach(String username, CoachLevel level, Gender gender, int age, Campus campus,
+                       String hourlyRate, int currentStudents) {
+        Coach coach = new Coach();
+        coach.setUsername(username);
+        coach.setPassword("password123");
+        coach.setRealName(username);
+        coach.setPhone("13800138000");
+        coach.setUserType(UserType.COACH);
+        coach.setGender(gender);
+        coach.setAge(age);
+        coach.setCampus(campus);
+        coach.setLevel(level);
+        coach.setHourlyRate(new BigDecimal(hourlyRate));
+        coach.setMaxStudents(20);
+        coach.setCurrentStudents(currentStudents);
+        return coachRepository.save(coach).getId();
+    }
+}
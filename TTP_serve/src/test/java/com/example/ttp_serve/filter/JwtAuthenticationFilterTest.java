@@ -0,0 +1,91 @@
+package com.example.ttp_serve.filter;
+
+import com.example.ttp_serve.cache.TokenRevocationStore;
+import com.example.ttp_serve.cache.UserDetailsCache;
+import com.example.ttp_serve.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 令牌只能从 Authorization 请求头获取，月赛实时推送额外接受 access_token 查询参数。
+ */
+class JwtAuthenticationFilterTest {
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = mock(JwtUtil.class);
+        UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+        TokenRevocationStore tokenRevocationStore = mock(TokenRevocationStore.class);
+        filter = new JwtAuthenticationFilter(jwtUtil, mock(UserDetailsService.class),
+                userDetailsCache, tokenRevocationStore);
+
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("alice");
+        when(jwtUtil.parseClaims("token")).thenReturn(claims);
+        when(userDetailsCache.get("alice"))
+                .thenReturn(User.withUsername("alice").password("x").roles("STUDENT").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void liveStreamAcceptsQueryToken() throws Exception {
+        Authentication authentication = filter(request("GET", "/api/contests/12/live", "token"));
+
+        assertNotNull(authentication);
+        assertEquals("alice", authentication.getName());
+    }
+
+    @Test
+    void headerTakesPrecedenceOverQueryToken() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/contests/12/live", "other");
+        request.addHeader("Authorization", "Bearer token");
+
+        assertNotNull(filter(request));
+        verify(jwtUtil, never()).parseClaims("other");
+    }
+
+    @Test
+    void otherEndpointsIgnoreQueryToken() throws Exception {
+        assertNull(filter(request("GET", "/api/contests/12", "token")));
+        assertNull(filter(request("POST", "/api/contests/12/live", "token")));
+        assertNull(filter(request("GET", "/api/contests/12/live/extra", "token")));
+        verify(jwtUtil, never()).parseClaims(anyString());
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setParameter("access_token", token);
+        return request;
+    }
+}
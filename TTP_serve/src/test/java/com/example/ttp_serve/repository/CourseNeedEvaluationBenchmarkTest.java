@@ -0,0 +1,277 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.entity.*;
+import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.CourseStatus;
+import com.example.ttp_serve.enums.EvaluationType;
+import com.example.ttp_serve.enums.UserType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在10万节课程、约9万条评价的数据上比较“需要评价的课程”查询：
+ * 原做法为按用户加载已完成课程后逐课程查询是否已评价，现为一条 NOT EXISTS 反连接查询。
+ * 课程按下标轮流分配给教练和学员，状态和评价情况由下标决定，期望结果可以直接算出。
+ * 数据量较大，整个测试类只写入一次且各测试只读，不随默认测试运行，使用 -Pbenchmark 执行。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:need_evaluation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CourseNeedEvaluationBenchmarkTest {
+
+    private static final int COURSE_COUNT = 100_000;
+    private static final int COACH_COUNT = 20;
+    private static final int STUDENT_COUNT = 50;
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EvaluationRepository evaluationRepository;
+
+    @Autowired
+    private CampusRepository campusRepository;
+
+    @Autowired
+    private CourtRepository courtRepository;
+
+    @Autowired
+    private CoachRepository coachRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> coachIds = new ArrayList<>();
+    private final List<Long> studentIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        Campus campus = new Campus();
+        campus.setName("测试校区");
+        campus = campusRepository.save(campus);
+
+        Court court = new Court();
+        court.setCampus(campus);
+        court.setCourtNumber("Court-01");
+        court = courtRepository.save(court);
+
+        for (int i = 0; i < COACH_COUNT; i++) {
+            Coach coach = new Coach();
+            fillUser(coach, "coach_" + i, UserType.COACH, campus);
+            coach.setLevel(CoachLevel.SENIOR);
+            coach.setHourlyRate(new BigDecimal("200.00"));
+            coachIds.add(coachRepository.save(coach).getId());
+        }
+        for (int i = 0; i < STUDENT_COUNT; i++) {
+            Student student = new Student();
+            fillUser(student, "student_" + i, UserType.STUDENT, campus);
+            studentIds.add(studentRepository.save(student).getId());
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusDays(400).withNano(0);
+        List<Object[]> courses = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            Timestamp startTime = Timestamp.valueOf(start.plusHours(i % 4000 * 2L));
+            Timestamp endTime = Timestamp.valueOf(start.plusHours(i % 4000 * 2L + 1));
+            courses.add(new Object[]{coachIds.get(coachOf(i)), studentIds.get(studentOf(i)), court.getId(),
+                    startTime, endTime, BigDecimal.ONE, new BigDecimal("200.00"), statusOf(i).name(), startTime});
+            if (courses.size() == BATCH_SIZE) {
+                insertCourses(courses);
+            }
+        }
+        insertCourses(courses);
+
+        List<Long> courseIds = jdbcTemplate.queryForList("SELECT id FROM course ORDER BY id", Long.class);
+        List<Object[]> evaluations = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            if (statusOf(i) != CourseStatus.COMPLETED) {
+                continue;
+            }
+            Long coachId = coachIds.get(coachOf(i));
+            Long studentId = studentIds.get(studentOf(i));
+            if (studentEvaluated(i)) {
+                evaluations.add(new Object[]{courseIds.get(i), studentId, coachId, EvaluationType.STUDENT_TO_COACH.name()});
+            }
+            if (coachEvaluated(i)) {
+                evaluations.add(new Object[]{courseIds.get(i), coachId, studentId, EvaluationType.COACH_TO_STUDENT.name()});
+            }
+            if (evaluations.size() >= BATCH_SIZE) {
+                insertEvaluations(evaluations);
+            }
+        }
+        insertEvaluations(evaluations);
+    }
+
+    @BeforeEach
+    void clearStatistics() {
+        statistics().clear();
+    }
+
+    @Test
+    void antiJoinMatchesPerCourseLookupForStudent() {
+        int student = 7;
+        Set<Long> expected = expectedIds(i -> studentOf(i) == student && !studentEvaluated(i));
+
+        Set<Long> legacy = perCourseLookup(studentIds.get(student), true);
+        // 原做法每节已完成课程一条查询
+        assertEquals(1 + completedCount(i -> studentOf(i) == student), statistics().getPrepareStatementCount());
+
+        statistics().clear();
+        List<Long> antiJoin = courseRepository.findCourseIdsNeedEvaluation(studentIds.get(student));
+
+        assertEquals(expected, legacy);
+        assertEquals(expected, new HashSet<>(antiJoin));
+        assertEquals(expected.size(), antiJoin.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void antiJoinMatchesPerCourseLookupForCoach() {
+        int coach = 3;
+        Set<Long> expected = expectedIds(i -> coachOf(i) == coach && !coachEvaluated(i));
+
+        Set<Long> legacy = perCourseLookup(coachIds.get(coach), false);
+        assertEquals(1 + completedCount(i -> coachOf(i) == coach), statistics().getPrepareStatementCount());
+
+        statistics().clear();
+        List<Long> antiJoin = courseRepository.findCourseIdsNeedEvaluation(coachIds.get(coach));
+
+        assertEquals(expected, legacy);
+        assertEquals(expected, new HashSet<>(antiJoin));
+        assertEquals(expected.size(), antiJoin.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void courseDTOsNeedEvaluationUseSingleStatement() {
+        Long studentId = studentIds.get(0);
+
+        assertEquals(courseRepository.findCourseIdsNeedEvaluation(studentId).size(),
+                courseRepository.findCourseDTOsNeedEvaluation(studentId).size());
+        assertEquals(2, statistics().getPrepareStatementCount());
+    }
+
+    /**
+     * 原做法：加载用户的已完成课程，再逐课程查询该用户是否已写过对应类型的评价
+     */
+    private Set<Long> perCourseLookup(Long userId, boolean asStudent) {
+        List<Course> completed = asStudent
+                ? courseRepository.findByStudentIdAndStatus(userId, CourseStatus.COMPLETED)
+                : courseRepository.findByCoachIdAndStatus(userId, CourseStatus.COMPLETED);
+        EvaluationType type = asStudent ? EvaluationType.STUDENT_TO_COACH : EvaluationType.COACH_TO_STUDENT;
+        Set<Long> ids = new HashSet<>();
+        for (Course course : completed) {
+            if (!evaluationRepository.existsByCourseIdAndFromUserIdAndType(course.getId(), userId, type)) {
+                ids.add(course.getId());
+            }
+        }
+        return ids;
+    }
+
+    private Set<Long> expectedIds(IntPredicate pending) {
+        List<Long> courseIds = jdbcTemplate.queryForList("SELECT id FROM course ORDER BY id", Long.class);
+        statistics().clear();
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            if (statusOf(i) == CourseStatus.COMPLETED && pending.test(i)) {
+                ids.add(courseIds.get(i));
+            }
+        }
+        return ids;
+    }
+
+    private static long completedCount(IntPredicate owner) {
+        long count = 0;
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            if (statusOf(i) == CourseStatus.COMPLETED && owner.test(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int coachOf(int i) {
+        return i % COACH_COUNT;
+    }
+
+    private static int studentOf(int i) {
+        return i % STUDENT_COUNT;
+    }
+
+    // 四分之三的课程已完成，其余为已确认
+    private static CourseStatus statusOf(int i) {
+        return i % 4 == 0 ? CourseStatus.CONFIRMED : CourseStatus.COMPLETED;
+    }
+
+    private static boolean studentEvaluated(int i) {
+        return i % 3 != 0;
+    }
+
+    private static boolean coachEvaluated(int i) {
+        return i % 7 < 4;
+    }
+
+    private void insertCourses(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO course (coach_user_id, student_user_id, court_id, start_time, end_time, " +
+                "duration, fee, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private void insertEvaluations(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO evaluation (course_id, from_user_id, to_user_id, content, rating, type) " +
+                "VALUES (?, ?, ?, '好', 5, ?)", rows);
+        rows.clear();
+    }
+
+    private void fillUser(User user, String username, UserType userType, Campus campus) {
+        user.setUsername(username);
+        user.setPassword("password123");
+        user.setRealName(username);
+        user.setPhone("13800138000");
+        user.setUserType(userType);
+        user.setCampus(campus);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.ttp_serve.repository;
+
+import com.example.ttp_serve.dto.CourseDTO;
+import com.example.ttp_serve.entity.*;
+import com.example.ttp_serve.enums.CoachLevel;
+import com.example.ttp_serve.enums.CourseStatus;
+import com.example.ttp_serve.enums.EvaluationType;
+import com.example.ttp_serve.enums.UserType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+class CourseRepositoryTest {
+
+    private static final int COURSE_COUNT = 5;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Campus campus;
+    private Coach coach;
+    private Student student;
+    private final List<Long> courseIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        campus = new Campus();
+        campus.setName("测试校区");
+        entityManager.persist(campus);
+
+        coach = new Coach();
+        fillUser(coach, "coach_test", "测试教练", UserType.COACH);
+        coach.setLevel(CoachLevel.SENIOR);
+        coach.setHourlyRate(new BigDecimal("200.00"));
+        entityManager.persist(coach);
+
+        student = new Student();
+        fillUser(student, "student_test", "测试学员", UserType.STUDENT);
+        entityManager.persist(student);
+
+        Court court = new Court();
+        court.setCampus(campus);
+        court.setCourtNumber("Court-01");
+        entityManager.persist(court);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            Course course = new Course();
+            course.setCoach(coach);
+            course.setStudent(student);
+            course.setCourt(court);
+            course.setStartTime(start.plusHours(i * 2L));
+            course.setEndTime(start.plusHours(i * 2L + 1));
+            course.setDuration(BigDecimal.ONE);
+            course.setFee(new BigDecimal("200.00"));
+            course.setStatus(CourseStatus.PENDING);
+            entityManager.persist(course);
+            courseIds.add(course.getId());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+    }
+
+    @Test
+    void findAllCourseDTOsUsesSingleStatement() {
+        List<CourseDTO> courses = courseRepository.findAllCourseDTOs();
+
+        assertEquals(COURSE_COUNT, courses.size());
+        assertEquals("测试教练", courses.get(0).getCoachName());
+        assertEquals("测试学员", courses.get(0).getStudentName());
+        assertEquals("Court-01", courses.get(0).getCourtNumber());
+        assertEquals("测试校区", courses.get(0).getCampusName());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void findCourseDTOsByCampusIdUsesSingleStatement() {
+        List<CourseDTO> courses = courseRepository.findCourseDTOsByCampusId(campus.getId());
+
+        assertEquals(COURSE_COUNT, courses.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void findCourseDTOsByCoachIdUsesSingleStatement() {
+        List<CourseDTO> courses = courseRepository.findCourseDTOsByCoachId(coach.getId());
+
+        assertEquals(COURSE_COUNT, courses.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void findCourseIdsNeedEvaluationSkipsEvaluatedAndUnfinishedCourses() {
+        // 前四节已完成：0 双方都已评价，1 只有学员评价，2 只有教练评价，3 都未评价；4 未完成
+        for (int i = 0; i < 4; i++) {
+            entityManager.find(Course.class, courseIds.get(i)).setStatus(CourseStatus.COMPLETED);
+        }
+        evaluate(0, student, coach, EvaluationType.STUDENT_TO_COACH);
+        evaluate(0, coach, student, EvaluationType.COACH_TO_STUDENT);
+        evaluate(1, student, coach, EvaluationType.STUDENT_TO_COACH);
+        evaluate(2, coach, student, EvaluationType.COACH_TO_STUDENT);
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+
+        // 按结束时间倒序
+        assertEquals(List.of(courseIds.get(3), courseIds.get(2)),
+                courseRepository.findCourseIdsNeedEvaluation(student.getId()));
+        assertEquals(List.of(courseIds.get(3), courseIds.get(1)),
+                courseRepository.findCourseIdsNeedEvaluation(coach.getId()));
+        assertEquals(List.of(courseIds.get(3), courseIds.get(2)),
+                courseRepository.findCourseDTOsNeedEvaluation(student.getId()).stream().map(CourseDTO::getId).toList());
+        assertEquals(3, statistics().getPrepareStatementCount());
+    }
+
+    private void evaluate(int course, User from, User to, EvaluationType type) {
+        Evaluation evaluation = new Evaluation();
+        evaluation.setCourse(entityManager.find(Course.class, courseIds.get(course)));
+        evaluation.setFromUser(from);
+        evaluation.setToUser(to);
+        evaluation.setContent("好");
+        evaluation.setRating(5);
+        evaluation.setType(type);
+        entityManager.persist(evaluation);
+    }
+
+    private void fillUser(User user, String username, String realName, UserType userType) {
+        user.setUsername(username);
+        user.setPassword("password123");
+        user.setRealName(realName);
+        user.setPhone("13800138000");
+        user.setUserType(userType);
+        user.setCampus(campus);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ttp_serve.service;
+
+import com.example.ttp_serve.entity.BalanceLedger;
+import com.example.ttp_serve.entity.Student;
+import com.example.ttp_serve.enums.LedgerEntryType;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.exception.BusinessException;
+import com.example.ttp_serve.repository.BalanceLedgerRepository;
+import com.example.ttp_serve.repository.StudentRepository;
+import com.example.ttp_serve.service.impl.BalanceLedgerServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多线程并发扣款/充值同一学员，验证不会透支且余额始终等于流水之和。
+ * 各线程需要各自提交事务并真正争用行锁，因此测试本身不开启事务。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.type=com.zaxxer.hikari.HikariDataSource",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BalanceLedgerServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceLedgerServiceTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 5;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal FEE = new BigDecimal("10.00");
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    private Long studentId;
+
+    @BeforeEach
+    void setUp() {
+        Student student = new Student();
+        student.setUsername("ledger_student");
+        student.setPassword("password123");
+        student.setRealName("并发学员");
+        student.setPhone("13800138000");
+        student.setUserType(UserType.STUDENT);
+        student.setBalance(INITIAL_BALANCE);
+        studentId = studentRepository.save(student).getId();
+        balanceLedgerService.recordOpeningBalance(studentId, INITIAL_BALANCE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        balanceLedgerRepository.deleteAllInBatch();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(() -> {
+            try {
+                balanceLedgerService.debit(studentId, FEE, LedgerEntryType.COURSE_FEE, null);
+                succeeded.incrementAndGet();
+            } catch (BusinessException e) {
+                rejected.incrementAndGet();
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        int affordable = INITIAL_BALANCE.divide(FEE).intValue();
+        assertEquals(affordable, succeeded.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - affordable, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(studentRepository.findBalanceById(studentId)));
+        assertLedgerMatchesBalance();
+
+        // 每次扣款看到的变动后余额各不相同，说明扣款是串行生效的
+        Set<BigDecimal> balancesAfter = balanceLedgerRepository.findByStudentId(studentId).stream()
+                .filter(l -> l.getEntryType() == LedgerEntryType.COURSE_FEE)
+                .map(BalanceLedger::getBalanceAfter)
+                .map(BigDecimal::stripTrailingZeros)
+                .collect(Collectors.toSet());
+        assertEquals(affordable, balancesAfter.size());
+    }
+
+    @Test
+    void concurrentCreditsAndDebitsKeepBalanceEqualToLedger() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(() -> {
+            try {
+                if (calls.incrementAndGet() % 3 == 0) {
+                    balanceLedgerService.credit(studentId, FEE, LedgerEntryType.RECHARGE, null);
+                } else {
+                    balanceLedgerService.debit(studentId, new BigDecimal("25.00"), LedgerEntryType.COURSE_FEE, null);
+                }
+            } catch (BusinessException e) {
+                // 余额不足属于正常结果
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertTrue(studentRepository.findBalanceById(studentId).signum() >= 0);
+        assertLedgerMatchesBalance();
+    }
+
+    private void assertLedgerMatchesBalance() {
+        BigDecimal balance = studentRepository.findBalanceById(studentId);
+        assertEquals(0, balance.compareTo(balanceLedgerRepository.sumAmountByStudentId(studentId)));
+        assertTrue(balanceLedgerService.reconcile().isEmpty());
+    }
+
+    private void runConcurrently(Runnable action) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        action.run();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ttp_serve.service;
+
+import com.example.ttp_serve.cache.ContestLiveHub;
+import com.example.ttp_serve.entity.Campus;
+import com.example.ttp_serve.entity.ContestSchedule;
+import com.example.ttp_serve.entity.MonthlyContest;
+import com.example.ttp_serve.entity.Student;
+import com.example.ttp_serve.enums.ContestGroup;
+import com.example.ttp_serve.enums.ContestScheduleStatus;
+import com.example.ttp_serve.enums.ContestStage;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.repository.CampusRepository;
+import com.example.ttp_serve.repository.ContestScheduleBatchRepository;
+import com.example.ttp_serve.repository.ContestScheduleRepository;
+import com.example.ttp_serve.repository.MonthlyContestRepository;
+import com.example.ttp_serve.repository.StudentRepository;
+import com.example.ttp_serve.service.impl.ContestServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 最后两场小组赛同时录入结果时，淘汰赛首轮恰好生成一次。
+ * 两个线程需要各自提交事务并争用月赛的行锁，因此测试本身不开启事务。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contest_knockout;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.type=com.zaxxer.hikari.HikariDataSource",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ContestServiceImpl.class, ContestLiveHub.class, ContestScheduleBatchRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ContestKnockoutConcurrencyTest {
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private ContestService contestService;
+
+    @Autowired
+    private CampusRepository campusRepository;
+
+    @Autowired
+    private MonthlyContestRepository contestRepository;
+
+    @Autowired
+    private ContestScheduleRepository scheduleRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        scheduleRepository.deleteAllInBatch();
+        contestRepository.deleteAllInBatch();
+        studentRepository.deleteAll();
+        campusRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentLastGroupResultsGenerateKnockoutOnce() throws InterruptedException {
+        Campus campus = new Campus();
+        campus.setName("总校");
+        campus = campusRepository.save(campus);
+        List<Student> players = List.of(student("player1"), student("player2"), student("player3"), student("player4"));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            MonthlyContest contest = new MonthlyContest();
+            contest.setCampus(campus);
+            contest.setContestDate(LocalDate.now().plusDays(round + 1));
+            contest.setGroupType(ContestGroup.A);
+            contest.setCreatedAt(LocalDateTime.now());
+            contest = contestRepository.save(contest);
+
+            // 两个小组各一场，两场都结束后各组前两名进入淘汰赛，首轮为两场半决赛
+            ContestSchedule group1 = groupMatch(contest, 1, players.get(0), players.get(1));
+            ContestSchedule group2 = groupMatch(contest, 2, players.get(2), players.get(3));
+
+            runConcurrently(
+                    () -> contestService.updateMatchResult(group1.getId(), players.get(0).getId()),
+                    () -> contestService.updateMatchResult(group2.getId(), players.get(2).getId()));
+
+            Integer knockout = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM contest_schedule WHERE contest_id = ? AND stage = ?",
+                    Integer.class, contest.getId(), ContestStage.KNOCKOUT.name());
+            assertEquals(2, knockout, "round " + round);
+        }
+    }
+
+    private void runConcurrently(Runnable... actions) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(actions.length);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        try {
+            for (Runnable action : actions) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        action.run();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(failures.isEmpty(), () -> "unexpected failures: " + failures);
+    }
+
+    private ContestSchedule groupMatch(MonthlyContest contest, int groupNumber, Student player1, Student player2) {
+        ContestSchedule schedule = new ContestSchedule();
+        schedule.setContest(contest);
+        schedule.setRoundNumber(1);
+        schedule.setGroupType(ContestGroup.A);
+        schedule.setStage(ContestStage.GROUP);
+        schedule.setGroupNumber(groupNumber);
+        schedule.setPlayer1(player1);
+        schedule.setPlayer2(player2);
+        schedule.setStatus(ContestScheduleStatus.PENDING);
+        schedule.setCreatedAt(LocalDateTime.now());
+        return scheduleRepository.save(schedule);
+    }
+
+    private Student student(String username) {
+        Student student = new Student();
+        student.setUsername(username);
+        student.setPassword("password123");
+        student.setRealName(username);
+        student.setPhone("13800138000");
+        student.setUserType(UserType.STUDENT);
+        return studentRepository.save(student);
+    }
+}
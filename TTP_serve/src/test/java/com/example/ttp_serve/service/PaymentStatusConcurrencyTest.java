@@ -0,0 +1,181 @@
+package com.example.ttp_serve.service;
+
+import com.example.ttp_serve.entity.Payment;
+import com.example.ttp_serve.entity.Student;
+import com.example.ttp_serve.enums.PaymentMethod;
+import com.example.ttp_serve.enums.PaymentStatus;
+import com.example.ttp_serve.enums.PaymentTotalScope;
+import com.example.ttp_serve.enums.PaymentType;
+import com.example.ttp_serve.enums.UserType;
+import com.example.ttp_serve.exception.BusinessException;
+import com.example.ttp_serve.repository.BalanceLedgerRepository;
+import com.example.ttp_serve.repository.PaymentRepository;
+import com.example.ttp_serve.repository.PaymentTotalRepository;
+import com.example.ttp_serve.repository.StudentRepository;
+import com.example.ttp_serve.service.impl.BalanceLedgerServiceImpl;
+import com.example.ttp_serve.service.impl.PaymentServiceImpl;
+import com.example.ttp_serve.util.UuidOrderIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 管理员修改支付状态与支付成功回调并发时，金额汇总只计入一次；
+ * 失败回调以数据库中的最新状态为准，不使用事务中先前加载的旧实体。
+ * 两个线程需要各自提交事务，因此测试本身不开启事务。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payment_status;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.type=com.zaxxer.hikari.HikariDataSource",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PaymentServiceImpl.class, BalanceLedgerServiceImpl.class, UuidOrderIdGenerator.class,
+        PaymentTotalRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentStatusConcurrencyTest {
+
+    private static final int ROUNDS = 20;
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentTotalRepository paymentTotalRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        // payment_total 由 JdbcTemplate 维护，不在实体中
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS payment_total (scope VARCHAR(16) NOT NULL, " +
+                "scope_key VARCHAR(32) NOT NULL, total DECIMAL(14, 2) NOT NULL DEFAULT 0, PRIMARY KEY (scope, scope_key))");
+
+        student = new Student();
+        student.setUsername("payment_student");
+        student.setPassword("password123");
+        student.setRealName("并发学员");
+        student.setPhone("13800138000");
+        student.setUserType(UserType.STUDENT);
+        student.setBalance(BigDecimal.ZERO);
+        student = studentRepository.save(student);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM payment_total");
+        balanceLedgerRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentAdminUpdateAndCallbackCountOnce() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            Payment saved = paymentRepository.save(pendingPayment("PAY-CONCURRENT-" + round));
+
+            runConcurrently(
+                    () -> paymentService.updatePaymentStatus(saved.getId(), PaymentStatus.SUCCESS),
+                    () -> paymentService.processPaymentSuccess(saved.getOrderId()));
+
+            BigDecimal expected = AMOUNT.multiply(BigDecimal.valueOf(round + 1));
+            assertEquals(0, expected.compareTo(
+                    paymentTotalRepository.findTotal(PaymentTotalScope.USER, String.valueOf(student.getId()))),
+                    "round " + round);
+            assertEquals(0, expected.compareTo(
+                    paymentTotalRepository.findTotal(PaymentTotalScope.TYPE, PaymentType.RECHARGE.name())),
+                    "round " + round);
+        }
+    }
+
+    @Test
+    void failureAfterSuccessInSameTransactionIsRejected() {
+        Payment saved = paymentRepository.save(pendingPayment("PAY-STALE"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            // 与对账任务一样先在事务中加载支付记录，随后支付成功回调修改了数据库中的状态
+            assertEquals(PaymentStatus.PENDING, paymentRepository.findById(saved.getId()).orElseThrow().getStatus());
+            jdbcTemplate.update("UPDATE payment SET status = ? WHERE id = ?", PaymentStatus.SUCCESS.name(), saved.getId());
+
+            assertThrows(BusinessException.class, () -> paymentService.processPaymentFailure(saved.getOrderId()));
+            tx.setRollbackOnly();
+        });
+    }
+
+    private Payment pendingPayment(String orderId) {
+        Payment payment = new Payment();
+        payment.setUser(student);
+        payment.setAmount(AMOUNT);
+        payment.setPaymentType(PaymentType.RECHARGE);
+        payment.setPaymentMethod(PaymentMethod.OFFLINE);
+        payment.setOrderId(orderId);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setCreatedAt(LocalDateTime.now());
+        return payment;
+    }
+
+    private void runConcurrently(Runnable... actions) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(actions.length);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        try {
+            for (Runnable action : actions) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        action.run();
+                    } catch (BusinessException e) {
+                        // 状态已被另一方修改
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(failures.isEmpty(), () -> "unexpected failures: " + failures);
+    }
+}
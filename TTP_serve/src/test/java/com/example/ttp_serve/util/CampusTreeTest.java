@@ -0,0 +1,100 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CampusTreeTest {
+
+    @Test
+    void answersTreeSubtreeAndAncestorQueries() {
+        // 1 ─┬─ 3 ── 5
+        //    └─ 4
+        // 2 ── 6
+        CampusTree tree = CampusTree.of(List.of(node(6, 2L), node(5, 3L), node(4, 1L), node(3, 1L),
+                node(2, null), node(1, null)));
+
+        assertEquals(List.of(1L, 2L), ids(tree.roots()));
+        assertEquals(List.of(3L, 4L), ids(tree.children(1L)));
+        assertEquals(List.of(3L, 5L, 4L), ids(tree.descendants(1L)));
+        assertEquals(List.of(1L, 3L, 5L, 4L), tree.subtreeIds(1L));
+        assertEquals(List.of(3L, 1L), ids(tree.ancestors(5L)));
+        assertTrue(tree.isInSubtree(1L, 5L));
+        assertTrue(tree.isInSubtree(3L, 3L));
+        assertFalse(tree.isInSubtree(3L, 4L));
+        assertFalse(tree.isInSubtree(2L, 1L));
+    }
+
+    @Test
+    void unknownIdsAreEmpty() {
+        CampusTree tree = CampusTree.of(List.of(node(1, null)));
+
+        assertFalse(tree.contains(9L));
+        assertNull(tree.get(9L));
+        assertTrue(tree.children(9L).isEmpty());
+        assertTrue(tree.subtreeIds(9L).isEmpty());
+        assertTrue(tree.ancestors(9L).isEmpty());
+        assertFalse(tree.isInSubtree(9L, 1L));
+        assertFalse(tree.isInSubtree(null, 1L));
+    }
+
+    @Test
+    void breaksDanglingParentsAndCycles() {
+        // 2 的父校区不存在；3 和 4 互为父校区
+        CampusTree tree = CampusTree.of(List.of(node(1, null), node(2, 99L), node(3, 4L), node(4, 3L)));
+
+        assertEquals(4, tree.size());
+        assertEquals(List.of(1L, 2L, 3L), ids(tree.roots()));
+        assertEquals(List.of(4L), ids(tree.children(3L)));
+        assertTrue(tree.ancestors(3L).isEmpty());
+    }
+
+    @Test
+    void agreesWithParentWalkOnRandomForest() {
+        Random random = new Random(11);
+        int n = 500;
+        List<CampusTree.Node> nodes = new ArrayList<>();
+        Long[] parents = new Long[n + 1];
+        for (int id = 1; id <= n; id++) {
+            parents[id] = id == 1 || random.nextInt(10) == 0 ? null : (long) (1 + random.nextInt(id - 1));
+            nodes.add(node(id, parents[id]));
+        }
+        CampusTree tree = CampusTree.of(nodes);
+
+        for (int q = 0; q < 200; q++) {
+            long root = 1 + random.nextInt(n);
+            Set<Long> expected = new HashSet<>();
+            for (int id = 1; id <= n; id++) {
+                for (Long at = (long) id; at != null; at = parents[at.intValue()]) {
+                    if (at == root) {
+                        expected.add((long) id);
+                        break;
+                    }
+                }
+            }
+            List<Long> subtree = tree.subtreeIds(root);
+            assertEquals(expected, new HashSet<>(subtree));
+            assertEquals(expected.size(), subtree.size());
+
+            long id = 1 + random.nextInt(n);
+            assertEquals(expected.contains(id), tree.isInSubtree(root, id));
+        }
+    }
+
+    private static CampusTree.Node node(long id, Long parentId) {
+        return new CampusTree.Node(id, parentId, "校区" + id, null, null, null, null, null, null);
+    }
+
+    private static List<Long> ids(List<CampusTree.Node> nodes) {
+        return nodes.stream().map(CampusTree.Node::id).toList();
+    }
+}
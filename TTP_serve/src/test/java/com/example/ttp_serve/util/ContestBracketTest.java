@@ -0,0 +1,84 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContestBracketTest {
+
+    @Test
+    void tiesAreBrokenByHeadToHead() {
+        // 1、2、3 循环相克各一胜，均胜4；5 与 6 同为一胜，6 胜 5
+        List<ContestBracket.Result> results = List.of(
+                new ContestBracket.Result(1, 1, 2, 1L),
+                new ContestBracket.Result(1, 2, 3, 2L),
+                new ContestBracket.Result(1, 3, 1, 3L),
+                new ContestBracket.Result(1, 1, 4, 1L),
+                new ContestBracket.Result(1, 2, 4, 2L),
+                new ContestBracket.Result(1, 3, 4, 3L),
+                new ContestBracket.Result(2, 5, 6, 6L),
+                new ContestBracket.Result(2, 5, 7, 5L),
+                new ContestBracket.Result(2, 6, 7, 7L),
+                new ContestBracket.Result(2, 7, 8, null));
+
+        Map<Integer, List<ContestBracket.Standing>> standings = ContestBracket.standings(results);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), playerIds(standings.get(1)));
+        assertEquals(2, standings.get(1).get(0).wins());
+        // 7 与 5、6 同为一胜，但三人相互间各一胜，7 未赛完的比赛不计负场，按选手ID排序
+        assertEquals(List.of(5L, 6L, 7L, 8L), playerIds(standings.get(2)));
+        assertEquals(0, standings.get(2).get(3).played());
+    }
+
+    @Test
+    void seedOrderKeepsTopSeedsApart() {
+        assertArrayEquals(new int[]{1, 4, 2, 3}, ContestBracket.seedOrder(4));
+        assertArrayEquals(new int[]{1, 8, 4, 5, 2, 7, 3, 6}, ContestBracket.seedOrder(8));
+    }
+
+    @Test
+    void drawGivesByesToTopSeedsAndAvoidsGroupRematches() {
+        // 3组各4人，每组前两名晋级，共6人，对阵树8个位置，两个轮空
+        List<ContestBracket.Result> results = new ArrayList<>();
+        Map<Long, Integer> groupOf = new HashMap<>();
+        for (int g = 1; g <= 3; g++) {
+            long base = g * 10L;
+            for (long i = 0; i < 4; i++) {
+                groupOf.put(base + i, g);
+                for (long j = i + 1; j < 4; j++) {
+                    results.add(new ContestBracket.Result(g, base + i, base + j, base + i));
+                }
+            }
+        }
+
+        ContestBracket.Draw draw = ContestBracket.draw(ContestBracket.standings(results), 2);
+
+        assertEquals(8, draw.size());
+        int byes = 0;
+        for (int m = draw.size() / 2; m < draw.size(); m++) {
+            Long a = draw.playerAt(2 * m);
+            Long b = draw.playerAt(2 * m + 1);
+            if (b == null) {
+                byes++;
+                // 轮空留给小组第一
+                assertEquals(0, a % 10);
+            } else {
+                assertNotEquals(groupOf.get(a), groupOf.get(b), "same-group match at " + m);
+            }
+        }
+        assertEquals(2, byes);
+        assertNull(draw.playerAt(9));
+    }
+
+    private static List<Long> playerIds(List<ContestBracket.Standing> group) {
+        return group.stream().map(ContestBracket.Standing::playerId).toList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 200人以上的赛程排程耗时与总时段数，要求单次排程在1秒内完成。
+ * 不随默认测试运行，使用 -Pbenchmark 执行。
+ */
+@Tag("benchmark")
+class MatchSchedulerBenchmarkTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 18);
+    private static final int RUNS = 5;
+    private static final long SOLVE_LIMIT_NANOS = 1_000_000_000L;
+
+    @Test
+    void groupStage256Players() {
+        // 256人，每组4人
+        List<MatchScheduler.Match> matches = new ArrayList<>();
+        for (int g = 0; g < 64; g++) {
+            matches.addAll(roundRobin(g * 4L, 4));
+        }
+        run("group stage 256 players / 8 courts", matches, 8);
+    }
+
+    @Test
+    void roundRobin200Players() {
+        run("round robin 200 players / 100 courts", roundRobin(0, 200), 100);
+    }
+
+    @Test
+    void roundRobin200PlayersOnFewCourts() {
+        run("round robin 200 players / 8 courts", roundRobin(0, 200), 8);
+    }
+
+    private void run(String name, List<MatchScheduler.Match> matches, int courts) {
+        MatchScheduler.Result result = null;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            MatchScheduler scheduler = new MatchScheduler(DAY, LocalTime.of(9, 0), LocalTime.of(21, 0), 30);
+            for (long c = 1; c <= courts; c++) {
+                scheduler.addCourt(c);
+            }
+            long begin = System.nanoTime();
+            result = scheduler.schedule(matches);
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        System.out.printf("%s: %d matches, makespan %d slots (lower bound %d), solve %.2f ms%n",
+                name, matches.size(), result.slots(), result.lowerBound(), best / 1_000_000.0);
+
+        assertEquals(matches.size(), result.assignments().size());
+        assertTrue(best < SOLVE_LIMIT_NANOS, "solve took " + best / 1_000_000 + " ms");
+    }
+
+    private static List<MatchScheduler.Match> roundRobin(long firstPlayer, int players) {
+        List<MatchScheduler.Match> matches = new ArrayList<>();
+        for (long i = 0; i < players; i++) {
+            for (long j = i + 1; j < players; j++) {
+                matches.add(new MatchScheduler.Match(firstPlayer + i, firstPlayer + j));
+            }
+        }
+        return matches;
+    }
+}
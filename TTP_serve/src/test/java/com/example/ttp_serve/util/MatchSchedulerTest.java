@@ -0,0 +1,136 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchSchedulerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 18);
+
+    @Test
+    void respectsCourtAndPlayerBlocks() {
+        MatchScheduler scheduler = newScheduler(2);
+        // 球台1上午9:00-10:00有课，选手1在9:30-10:00有课
+        scheduler.blockCourt(1, DAY.atTime(9, 0), DAY.atTime(10, 0));
+        scheduler.blockPlayer(1, DAY.atTime(9, 30), DAY.atTime(10, 0));
+
+        List<MatchScheduler.Match> matches = roundRobin(0, 6);
+        MatchScheduler.Result result = scheduler.schedule(matches);
+
+        assertNoConflicts(matches, result);
+        for (MatchScheduler.Assignment a : result.assignments()) {
+            LocalDateTime start = a.startTime();
+            if (a.courtId() == 1) {
+                assertFalse(start.isBefore(DAY.atTime(10, 0)), "court 1 used at " + start);
+            }
+            MatchScheduler.Match m = matches.get(a.matchIndex());
+            if (m.player1() == 1 || m.player2() == 1) {
+                assertFalse(start.equals(DAY.atTime(9, 30)), "player 1 scheduled while blocked");
+            }
+        }
+    }
+
+    @Test
+    void rollsOverToNextDay() {
+        MatchScheduler scheduler = new MatchScheduler(DAY, LocalTime.of(9, 0), LocalTime.of(10, 0), 30);
+        scheduler.addCourt(1);
+        MatchScheduler.Result result = scheduler.schedule(roundRobin(0, 3));
+
+        assertEquals(3, result.assignments().size());
+        assertEquals(DAY.plusDays(1).atTime(9, 0), result.assignments().get(2).startTime());
+    }
+
+    /**
+     * 256人小组赛和200人循环赛的总时段数不超过下界的110%
+     */
+    @Test
+    void largeDrawsStayNearLowerBound() {
+        // 256人，每组4人：384场比赛，8张球台下界48个时段
+        List<MatchScheduler.Match> groupStage = new ArrayList<>();
+        for (int g = 0; g < 64; g++) {
+            groupStage.addAll(roundRobin(g * 4L, 4));
+        }
+        assertNearLowerBound(groupStage, 8, 48);
+
+        // 200人单循环：19900场比赛，每人199场，下界199个时段
+        assertNearLowerBound(roundRobin(0, 200), 100, 199);
+    }
+
+    private void assertNearLowerBound(List<MatchScheduler.Match> matches, int courts, int lowerBound) {
+        MatchScheduler.Result result = newScheduler(courts).schedule(matches);
+
+        assertNoConflicts(matches, result);
+        assertEquals(lowerBound, result.lowerBound());
+        assertTrue(result.slots() <= lowerBound + lowerBound / 10 + 1,
+                "makespan " + result.slots() + " vs lower bound " + lowerBound);
+    }
+
+    @Test
+    void horizonGrowsWithMatchesPerCourt() {
+        // 200人单循环只有4张球台：19900场比赛至少4975个时段，远超两周
+        List<MatchScheduler.Match> matches = roundRobin(0, 200);
+        MatchScheduler scheduler = newScheduler(4);
+        // 前三天球台1被课程占满
+        scheduler.blockCourt(1, DAY.atTime(9, 0), DAY.plusDays(3).atTime(9, 0));
+
+        MatchScheduler.Result result = scheduler.schedule(matches);
+
+        assertNoConflicts(matches, result);
+        assertEquals(4975, result.lowerBound());
+        assertFalse(result.endTime().isAfter(scheduler.horizonEnd(matches)));
+    }
+
+    @Test
+    void failsWhenCourtsStayBlockedBeyondHorizon() {
+        MatchScheduler scheduler = newScheduler(1);
+        scheduler.blockCourt(1, DAY.atTime(0, 0), DAY.plusDays(60).atTime(0, 0));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> scheduler.schedule(roundRobin(0, 2)));
+        assertTrue(e.getMessage().contains("无法排完全部比赛"), e.getMessage());
+    }
+
+    private static MatchScheduler newScheduler(int courts) {
+        MatchScheduler scheduler = new MatchScheduler(DAY, LocalTime.of(9, 0), LocalTime.of(21, 0), 30);
+        for (long c = 1; c <= courts; c++) {
+            scheduler.addCourt(c);
+        }
+        return scheduler;
+    }
+
+    private static List<MatchScheduler.Match> roundRobin(long firstPlayer, int players) {
+        List<MatchScheduler.Match> matches = new ArrayList<>();
+        for (long i = 0; i < players; i++) {
+            for (long j = i + 1; j < players; j++) {
+                matches.add(new MatchScheduler.Match(firstPlayer + i, firstPlayer + j));
+            }
+        }
+        return matches;
+    }
+
+    private static void assertNoConflicts(List<MatchScheduler.Match> matches, MatchScheduler.Result result) {
+        assertEquals(matches.size(), result.assignments().size());
+        Set<Integer> scheduled = new HashSet<>();
+        Set<String> courtSlots = new HashSet<>();
+        Set<String> playerSlots = new HashSet<>();
+        for (MatchScheduler.Assignment a : result.assignments()) {
+            assertTrue(scheduled.add(a.matchIndex()), "match scheduled twice");
+            assertTrue(courtSlots.add(a.slot() + ":" + a.courtId()), "court double-booked");
+            MatchScheduler.Match m = matches.get(a.matchIndex());
+            assertTrue(playerSlots.add(a.slot() + ":" + m.player1()), "player double-booked");
+            assertTrue(playerSlots.add(a.slot() + ":" + m.player2()), "player double-booked");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    @Test
+    void ranksExactThenPrefixThenWordStartThenSubstring() {
+        SearchIndex<Void> index = new SearchIndex<>();
+        index.put(1, null, "xzhang", "");
+        index.put(2, null, "coach_zhang", "");
+        index.put(3, null, "zhangsan", "");
+        index.put(4, null, "zhang", "");
+        index.put(5, null, "li", "zhang");
+
+        // 次要字段完全相同仍排在主要字段的前缀之前
+        assertEquals(List.of(4L, 5L, 3L, 2L, 1L), index.search("zhang", null, 0, 10).ids());
+    }
+
+    @Test
+    void matchesChineseSubstringsAndPinyinInitials() {
+        SearchIndex<Void> index = new SearchIndex<>();
+        index.put(1, null, "coach_li", "李明");
+        index.put(2, null, "student_zs", "张三丰");
+        index.put(3, null, "student_ww", "王五");
+
+        assertEquals(List.of(1L), index.search("明", null, 0, 10).ids());
+        assertEquals(List.of(2L), index.search("三丰", null, 0, 10).ids());
+        assertEquals(List.of(2L), index.search("zsf", null, 0, 10).ids());
+        assertEquals(List.of(3L), index.search("ww", null, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("lm", null, 0, 10).ids());
+    }
+
+    @Test
+    void normalizesCaseAndFullWidthCharacters() {
+        SearchIndex<Void> index = new SearchIndex<>();
+        index.put(1, null, "Coach_Wang");
+
+        assertEquals(List.of(1L), index.search("ＷＡＮＧ", null, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("  coach  wang ", null, 0, 10).ids());
+        assertTrue(index.search("wang li", null, 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    void filtersAndPaginatesWithTotal() {
+        SearchIndex<Integer> index = new SearchIndex<>();
+        for (int i = 1; i <= 25; i++) {
+            index.put(i, i % 2, "user" + i);
+        }
+
+        SearchIndex.Hits hits = index.search("user", campus -> campus == 1, 5, 5);
+        assertEquals(13, hits.total());
+        assertEquals(List.of(11L, 13L, 15L, 17L, 19L), hits.ids());
+        assertTrue(index.search("user", campus -> campus == 1, 20, 5).ids().isEmpty());
+        // 空查询返回全部满足条件的文档
+        assertEquals(12, index.search(" ", campus -> campus == 0, 0, 100).total());
+    }
+
+    @Test
+    void updatesAndRemovalsAreVisibleAndSurviveCompaction() {
+        SearchIndex<Void> index = new SearchIndex<>();
+        index.put(1, null, "old name");
+        index.put(1, null, "new name");
+        assertTrue(index.search("old", null, 0, 10).ids().isEmpty());
+        assertEquals(List.of(1L), index.search("new", null, 0, 10).ids());
+
+        for (int round = 0; round < 3; round++) {
+            for (long id = 100; id < 1600; id++) {
+                index.put(id, null, "member" + id + " r" + round);
+            }
+        }
+        for (long id = 100; id < 1500; id++) {
+            index.remove(id);
+        }
+        assertFalse(index.contains(100));
+        assertEquals(101, index.size());
+        assertEquals(100, index.search("member", null, 0, 1000).total());
+        assertEquals(List.of(1599L), index.search("member1599 r2", null, 0, 10).ids());
+    }
+
+    @Test
+    void agreesWithContainsScanOnRandomData() {
+        Random random = new Random(7);
+        String alphabet = "张王李赵明华伟abcde";
+        SearchIndex<Void> index = new SearchIndex<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 2 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            names.add(name.toString());
+            index.put(i, null, name.toString());
+        }
+
+        for (int q = 0; q < 200; q++) {
+            String name = names.get(random.nextInt(names.size()));
+            int from = random.nextInt(name.length());
+            String keyword = name.substring(from, from + 1 + random.nextInt(Math.min(3, name.length() - from)));
+            long expected = names.stream().filter(n -> n.contains(keyword)).count();
+            assertEquals(expected, index.search(keyword, null, 0, 0).total(), keyword);
+        }
+    }
+
+    @Test
+    void pinyinInitialsCoverCommonSurnames() {
+        assertEquals("zsf", PinyinInitials.of("张三丰"));
+        assertEquals("lwlczh", PinyinInitials.of("李王刘陈赵黄"));
+        assertEquals("jlz1", PinyinInitials.of("教练 Z1"));
+        assertNull(PinyinInitials.of("coach"));
+        assertNull(PinyinInitials.of(null));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ttp_serve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeOrderIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 1_500_000;
+
+    @Test
+    void concurrentGenerationProducesUniqueIncreasingIds() throws Exception {
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Callable<long[]> task = () -> {
+                long[] ids = new long[IDS_PER_THREAD];
+                start.await();
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = generator.nextLong();
+                }
+                return ids;
+            };
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                futures[i] = executor.submit(task);
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            for (int i = 0; i < THREADS; i++) {
+                long[] ids = (long[]) futures[i].get();
+                // 同一线程内的ID严格递增
+                for (int j = 1; j < ids.length; j++) {
+                    assertTrue(ids[j] > ids[j - 1]);
+                }
+                System.arraycopy(ids, 0, all, i * IDS_PER_THREAD, IDS_PER_THREAD);
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "duplicate id " + all[i]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void orderIdsAreFixedWidthAndSortable() {
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(1);
+        String previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            String current = generator.nextId();
+            assertEquals(22, current.length());
+            assertTrue(current.startsWith("PAY"));
+            assertTrue(current.compareTo(previous) > 0);
+            previous = current;
+        }
+    }
+
+    @Test
+    void nodeIdIsEncodedInEveryId() {
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(1023);
+        long id = generator.nextLong();
+        long nodeId = (id >>> SnowflakeOrderIdGenerator.SEQUENCE_BITS) & SnowflakeOrderIdGenerator.MAX_NODE_ID;
+        assertEquals(1023, nodeId);
+    }
+
+    @Test
+    void clockRollbackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(SnowflakeOrderIdGenerator.EPOCH + 100_000);
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(3, 1000, 10_000, clock::get);
+
+        long before = generator.nextLong();
+        clock.addAndGet(-5_000);
+        long afterRollback = generator.nextLong();
+        assertTrue(afterRollback > before);
+
+        clock.addAndGet(-20_000);
+        assertThrows(IllegalStateException.class, generator::nextLong);
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsNextMillisecond() {
+        AtomicLong clock = new AtomicLong(SnowflakeOrderIdGenerator.EPOCH + 100_000);
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(3, 1000, 10_000, clock::get);
+
+        long previous = generator.nextLong();
+        // 时钟停止时连续生成超过一毫秒的序号容量
+        for (int i = 0; i < 3 * 4096; i++) {
+            long current = generator.nextLong();
+            assertTrue(current > previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    void invalidNodeIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderIdGenerator(-1));
+    }
+}
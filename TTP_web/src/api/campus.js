@@ -65,6 +65,14 @@ export function getCampusStats(id) {
   })
 }
 
+// 获取所有校区统计信息（一次请求返回全部校区）
+export function getAllCampusStats() {
+  return request({
+    url: '/api/campuses/stats',
+    method: 'get'
+  })
+}
+
 // 获取当前校区信息
 export function getCampusInfo() {
   return request({
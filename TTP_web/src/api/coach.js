@@ -25,6 +25,15 @@ export function searchCoaches(params) {
   })
 }
 
+// 教练目录：按级别、性别、年龄范围、校区、是否有名额、课时费筛选，支持 sort=averageRating,desc 等排序和分页
+export function getCoachDirectory(params) {
+  return request({
+    url: '/api/coaches/directory',
+    method: 'get',
+    params
+  })
+}
+
 export function updateCoach(id, data) {
   return request({
     url: `/api/coaches/${id}`,
@@ -211,4 +211,12 @@ export function getCampusCourses(campusId, params) {
     method: 'get',
     params: queryParams
   })
-}
\ No newline at end of file
+}
+// 按游标分页获取课程列表（params: cursor, size, withTotal）
+export function getCoursesByCursor(params) {
+  return request({
+    url: '/api/courses/cursor',
+    method: 'get',
+    params
+  })
+}
@@ -54,4 +54,12 @@ export function getCourseEvaluations(courseId) {
     url: `/api/evaluations/course/${courseId}`,
     method: 'get'
   })
-}
\ No newline at end of file
+}
+// 批量获取用户的评分汇总
+export function getRatingSummaries(userIds) {
+  return request({
+    url: '/api/evaluations/ratings',
+    method: 'get',
+    params: { userIds: userIds.join(',') }
+  })
+}
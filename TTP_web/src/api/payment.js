@@ -59,18 +59,28 @@ export function createPaymentOrder(data) {
   })
 }
 
-// 确认支付成功
-export function confirmPaymentSuccess(orderId) {
+// 确认支付成功（idempotencyKey 可选，重试时传入同一个值可避免重复处理）
+export function confirmPaymentSuccess(orderId, idempotencyKey) {
   return request({
     url: `/api/payments/${orderId}/success`,
-    method: 'post'
+    method: 'post',
+    headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}
   })
 }
 
-// 确认支付失败
-export function confirmPaymentFailure(orderId) {
+// 确认支付失败（idempotencyKey 可选）
+export function confirmPaymentFailure(orderId, idempotencyKey) {
   return request({
     url: `/api/payments/${orderId}/failure`,
-    method: 'post'
+    method: 'post',
+    headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}
+  })
+}
+// 按游标分页获取支付记录（params: cursor, size, withTotal）
+export function getPaymentsByCursor(params) {
+  return request({
+    url: '/api/payments/cursor',
+    method: 'get',
+    params
   })
-}
\ No newline at end of file
+}
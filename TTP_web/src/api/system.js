@@ -55,4 +55,20 @@ export function updateSystemConfig(data) {
     method: 'put',
     data
   })
-}
\ No newline at end of file
+}
+// 按游标分页获取系统日志（params: cursor, size, withTotal）
+export function getSystemLogsByCursor(params) {
+  return request({
+    url: '/api/system-logs/cursor',
+    method: 'get',
+    params
+  })
+}
+
+// 获取日志异步写入器的统计（队列积压、累计写入/丢弃/溢出的日志数）
+export function getSystemLogWriterStats() {
+  return request({
+    url: '/api/system-logs/writer-stats',
+    method: 'get'
+  })
+}
@@ -1,4 +1,5 @@
 import request from '@/utils/request'
+import { getToken } from '@/utils/auth'
 
 // 比赛管理API
 export function getTournaments(params) {
@@ -109,4 +110,21 @@ export function deleteTournament(id) {
     url: `/api/tournaments/${id}`,
     method: 'delete'
   })
-}
\ No newline at end of file
+}
+// 订阅月赛实时结果（Server-Sent Events）
+// 连接后先收到 snapshot（全部比赛安排及版本号），之后每次变更收到 delta；返回的 EventSource 调用 close() 取消订阅
+export function subscribeContestLive(contestId, { onSnapshot, onDelta, onError } = {}) {
+  // EventSource 不能设置请求头，令牌通过 access_token 查询参数传递
+  const token = encodeURIComponent(getToken() || '')
+  const source = new EventSource(`${process.env.VUE_APP_BASE_API}/api/contests/${contestId}/live?access_token=${token}`)
+  source.addEventListener('snapshot', e => onSnapshot && onSnapshot(JSON.parse(e.data)))
+  source.addEventListener('delta', e => onDelta && onDelta(JSON.parse(e.data)))
+  source.addEventListener('error', e => {
+    // 服务端返回的错误事件带有数据，此时不再自动重连
+    if (e.data) {
+      source.close()
+      onError && onError(JSON.parse(e.data))
+    }
+  })
+  return source
+}